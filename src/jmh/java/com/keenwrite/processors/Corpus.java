@@ -0,0 +1,236 @@
+/* Copyright 2024 White Magic Software, Ltd. -- All rights reserved.
+ *
+ * SPDX-License-Identifier: MIT
+ */
+package com.keenwrite.processors;
+
+import com.keenwrite.ExportFormat;
+import com.keenwrite.editors.common.Caret;
+import com.keenwrite.processors.r.RInlineEvaluator;
+
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static com.keenwrite.processors.ProcessorContext.Mutator;
+import static com.keenwrite.processors.ProcessorContext.builder;
+import static java.util.Locale.ENGLISH;
+
+/**
+ * Responsible for generating the synthetic documents and definitions that
+ * the benchmarks process. Documents are generated from a fixed seed so that
+ * every run, and every fork, measures the same text.
+ */
+public final class Corpus {
+  /**
+   * Begins a variable reference in the generated documents.
+   */
+  public static final String SIGIL_BEGAN = "{{";
+
+  /**
+   * Ends a variable reference in the generated documents.
+   */
+  public static final String SIGIL_ENDED = "}}";
+
+  private static final long SEED = 0x6B65656EL;
+
+  private static final String[] WORDS = {
+    "the", "of", "and", "a", "to", "in", "is", "was", "that", "for", "it",
+    "with", "as", "his", "her", "on", "be", "at", "by", "had", "not", "are",
+    "but", "from", "or", "have", "an", "they", "which", "one", "you", "were",
+    "all", "their", "there", "been", "would", "when", "who", "will", "more",
+    "ocean", "whale", "harbour", "lantern", "quietly", "engine", "signal",
+    "measured", "voyage", "captain", "distance", "orbit", "copper", "letter",
+    "evening", "archive", "theorem", "window", "river", "mountain", "cargo",
+  };
+
+  private Corpus() { }
+
+  /**
+   * Generates a Markdown document that exercises the custom extensions:
+   * headings, fenced divs, captions, cross-references, and TeX.
+   *
+   * @param paragraphs  Number of paragraphs of prose.
+   * @param definitions Number of definitions that variables may reference,
+   *                    or {@code 0} to omit variables.
+   * @param equations   Probability, from {@code 0} to {@code 1}, that a
+   *                    sentence contains an inline equation.
+   * @return The Markdown document.
+   */
+  public static String markdown(
+    final int paragraphs, final int definitions, final double equations ) {
+    final var random = new Random( SEED );
+    final var doc = new StringBuilder( paragraphs * 512 );
+
+    for( int i = 0; i < paragraphs; i++ ) {
+      if( i % 20 == 0 ) {
+        doc.append( "# Chapter " ).append( i / 20 + 1 ).append( "\n\n" );
+      }
+      else if( i % 5 == 0 ) {
+        doc.append( "## Section " ).append( i ).append( "\n\n" );
+      }
+
+      if( i % 15 == 7 ) {
+        doc.append( "::: note\n" );
+        paragraph( doc, random, definitions, equations );
+        doc.append( ":::\n\n" );
+      }
+      else if( i % 25 == 12 ) {
+        doc.append( "$$E_{" ).append( i ).append( "} = mc^2$$\n\n" );
+        doc.append( ":: Equation " ).append( i )
+           .append( " {#eq:" ).append( i ).append( "}\n\n" );
+      }
+      else {
+        if( i % 25 == 17 ) {
+          doc.append( "See [@eq:" ).append( i - 5 ).append( "].\n\n" );
+        }
+
+        paragraph( doc, random, definitions, equations );
+      }
+    }
+
+    return doc.toString();
+  }
+
+  /**
+   * Generates a Markdown document with inline R statements.
+   *
+   * @param paragraphs Number of paragraphs of prose.
+   * @param statements Number of inline R statements per paragraph.
+   * @return The R Markdown document.
+   */
+  public static String rMarkdown( final int paragraphs, final int statements ) {
+    final var random = new Random( SEED );
+    final var doc = new StringBuilder( paragraphs * 512 );
+
+    for( int i = 0; i < paragraphs; i++ ) {
+      for( int j = 0; j < statements; j++ ) {
+        sentence( doc, random, 0, 0 );
+        doc.append( ' ' )
+           .append( RInlineEvaluator.PREFIX )
+           .append( "round( " ).append( i ).append( " / " ).append( j + 1 )
+           .append( ", 2 )" )
+           .append( RInlineEvaluator.SUFFIX )
+           .append( j + 1 < statements ? " " : "\n\n" );
+      }
+    }
+
+    return doc.toString();
+  }
+
+  /**
+   * Generates definitions keyed by name, without sigils. Every fourth value
+   * references an earlier definition, so interpolation must recurse.
+   *
+   * @param count Number of definitions.
+   * @return A mutable map of definitions.
+   */
+  public static Map<String, String> definitions( final int count ) {
+    final var map = new HashMap<String, String>( count << 1 );
+
+    for( int k = 0; k < count; k++ ) {
+      final var value = new StringBuilder( "Value " ).append( k );
+
+      if( k % 4 == 3 ) {
+        value.append( ' ' ).append( variable( k >> 1 ) );
+      }
+
+      map.put( key( k ), value.toString() );
+    }
+
+    return map;
+  }
+
+  /**
+   * Creates a context for processing the generated documents.
+   *
+   * @param format      The processor chain's output format.
+   * @param source      The document's file name, which determines the
+   *                    document type (e.g., Markdown or R Markdown).
+   * @param definitions The variable definitions.
+   * @return A context suitable for creating processors.
+   */
+  public static ProcessorContext context(
+    final ExportFormat format,
+    final String source,
+    final Map<String, String> definitions ) {
+    final var caret = Caret.builder().build();
+
+    return builder()
+      .with( Mutator::setExportFormat, format )
+      .with( Mutator::setSourcePath, Path.of( source ) )
+      .with( Mutator::setDefinitions, () -> definitions )
+      .with( Mutator::setLocale, () -> ENGLISH )
+      .with( Mutator::setMetadata, HashMap::new )
+      .with( Mutator::setThemeDir, () -> Path.of( "themes" ) )
+      .with( Mutator::setCaret, () -> caret )
+      .with( Mutator::setImageDir, () -> Path.of( "images" ).toFile() )
+      .with( Mutator::setImageOrder, () -> "svg png" )
+      .with( Mutator::setImageServer, () -> "" )
+      .with( Mutator::setSigilBegan, () -> SIGIL_BEGAN )
+      .with( Mutator::setSigilEnded, () -> SIGIL_ENDED )
+      .with( Mutator::setRScript, () -> "" )
+      .with( Mutator::setRWorkingDir, () -> Path.of( "r" ) )
+      .with( Mutator::setCurlQuotes, () -> true )
+      .with( Mutator::setAutoRemove, () -> true )
+      .build();
+  }
+
+  private static void paragraph(
+    final StringBuilder doc,
+    final Random random,
+    final int definitions,
+    final double equations ) {
+    final var sentences = 3 + random.nextInt( 4 );
+
+    for( int i = 0; i < sentences; i++ ) {
+      sentence( doc, random, definitions, equations );
+      doc.append( i + 1 < sentences ? " " : "\n\n" );
+    }
+  }
+
+  private static void sentence(
+    final StringBuilder doc,
+    final Random random,
+    final int definitions,
+    final double equations ) {
+    final var words = 8 + random.nextInt( 12 );
+    final var start = doc.length();
+
+    for( int i = 0; i < words; i++ ) {
+      if( i > 0 ) {
+        doc.append( ' ' );
+      }
+
+      final var word = WORDS[ random.nextInt( WORDS.length ) ];
+
+      if( i == words / 2 && random.nextInt( 8 ) == 0 ) {
+        doc.append( '*' ).append( word ).append( '*' );
+      }
+      else {
+        doc.append( word );
+      }
+    }
+
+    if( definitions > 0 && random.nextInt( 3 ) == 0 ) {
+      doc.append( ' ' ).append( variable( random.nextInt( definitions ) ) );
+    }
+
+    if( random.nextDouble() < equations ) {
+      doc.append( " $x_{" ).append( random.nextInt( 100 ) )
+         .append( "}^2 + \\frac{y}{2}$" );
+    }
+
+    doc.setCharAt( start, Character.toUpperCase( doc.charAt( start ) ) );
+    doc.append( '.' );
+  }
+
+  private static String key( final int k ) {
+    return "d." + k;
+  }
+
+  private static String variable( final int k ) {
+    return SIGIL_BEGAN + key( k ) + SIGIL_ENDED;
+  }
+}
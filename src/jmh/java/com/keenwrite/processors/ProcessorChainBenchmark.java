@@ -0,0 +1,47 @@
+/* Copyright 2024 White Magic Software, Ltd. -- All rights reserved.
+ *
+ * SPDX-License-Identifier: MIT
+ */
+package com.keenwrite.processors;
+
+import com.keenwrite.ExportFormat;
+import org.openjdk.jmh.annotations.*;
+
+import static com.keenwrite.processors.ProcessorFactory.createProcessors;
+
+/**
+ * Measures the complete processor chain that exports a document: Markdown
+ * parsing and rendering, variable substitution, and the output format's
+ * processors.
+ */
+@State( Scope.Benchmark )
+public class ProcessorChainBenchmark {
+  @Param( {"100", "1000", "10000"} )
+  public int paragraphs;
+
+  @Param( {"10", "1000"} )
+  public int definitions;
+
+  @Param( {"0.0", "0.1"} )
+  public double equations;
+
+  @Param( {"HTML_TEX_DELIMITED", "XHTML_TEX"} )
+  public ExportFormat format;
+
+  private Processor<String> mChain;
+  private String mDocument;
+
+  @Setup
+  public void setup() {
+    final var context = Corpus.context(
+      format, "chapter.md", Corpus.definitions( definitions ) );
+
+    mChain = createProcessors( context );
+    mDocument = Corpus.markdown( paragraphs, definitions, equations );
+  }
+
+  @Benchmark
+  public String process() {
+    return mChain.apply( mDocument );
+  }
+}
@@ -0,0 +1,78 @@
+/* Copyright 2024 White Magic Software, Ltd. -- All rights reserved.
+ *
+ * SPDX-License-Identifier: MIT
+ */
+package com.keenwrite.processors.markdown;
+
+import com.keenwrite.ExportFormat;
+import com.keenwrite.processors.Corpus;
+import com.vladsch.flexmark.util.ast.Node;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.HashMap;
+
+import static com.keenwrite.ExportFormat.HTML_TEX_DELIMITED;
+import static com.keenwrite.ExportFormat.NONE;
+
+/**
+ * Measures parsing and rendering Markdown with the custom extensions
+ * (captions, cross-references, fenced divs, and TeX), both for export and
+ * for the preview, which re-renders only the blocks that changed.
+ */
+@State( Scope.Benchmark )
+public class MarkdownBenchmark {
+  @Param( {"100", "1000", "10000"} )
+  public int paragraphs;
+
+  @Param( {"0.0", "0.1", "0.5"} )
+  public double equations;
+
+  private MarkdownProcessor mExport;
+  private MarkdownProcessor mPreview;
+  private String mDocument;
+
+  /**
+   * The document with one paragraph changed, which the preview benchmark
+   * alternates with the original to simulate typing.
+   */
+  private String mEdited;
+  private int mEdits;
+
+  @Setup
+  public void setup() {
+    mDocument = Corpus.markdown( paragraphs, 0, equations );
+
+    final var middle = mDocument.indexOf( "\n\n", mDocument.length() / 2 );
+    mEdited = new StringBuilder( mDocument )
+      .insert( middle, " Edited." )
+      .toString();
+
+    mExport = create( HTML_TEX_DELIMITED );
+    mPreview = create( NONE );
+  }
+
+  @Benchmark
+  public Node parse() {
+    return mExport.toNode( mDocument );
+  }
+
+  @Benchmark
+  public String render() {
+    return mExport.toHtmlFragment( mDocument ).html();
+  }
+
+  @Benchmark
+  public String export() {
+    return mExport.apply( mDocument );
+  }
+
+  @Benchmark
+  public String preview() {
+    return mPreview.apply( (mEdits++ & 1) == 0 ? mDocument : mEdited );
+  }
+
+  private static MarkdownProcessor create( final ExportFormat format ) {
+    return MarkdownProcessor.create(
+      Corpus.context( format, "chapter.md", new HashMap<>() ) );
+  }
+}
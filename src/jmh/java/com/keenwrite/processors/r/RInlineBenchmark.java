@@ -0,0 +1,66 @@
+/* Copyright 2024 White Magic Software, Ltd. -- All rights reserved.
+ *
+ * SPDX-License-Identifier: MIT
+ */
+package com.keenwrite.processors.r;
+
+import com.keenwrite.processors.Corpus;
+import com.keenwrite.processors.variable.RVariableProcessor;
+import org.openjdk.jmh.annotations.*;
+
+import static com.keenwrite.ExportFormat.HTML_TEX_DELIMITED;
+import static com.keenwrite.processors.html.IdentityProcessor.IDENTITY;
+
+/**
+ * Measures evaluating the inline R statements of an R Markdown document.
+ * Each R engine caches the results of statements that it has evaluated, so
+ * evaluating the same document again measures cache hits. The cache holds
+ * more results than the largest document has statements, so the hit path is
+ * measured without evictions; the miss path empties the caches before
+ * every evaluation.
+ */
+@State( Scope.Benchmark )
+public class RInlineBenchmark {
+  @Param( {"10", "100"} )
+  public int paragraphs;
+
+  @Param( {"1", "4"} )
+  public int statements;
+
+  private RInlineEvaluator mEvaluator;
+  private String mDocument;
+
+  /**
+   * Empties the R engine caches before every evaluation.
+   */
+  @State( Scope.Thread )
+  public static class Cleared {
+    @Setup( Level.Invocation )
+    public void clear() {
+      Engine.clear();
+    }
+  }
+
+  @Setup
+  public void setup() {
+    final var context = Corpus.context(
+      HTML_TEX_DELIMITED, "chapter.Rmd", Corpus.definitions( 10 ) );
+
+    mEvaluator = new RInlineEvaluator(
+      new RVariableProcessor( IDENTITY, context ) );
+    mDocument = Corpus.rMarkdown( paragraphs, statements );
+
+    // Fill the cache of the engine used by this thread.
+    mEvaluator.apply( mDocument );
+  }
+
+  @Benchmark
+  public String evaluateHit() {
+    return mEvaluator.apply( mDocument );
+  }
+
+  @Benchmark
+  public String evaluateMiss( final Cleared cleared ) {
+    return mEvaluator.apply( mDocument );
+  }
+}
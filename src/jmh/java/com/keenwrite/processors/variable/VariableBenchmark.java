@@ -0,0 +1,72 @@
+/* Copyright 2024 White Magic Software, Ltd. -- All rights reserved.
+ *
+ * SPDX-License-Identifier: MIT
+ */
+package com.keenwrite.processors.variable;
+
+import com.keenwrite.collections.InterpolatingMap;
+import com.keenwrite.processors.Corpus;
+import com.keenwrite.sigils.SigilKeyOperator;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Map;
+
+import static com.keenwrite.ExportFormat.HTML_TEX_DELIMITED;
+import static com.keenwrite.processors.html.IdentityProcessor.IDENTITY;
+import static com.keenwrite.processors.text.TextReplacementFactory.replace;
+
+/**
+ * Measures substituting definitions into documents and interpolating
+ * definitions that reference other definitions.
+ */
+@State( Scope.Benchmark )
+public class VariableBenchmark {
+  @Param( {"100", "1000", "10000"} )
+  public int paragraphs;
+
+  @Param( {"10", "100", "1000"} )
+  public int definitions;
+
+  private VariableProcessor mProcessor;
+  private SigilKeyOperator mOperator;
+  private Map<String, String> mDefinitions;
+  private Map<String, String> mVariables;
+  private String mDocument;
+
+  @Setup
+  public void setup() {
+    mDefinitions = Corpus.definitions( definitions );
+    mProcessor = new VariableProcessor(
+      IDENTITY, Corpus.context( HTML_TEX_DELIMITED, "chapter.md", mDefinitions )
+    );
+    mOperator = new SigilKeyOperator( Corpus.SIGIL_BEGAN, Corpus.SIGIL_ENDED );
+    mVariables = mProcessor.getDefinitions();
+    mDocument = Corpus.markdown( paragraphs, definitions, 0 );
+  }
+
+  /**
+   * Substitutes using the search trie that is built once per version of
+   * the definitions.
+   */
+  @Benchmark
+  public String substitute() {
+    return mProcessor.apply( mDocument );
+  }
+
+  /**
+   * Substitutes using a replacer that is built for every call.
+   */
+  @Benchmark
+  public String substituteUncompiled() {
+    return replace( mDocument, mVariables );
+  }
+
+  /**
+   * Interpolates all definitions, including copying them into the map that
+   * interpolates them in place.
+   */
+  @Benchmark
+  public InterpolatingMap interpolate() {
+    return new InterpolatingMap( mOperator, mDefinitions ).interpolate();
+  }
+}
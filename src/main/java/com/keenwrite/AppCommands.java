@@ -5,6 +5,7 @@
 package com.keenwrite;
 
 import com.keenwrite.cmdline.Arguments;
+import com.keenwrite.commands.BatchExportCommand;
 import com.keenwrite.commands.ConcatenateCommand;
 import com.keenwrite.io.SysFile;
 import com.keenwrite.processors.Processor;
@@ -13,12 +14,14 @@ import com.keenwrite.processors.r.RBootstrapProcessor;
 
 import java.io.IOException;
 import java.nio.file.Path;
+import java.util.List;
 import java.util.concurrent.Callable;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Future;
 import java.util.concurrent.atomic.AtomicInteger;
 
+import static com.keenwrite.ExportFormat.TEXT_TEX;
 import static com.keenwrite.Launcher.terminate;
 import static com.keenwrite.events.StatusEvent.clue;
 import static com.keenwrite.io.MediaType.TEXT_R_MARKDOWN;
@@ -81,10 +84,7 @@ public class AppCommands {
       try {
         final var context = args.createProcessorContext();
         final var outputPath = context.getTargetPath();
-        final var chain = createProcessors( context );
-        final var processor = createBootstrapProcessor( chain, context );
-        final var inputDoc = read( context );
-        final var outputDoc = processor.apply( inputDoc );
+        final var outputDoc = export( args, context );
 
         // Processors can export binary files. In such cases, processors will
         // return null to prevent further processing.
@@ -104,6 +104,36 @@ public class AppCommands {
     return sExecutor.submit( callableTask );
   }
 
+  /**
+   * Exports the document described by the given context. When parallel
+   * exports are requested, concatenated chapters are converted in parallel,
+   * provided that the document can be converted one chapter at a time.
+   *
+   * @param args    The command-line arguments.
+   * @param context The {@link ProcessorContext} containing input path,
+   *                and other command-line parameters.
+   * @return The exported document, or {@code null} for binary files.
+   */
+  private static String export(
+    final Arguments args, final ProcessorContext context ) throws Exception {
+    final var chapters = args.parallel() ? list( context ) : List.<Path>of();
+
+    // R state set by one chapter must carry into the chapters after it, and
+    // plain text exports skip the Markdown processor, so neither R Markdown
+    // nor plain text is exported in parallel.
+    if( !chapters.isEmpty() &&
+        context.getSourceType() != TEXT_R_MARKDOWN &&
+        !context.isExportFormat( TEXT_TEX ) ) {
+      return new BatchExportCommand( context, chapters ).call();
+    }
+
+    final var chain = createProcessors( context );
+    final var processor = createBootstrapProcessor( chain, context );
+    final var inputDoc = read( context );
+
+    return processor.apply( inputDoc );
+  }
+
   private static Processor<String> createBootstrapProcessor(
     final Processor<String> chain, final ProcessorContext context ) {
 
@@ -149,4 +179,24 @@ public class AppCommands {
       parent, extension, context.getChapters() );
     return command.call();
   }
+
+  /**
+   * Lists the files that {@link #read(ProcessorContext)} would concatenate.
+   *
+   * @param context The {@link ProcessorContext} containing input path,
+   *                and other command-line parameters.
+   * @return The files to concatenate, in chapter order, or an empty list if
+   * the files are not to be concatenated.
+   */
+  private static List<Path> list( final ProcessorContext context )
+    throws IOException {
+    final var inputPath = context.getSourcePath();
+    final var parent = inputPath.getParent();
+    final var extension = getExtension( SysFile.getFileName( inputPath ) );
+
+    return !context.getConcatenate() || parent == null || extension.isBlank()
+      ? List.of()
+      : new ConcatenateCommand( parent, extension, context.getChapters() )
+      .list();
+  }
 }
@@ -17,6 +17,7 @@ import com.keenwrite.io.MediaType;
 import com.keenwrite.io.MediaTypeExtension;
 import com.keenwrite.preferences.Workspace;
 import com.keenwrite.preview.HtmlPreview;
+import com.keenwrite.preview.RenderScheduler;
 import com.keenwrite.processors.html.HtmlPreviewProcessor;
 import com.keenwrite.processors.Processor;
 import com.keenwrite.processors.ProcessorContext;
@@ -37,7 +38,6 @@ import com.panemu.tiwulfx.control.dock.DetachableTab;
 import com.panemu.tiwulfx.control.dock.DetachableTabPane;
 import javafx.beans.property.*;
 import javafx.collections.ListChangeListener;
-import javafx.concurrent.Task;
 import javafx.event.ActionEvent;
 import javafx.event.Event;
 import javafx.event.EventHandler;
@@ -57,7 +57,6 @@ import java.io.File;
 import java.io.FileNotFoundException;
 import java.nio.file.Path;
 import java.util.*;
-import java.util.concurrent.ExecutorService;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.atomic.AtomicBoolean;
@@ -81,7 +80,6 @@ import static com.keenwrite.processors.ProcessorContext.Mutator;
 import static com.keenwrite.processors.ProcessorContext.builder;
 import static com.keenwrite.processors.ProcessorFactory.createProcessors;
 import static java.awt.Desktop.getDesktop;
-import static java.util.concurrent.Executors.newFixedThreadPool;
 import static java.util.concurrent.Executors.newScheduledThreadPool;
 import static java.util.concurrent.TimeUnit.SECONDS;
 import static java.util.stream.Collectors.groupingBy;
@@ -105,7 +103,7 @@ import static org.fxmisc.wellbehaved.event.EventPattern.keyPressed;
  */
 public final class MainPane extends SplitPane {
 
-  private static final ExecutorService sExecutor = newFixedThreadPool( 1 );
+  private static final RenderScheduler sScheduler = new RenderScheduler();
   private static final Notifier sNotifier = Services.load( Notifier.class );
 
   /**
@@ -261,7 +259,7 @@ public final class MainPane extends SplitPane {
    * Called when spellchecking can be run. This will reload the dictionary
    * into memory once, and then re-use it for all the existing text editors.
    *
-   * @param event The event to process, having a populated word-frequency map.
+   * @param event The event to process, having a word-frequency index.
    */
   @Subscribe
   public void handle( final LexiconLoadedEvent event ) {
@@ -372,7 +370,7 @@ public final class MainPane extends SplitPane {
       mSaver.scheduleAtFixedRate(
         () -> {
           if( getTextEditor().isModified() ) {
-            // Ensure the modified indicator is cleared by running on EDT.
+            // Capture the text on the EDT; it is written in the background.
             runLater( this::save );
           }
         }, 0, rate.intValue(), SECONDS
@@ -581,20 +579,34 @@ public final class MainPane extends SplitPane {
   /**
    * Saves the given {@link TextResource} to a file. This is typically used
    * to save either an instance of {@link TextEditor} or {@link TextDefinition}.
+   * The text is captured immediately, then written on a background thread so
+   * that large documents don't stall typing.
    *
    * @param resource The resource to export.
    */
   private void save( final TextResource resource ) {
+    final var path = resource.getPath();
+
     try {
-      resource.save();
+      resource.saveLater().exceptionally( ex -> {
+        // Unwrap the CompletionException to report the underlying problem.
+        final var cause = ex.getCause() instanceof Exception e
+          ? e
+          : new Exception( ex );
+
+        runLater( () -> saveFailed( path, cause ) );
+        return null;
+      } );
     } catch( final Exception ex ) {
-      clue( ex );
-      sNotifier.alert(
-        getWindow(), resource.getPath(), "TextResource.saveFailed", ex
-      );
+      saveFailed( path, ex );
     }
   }
 
+  private void saveFailed( final Path path, final Exception ex ) {
+    clue( ex );
+    sNotifier.alert( getWindow(), path, "TextResource.saveFailed", ex );
+  }
+
   /**
    * Closes all open {@link TextEditor}s; all {@link TextDefinition}s stay open.
    *
@@ -749,9 +761,16 @@ public final class MainPane extends SplitPane {
   }
 
   public void viewRefresh() {
+    final var editor = getTextEditor();
+
     mPreview.refresh();
     Engine.clear();
     mRBootstrapController.update();
+
+    // Discard blocks rendered before, for example, an image file was added.
+    removeProcessor( editor );
+    updateProcessors( editor );
+    process( editor );
   }
 
   private void addTab(
@@ -934,37 +953,27 @@ public final class MainPane extends SplitPane {
   private void process( final TextEditor editor ) {
     // Ensure processing does not run on the JavaFX thread, which frees the
     // text editor immediately for caret movement. The preview will have a
-    // slight delay when catching up to the caret position.
-    final var task = new Task<Void>() {
-      @Override
-      public Void call() {
-        try {
-          final var p = mProcessors.getOrDefault( editor, IDENTITY );
-          p.apply( editor == null ? "" : editor.getText() );
-        } catch( final Exception ex ) {
-          clue( ex );
-        }
-
-        return null;
+    // slight delay when catching up to the caret position. Requests made
+    // during rapid-fire edits (e.g., fast typing) to the same editor
+    // supersede each other, so only its latest text is rendered.
+    sScheduler.schedule( editor, () -> {
+      final var p = mProcessors.getOrDefault( editor, IDENTITY );
+      p.apply( editor == null ? "" : editor.getText() );
+
+      if( editor != null ) {
+        mPreview.scrollTo( editor.getCaret().getTextOffset() );
       }
-    };
-
-    // TODO: Each time the editor successfully runs the processor, the task is
-    //   considered successful. Due to the rapid-fire nature of processing
-    //   (e.g., keyboard navigation, fast typing), it isn't necessary to
-    //   scroll each time.
-    //   The algorithm:
-    //   1. Peek at the oldest time.
-    //   2. If the difference between the oldest time and current time exceeds
-    //      250 milliseconds, then invoke the scrolling.
-    //   3. Insert the current time into the circular queue.
-    task.setOnSucceeded(
-      _ -> invokeLater( () -> mPreview.scrollTo( CARET_ID ) )
-    );
+    } );
+  }
 
-    // Prevents multiple process requests from executing simultaneously (due
-    // to having a restricted queue size).
-    sExecutor.execute( task );
+  /**
+   * Returns the scheduler that renders documents into the preview.
+   *
+   * @return The scheduler, which reports the number of pending and dropped
+   * renders.
+   */
+  public RenderScheduler getRenderScheduler() {
+    return sScheduler;
   }
 
   /**
@@ -1133,7 +1142,9 @@ public final class MainPane extends SplitPane {
       .with( Mutator::setCurlQuotes,
              () -> w.getBoolean( KEY_TYPESET_TYPOGRAPHY_QUOTES ) )
       .with( Mutator::setAutoRemove,
-             () -> w.getBoolean( KEY_TYPESET_CONTEXT_CLEAN ) );
+             () -> w.getBoolean( KEY_TYPESET_CONTEXT_CLEAN ) )
+      .with( Mutator::setIncremental,
+             () -> w.getBoolean( KEY_TYPESET_CONTEXT_INCREMENTAL ) );
   }
 
   public ProcessorContext createProcessorContext() {
@@ -1194,9 +1205,9 @@ public final class MainPane extends SplitPane {
 
   /**
    * Creates an instance of {@link MarkdownEditor} that listens for both
-   * caret change events and text change events. Text change events must
-   * take priority over caret change events because it's possible to change
-   * the text without moving the caret (e.g., delete selected text).
+   * caret change events and text change events. Text changes are rendered
+   * into the preview, whereas caret moves only scroll the preview, using the
+   * element offsets recorded when the text was last rendered.
    *
    * @param inputFile The file containing contents for the text editor.
    * @return A non-null text editor.
@@ -1204,7 +1215,7 @@ public final class MainPane extends SplitPane {
   private MarkdownEditor createMarkdownEditor( final File inputFile ) {
     final var editor = new MarkdownEditor( inputFile, getWorkspace() );
 
-    // Listener for editor modifications or caret position changes.
+    // Listener for editor modifications.
     editor.addDirtyListener( ( _, _, n ) -> {
       if( n ) {
         // Reset the status bar after changing the text.
@@ -1218,6 +1229,14 @@ public final class MainPane extends SplitPane {
       }
     } );
 
+    // Listener for caret position changes that leave the text unchanged.
+    editor.addCaretListener( ( _, _, n ) -> {
+      if( n ) {
+        mPreview.scrollTo( editor.getCaret().getTextOffset() );
+        CaretMovedEvent.fire( editor.getCaret() );
+      }
+    } );
+
     editor.addEventListener(
       keyPressed( SPACE, CONTROL_DOWN ), this::autoinsert
     );
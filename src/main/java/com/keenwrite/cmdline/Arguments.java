@@ -45,6 +45,14 @@ public final class Arguments implements Callable<Integer> {
   )
   private boolean mConcatenate;
 
+  @CommandLine.Option(
+    names = { "--parallel" },
+    description =
+      "Convert concatenated files in parallel (${DEFAULT-VALUE})",
+    defaultValue = "false"
+  )
+  private boolean mParallel;
+
   @CommandLine.Option(
     names = { "--keep-files" },
     description =
@@ -53,6 +61,14 @@ public final class Arguments implements Callable<Integer> {
   )
   private boolean mKeepFiles;
 
+  @CommandLine.Option(
+    names = { "--incremental" },
+    description =
+      "Reuse typesetting state from the previous export (${DEFAULT-VALUE})",
+    defaultValue = "false"
+  )
+  private boolean mIncremental;
+
   @CommandLine.Option(
     names = { "-c", "--chapters" },
     description =
@@ -277,6 +293,7 @@ public final class Arguments implements Callable<Integer> {
       .with( Mutator::setRWorkingDir, () -> mRWorkingDir )
       .with( Mutator::setCurlQuotes, () -> mCurlQuotes )
       .with( Mutator::setAutoRemove, () -> !mKeepFiles )
+      .with( Mutator::setIncremental, () -> mIncremental )
       .build();
   }
 
@@ -288,6 +305,10 @@ public final class Arguments implements Callable<Integer> {
     return mDebug;
   }
 
+  public boolean parallel() {
+    return mParallel;
+  }
+
   /**
    * Launches the main application window. This is called when not running
    * in headless mode.
@@ -2,21 +2,43 @@ package com.keenwrite.cmdline;
 
 import com.keenwrite.AppCommands;
 import com.keenwrite.events.StatusEvent;
+import com.keenwrite.events.StatusSink;
 import org.greenrobot.eventbus.Subscribe;
 
+import java.util.List;
+
 import static com.keenwrite.events.Bus.register;
 import static java.lang.String.format;
+import static java.util.concurrent.Executors.newSingleThreadExecutor;
 
 /**
  * Responsible for running the application in headless mode.
  */
 public class HeadlessApp {
+  /**
+   * Number of status messages that may wait to be written to the console.
+   */
+  private static final int CACHE_SIZE = 1024;
 
   /**
    * Contains directives that control text file processing.
    */
   private final Arguments mArgs;
 
+  /**
+   * Collects events from any thread, writing them to the console in batches
+   * so that processing threads do not wait on the console.
+   */
+  private final StatusSink mSink = new StatusSink(
+    CACHE_SIZE,
+    newSingleThreadExecutor( runnable -> {
+      final var thread = new Thread( runnable, "status-writer" );
+      thread.setDaemon( true );
+      return thread;
+    } ),
+    this::write
+  );
+
   /**
    * Creates a new command-line version of the application.
    *
@@ -27,6 +49,9 @@ public class HeadlessApp {
 
     mArgs = args;
 
+    // Write any waiting messages before the application exits.
+    Runtime.getRuntime().addShutdownHook( new Thread( mSink::drain ) );
+
     register( this );
     AppCommands.run( mArgs );
   }
@@ -42,14 +67,29 @@ public class HeadlessApp {
     assert event != null;
 
     if( !mArgs.quiet() ) {
+      mSink.accept( event );
+    }
+  }
+
+  /**
+   * Writes a batch of status messages to the console.
+   *
+   * @param events The events to write, oldest first.
+   */
+  private void write( final List<StatusEvent> events ) {
+    final var sb = new StringBuilder( events.size() * 80 );
+
+    for( final var event : events ) {
       final var stacktrace = event.getProblem();
       final var problem = stacktrace.isBlank()
         ? ""
         : format( "%n%s", stacktrace );
-      final var msg = format( "%s%s", event, problem );
 
-      System.out.println( msg );
+      sb.append( format( "%s%s%n", event, problem ) );
     }
+
+    System.out.print( sb );
+    System.out.flush();
   }
 
   /**
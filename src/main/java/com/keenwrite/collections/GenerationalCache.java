@@ -0,0 +1,102 @@
+/* Copyright 2024 White Magic Software, Ltd. -- All rights reserved.
+ *
+ * SPDX-License-Identifier: MIT
+ */
+package com.keenwrite.collections;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * A cache that keeps the entries used since the previous generation began.
+ * Unlike a {@link BoundedCache}, entries are never evicted while they are in
+ * use, so a document having more entries than a fixed bound does not cause
+ * entries to evict each other. Entries that were not used during a complete
+ * generation are discarded when the next generation begins. This class is
+ * not thread-safe.
+ *
+ * @param <K> The type of key mapped to a value.
+ * @param <V> The type of value mapped to a key.
+ */
+public final class GenerationalCache<K, V> {
+  private Map<K, V> mCurrent = new HashMap<>();
+  private Map<K, V> mPrevious = new HashMap<>();
+
+  /**
+   * Returns the value for the given key, marking the entry as used by the
+   * current generation.
+   *
+   * @param key The key of the value to find.
+   * @return The value, or {@code null} if not cached.
+   */
+  public V get( final K key ) {
+    var value = mCurrent.get( key );
+
+    if( value == null ) {
+      value = mPrevious.remove( key );
+
+      if( value != null ) {
+        mCurrent.put( key, value );
+      }
+    }
+
+    return value;
+  }
+
+  /**
+   * Associates the given value with the given key in the current generation.
+   *
+   * @param key   The key of the value to cache.
+   * @param value The value to cache, never {@code null}.
+   */
+  public void put( final K key, final V value ) {
+    assert value != null;
+
+    mPrevious.remove( key );
+    mCurrent.put( key, value );
+  }
+
+  /**
+   * Returns the value for the given key, computing and caching the value if
+   * not already cached.
+   *
+   * @param key     The key of the value to find.
+   * @param compute Creates the value if not cached.
+   * @return The cached or computed value.
+   */
+  public V computeIfAbsent(
+    final K key, final Function<? super K, ? extends V> compute ) {
+    var value = get( key );
+
+    if( value == null ) {
+      value = compute.apply( key );
+
+      if( value != null ) {
+        mCurrent.put( key, value );
+      }
+    }
+
+    return value;
+  }
+
+  /**
+   * Begins a new generation, discarding the entries that were not used
+   * during the current generation. Nothing is discarded if no entries were
+   * used, such as when generations begin in quick succession.
+   */
+  public void advance() {
+    if( !mCurrent.isEmpty() ) {
+      mPrevious = mCurrent;
+      mCurrent = new HashMap<>();
+    }
+  }
+
+  /**
+   * Removes all entries.
+   */
+  public void clear() {
+    mCurrent.clear();
+    mPrevious.clear();
+  }
+}
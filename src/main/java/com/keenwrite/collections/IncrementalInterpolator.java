@@ -0,0 +1,247 @@
+/* Copyright 2024 White Magic Software, Ltd. -- All rights reserved.
+ *
+ * SPDX-License-Identifier: MIT
+ */
+package com.keenwrite.collections;
+
+import com.keenwrite.sigils.SigilKeyOperator;
+
+import java.util.*;
+
+import static java.util.regex.Matcher.quoteReplacement;
+
+/**
+ * Responsible for interpolating the values of a map of definitions, such
+ * that references to keys are replaced with the referenced values. Unlike
+ * {@link InterpolatingMap}, this remembers which keys reference which other
+ * keys. When given a {@link VersionedMap}, only the keys that changed since
+ * the previous call, and the keys that depend on them, are interpolated.
+ * <p>
+ * Values that reference themselves, directly or indirectly, retain the
+ * references that would otherwise recurse without end.
+ * </p>
+ */
+public final class IncrementalInterpolator {
+  private static final int GROUP_DELIMITED = 1;
+
+  private final SigilKeyOperator mOperator;
+
+  /**
+   * Maps keys to their interpolated values.
+   */
+  private final Map<String, String> mValues = new HashMap<>();
+
+  /**
+   * Maps keys to the names of the keys that their values reference.
+   */
+  private final Map<String, Set<String>> mReferences = new HashMap<>();
+
+  /**
+   * Maps key names to the keys having values that reference them, which
+   * need not be defined.
+   */
+  private final Map<String, Set<String>> mDependents = new HashMap<>();
+
+  /**
+   * The definitions that were last interpolated.
+   */
+  private Map<String, String> mSource;
+  private long mVersion;
+
+  /**
+   * @param operator Contains the opening and closing sigils that mark
+   *                 where variable names begin and end.
+   */
+  public IncrementalInterpolator( final SigilKeyOperator operator ) {
+    assert operator != null;
+
+    mOperator = operator;
+  }
+
+  /**
+   * Answers whether this interpolates references delimited by the given
+   * operator's sigils.
+   *
+   * @param operator The operator to compare against.
+   * @return {@code true} if the operators use the same sigils.
+   */
+  public boolean isOperator( final SigilKeyOperator operator ) {
+    return mOperator.equals( operator );
+  }
+
+  /**
+   * Interpolates the given definitions, reusing the values interpolated by
+   * the previous call where possible.
+   *
+   * @param definitions The uninterpolated definitions.
+   * @return A copy of the interpolated definitions.
+   */
+  public synchronized InterpolatingMap interpolate(
+    final Map<String, String> definitions ) {
+    assert definitions != null;
+
+    final var version = VersionedMap.versionOf( definitions );
+    final Set<String> changes;
+
+    if( definitions == mSource && version == mVersion ) {
+      changes = Set.of();
+    }
+    else if( definitions == mSource &&
+      definitions instanceof VersionedMap<String, String> versioned ) {
+      final var changed = versioned.getChanges( mVersion );
+      changes = changed == null ? reset( definitions ) : changed;
+    }
+    else {
+      changes = reset( definitions );
+    }
+
+    mSource = definitions;
+    mVersion = version;
+
+    if( !changes.isEmpty() ) {
+      update( definitions, changes );
+    }
+
+    return new InterpolatingMap( mOperator, mValues );
+  }
+
+  /**
+   * Forgets all interpolated values.
+   *
+   * @param definitions The definitions to interpolate anew.
+   * @return All the keys in the given definitions.
+   */
+  private Set<String> reset( final Map<String, String> definitions ) {
+    mValues.clear();
+    mReferences.clear();
+    mDependents.clear();
+
+    return new HashSet<>( definitions.keySet() );
+  }
+
+  /**
+   * Interpolates the given keys and every key that depends on them.
+   *
+   * @param definitions The uninterpolated definitions.
+   * @param changes     The keys having values that changed.
+   */
+  private void update(
+    final Map<String, String> definitions, final Set<String> changes ) {
+    for( final var key : changes ) {
+      final var previous = mReferences.remove( key );
+
+      if( previous != null ) {
+        for( final var name : previous ) {
+          final var dependents = mDependents.get( name );
+          dependents.remove( key );
+
+          if( dependents.isEmpty() ) {
+            mDependents.remove( name );
+          }
+        }
+      }
+
+      final var value = definitions.get( key );
+
+      if( value == null ) {
+        mValues.remove( key );
+      }
+      else {
+        final var references = references( value );
+
+        if( !references.isEmpty() ) {
+          mReferences.put( key, references );
+
+          for( final var name : references ) {
+            mDependents.computeIfAbsent( name, _ -> new HashSet<>() )
+                       .add( key );
+          }
+        }
+      }
+    }
+
+    final var stale = new HashSet<String>();
+    final var pending = new ArrayDeque<>( changes );
+
+    while( !pending.isEmpty() ) {
+      final var key = pending.removeFirst();
+
+      if( stale.add( key ) ) {
+        pending.addAll( mDependents.getOrDefault( key, Set.of() ) );
+      }
+    }
+
+    stale.removeIf( key -> !definitions.containsKey( key ) );
+    stale.forEach( mValues::remove );
+
+    for( final var key : stale ) {
+      resolve( key, definitions, new HashSet<>() );
+    }
+  }
+
+  /**
+   * Returns the interpolated value for the given key, interpolating the
+   * values that it references as needed.
+   *
+   * @param key         The key to look up.
+   * @param definitions The uninterpolated definitions.
+   * @param resolving   Keys being interpolated, to prevent endless recursion.
+   * @return The interpolated value, or {@code null} if undefined or if the
+   * value references itself.
+   */
+  private String resolve(
+    final String key,
+    final Map<String, String> definitions,
+    final Set<String> resolving ) {
+    final var interpolated = mValues.get( key );
+
+    if( interpolated != null ) {
+      return interpolated;
+    }
+
+    final var value = definitions.get( key );
+
+    if( value == null || !resolving.add( key ) ) {
+      return null;
+    }
+
+    final var matcher = mOperator.match( value );
+    final var sb = new StringBuilder( value.length() << 1 );
+
+    while( matcher.find() ) {
+      final var name = matcher.group( GROUP_DELIMITED );
+      final var replacement = resolve( name, definitions, resolving );
+
+      matcher.appendReplacement(
+        sb, quoteReplacement(
+          replacement == null ? matcher.group() : replacement
+        )
+      );
+    }
+
+    matcher.appendTail( sb );
+    resolving.remove( key );
+
+    final var result = sb.toString();
+    mValues.put( key, result );
+
+    return result;
+  }
+
+  /**
+   * Returns the names of the keys referenced by the given value.
+   *
+   * @param value The value that may reference other keys.
+   * @return The referenced key names, possibly empty.
+   */
+  private Set<String> references( final String value ) {
+    final var matcher = mOperator.match( value );
+    final var names = new HashSet<String>();
+
+    while( matcher.find() ) {
+      names.add( matcher.group( GROUP_DELIMITED ) );
+    }
+
+    return names;
+  }
+}
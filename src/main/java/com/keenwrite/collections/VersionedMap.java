@@ -0,0 +1,195 @@
+/* Copyright 2024 White Magic Software, Ltd. -- All rights reserved.
+ *
+ * SPDX-License-Identifier: MIT
+ */
+package com.keenwrite.collections;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Responsible for a map that increments its version whenever its contents
+ * change and records which keys changed. This allows readers to determine
+ * whether the map has changed without comparing its contents, and to apply
+ * only the changes since the version that they last read.
+ * <p>
+ * The map may be read while it is being modified from another thread.
+ * Values may not be {@code null}.
+ * </p>
+ *
+ * @param <K> The type of key mapped to a value.
+ * @param <V> The type of value mapped to a key.
+ */
+public final class VersionedMap<K, V> extends AbstractMap<K, V> {
+  /**
+   * Maximum number of changes to remember. Readers that fall further behind
+   * must read the entire map.
+   */
+  private static final int MAX_CHANGES = 4096;
+
+  /**
+   * A key that changed at a particular version.
+   *
+   * @param version The version of the map after the change.
+   * @param key     The key added, replaced, or removed.
+   * @param <K>     The type of key that changed.
+   */
+  private record Change<K>( long version, K key ) { }
+
+  private final Map<K, V> mMap = new ConcurrentHashMap<>();
+  private final Deque<Change<K>> mChanges = new ArrayDeque<>();
+
+  /**
+   * Oldest version from which the changes are known.
+   */
+  private long mOldest;
+  private volatile long mVersion;
+
+  /**
+   * Returns a number that changes whenever the given map's contents change.
+   * Maps other than instances of this class are hashed, which is slower.
+   *
+   * @param map The map to version.
+   * @return The map's version.
+   */
+  public static long versionOf( final Map<?, ?> map ) {
+    return map instanceof VersionedMap<?, ?> versioned
+      ? versioned.getVersion()
+      : map.hashCode();
+  }
+
+  /**
+   * Returns a number that increments whenever the map's contents change.
+   *
+   * @return The current version.
+   */
+  public long getVersion() {
+    return mVersion;
+  }
+
+  /**
+   * Returns the keys that changed after the given version.
+   *
+   * @param version A version previously returned by {@link #getVersion()}.
+   * @return The keys that were added, replaced, or removed since the given
+   * version, or {@code null} if the changes are no longer known.
+   */
+  public synchronized Set<K> getChanges( final long version ) {
+    if( version < mOldest || version > mVersion ) {
+      return null;
+    }
+
+    final var keys = new HashSet<K>();
+    final var iterator = mChanges.descendingIterator();
+
+    while( iterator.hasNext() ) {
+      final var change = iterator.next();
+
+      if( change.version() <= version ) {
+        break;
+      }
+
+      keys.add( change.key() );
+    }
+
+    return keys;
+  }
+
+  /**
+   * Changes this map to have the same contents as the given map, except for
+   * {@code null} values, which are removed. Only the keys that differ are
+   * recorded as changed.
+   *
+   * @param map The new contents for this map.
+   */
+  public synchronized void update( final Map<? extends K, ? extends V> map ) {
+    for( final var it = mMap.keySet().iterator(); it.hasNext(); ) {
+      final var key = it.next();
+
+      if( !map.containsKey( key ) ) {
+        it.remove();
+        changed( key );
+      }
+    }
+
+    map.forEach( ( key, value ) -> {
+      if( value == null ) {
+        remove( key );
+      }
+      else {
+        put( key, value );
+      }
+    } );
+  }
+
+  @Override
+  public synchronized V put( final K key, final V value ) {
+    assert value != null;
+
+    final var previous = mMap.put( key, value );
+
+    if( !value.equals( previous ) ) {
+      changed( key );
+    }
+
+    return previous;
+  }
+
+  @Override
+  @SuppressWarnings( "unchecked" )
+  public synchronized V remove( final Object key ) {
+    final var previous = mMap.remove( key );
+
+    if( previous != null ) {
+      changed( (K) key );
+    }
+
+    return previous;
+  }
+
+  @Override
+  public synchronized void clear() {
+    if( !mMap.isEmpty() ) {
+      mMap.clear();
+      mChanges.clear();
+      mOldest = ++mVersion;
+    }
+  }
+
+  @Override
+  public V get( final Object key ) {
+    return mMap.get( key );
+  }
+
+  @Override
+  public boolean containsKey( final Object key ) {
+    return mMap.containsKey( key );
+  }
+
+  @Override
+  public int size() {
+    return mMap.size();
+  }
+
+  @NotNull
+  @Override
+  public Set<Entry<K, V>> entrySet() {
+    return Collections.unmodifiableMap( mMap ).entrySet();
+  }
+
+  /**
+   * Records that the given key has changed, forgetting the oldest change if
+   * too many changes are remembered.
+   *
+   * @param key The key that changed.
+   */
+  private void changed( final K key ) {
+    mChanges.addLast( new Change<>( ++mVersion, key ) );
+
+    if( mChanges.size() > MAX_CHANGES ) {
+      mOldest = mChanges.removeFirst().version();
+    }
+  }
+}
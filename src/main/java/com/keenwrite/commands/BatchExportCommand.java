@@ -0,0 +1,160 @@
+/* Copyright 2024 White Magic Software, Ltd. -- All rights reserved.
+ *
+ * SPDX-License-Identifier: MIT
+ */
+package com.keenwrite.commands;
+
+import com.keenwrite.dom.DocumentConverter;
+import com.keenwrite.processors.ProcessorContext;
+import com.keenwrite.processors.markdown.HeadingIds;
+import com.keenwrite.processors.markdown.HeadingIds.Fragment;
+import com.keenwrite.processors.markdown.MarkdownProcessor;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ForkJoinPool;
+
+import static com.keenwrite.events.StatusEvent.clue;
+import static com.keenwrite.events.StatusEvent.progress;
+import static com.keenwrite.processors.ProcessorFactory.createHtmlProcessors;
+import static com.keenwrite.processors.html.IdentityProcessor.IDENTITY;
+import static com.keenwrite.util.Time.toElapsedTime;
+import static java.lang.System.lineSeparator;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.nio.file.Files.readString;
+import static java.time.Duration.ofNanos;
+
+/**
+ * Responsible for exporting a document made from many chapter files by
+ * converting the chapters from Markdown to HTML in parallel. The HTML for
+ * each chapter is joined in chapter order, regardless of the order in which
+ * the chapters finish, before the combined document is passed through the
+ * remaining processors (e.g., XHTML, PDF). The time taken by each stage is
+ * reported as a status message.
+ * <p>
+ * Chapters are converted independently, so Markdown constructs that span
+ * files are not resolved the same way as when the chapters are concatenated:
+ * </p>
+ * <ul>
+ *   <li>Reference links defined in another chapter are not resolved. Such
+ *   documents should be exported without this command.</li>
+ *   <li>Heading identifiers are numbered again when the chapters are merged,
+ *   so that repeated headings (e.g., "Introduction") in different chapters
+ *   have unique identifiers. In-document links that target a heading in
+ *   their own chapter are updated to match; links that target a repeated
+ *   heading in another chapter resolve to the first such heading.</li>
+ * </ul>
+ */
+public final class BatchExportCommand implements Callable<String> {
+  private final ProcessorContext mContext;
+  private final List<Path> mChapters;
+
+  /**
+   * Creates a command to export the given chapter files as one document.
+   *
+   * @param context  The export settings, which must not be for the preview.
+   * @param chapters The files to export, in chapter order.
+   */
+  public BatchExportCommand(
+    final ProcessorContext context, final List<Path> chapters ) {
+    assert context != null;
+    assert chapters != null;
+
+    mContext = context;
+    mChapters = chapters;
+  }
+
+  /**
+   * Exports the chapters.
+   *
+   * @return The exported document, or {@code null} if the final processor
+   * wrote a binary file.
+   * @throws Exception Could not convert or export the chapters.
+   */
+  @Override
+  public String call() throws Exception {
+    final List<Fragment> fragments;
+
+    try( final var pool = new ForkJoinPool() ) {
+      clue( "Main.status.export.batch",
+            mChapters.size(), pool.getParallelism() );
+
+      var began = System.nanoTime();
+      final var chapters = pool.submit(
+        () -> mChapters.parallelStream().map( this::read ).toList()
+      ).get();
+      began = elapsed( "Main.status.export.stage.read", began );
+
+      // Extensions hold state while rendering, so each worker thread
+      // converts chapters using its own processor.
+      final var processors = ThreadLocal.withInitial(
+        () -> MarkdownProcessor.create( IDENTITY, mContext )
+      );
+
+      fragments = pool.submit(
+        () -> chapters
+          .parallelStream()
+          .map( chapter -> processors.get().toHtmlFragment( chapter ) )
+          .toList()
+      ).get();
+      elapsed( "Main.status.export.stage.render", began );
+    }
+
+    var began = System.nanoTime();
+    final var length = fragments
+      .stream()
+      .mapToInt( fragment -> fragment.html().length() )
+      .sum();
+    final var merged = new StringBuilder( length );
+    final var headings = new HeadingIds();
+
+    // Chapters are numbered in order so that heading identifiers match
+    // those of the concatenated document.
+    for( final var fragment : fragments ) {
+      merged.append(
+        headings.identify( fragment.html(), fragment.ids(), true )
+      );
+    }
+
+    final var xhtml = DocumentConverter.parse( merged.toString() ).html();
+    began = elapsed( "Main.status.export.stage.merge", began );
+
+    final var document = createHtmlProcessors( mContext ).apply( xhtml );
+    elapsed( "Main.status.export.stage.export", began );
+
+    return document;
+  }
+
+  /**
+   * Reads a chapter file. Chapters that cannot be read are skipped, as when
+   * concatenating chapters.
+   *
+   * @param file The chapter file to read.
+   * @return The chapter contents, or the empty string if unreadable.
+   */
+  private String read( final Path file ) {
+    try {
+      progress( "Main.status.export.concat", file );
+
+      return readString( file, UTF_8 ) + lineSeparator();
+    } catch( final IOException ex ) {
+      clue( "Main.status.export.concat.io", file );
+      return "";
+    }
+  }
+
+  /**
+   * Reports the time taken by a stage.
+   *
+   * @param key   The status message for the stage.
+   * @param began When the stage started, in nanoseconds.
+   * @return When the stage ended, in nanoseconds.
+   */
+  private static long elapsed( final String key, final long began ) {
+    final var ended = System.nanoTime();
+    clue( key, toElapsedTime( ofNanos( ended - began ) ) );
+    return ended;
+  }
+}
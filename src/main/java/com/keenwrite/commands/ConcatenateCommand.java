@@ -10,10 +10,11 @@ import com.keenwrite.util.RangeValidator;
 import java.io.IOException;
 import java.nio.file.Path;
 import java.util.ArrayList;
+import java.util.List;
 import java.util.concurrent.Callable;
-import java.util.concurrent.atomic.AtomicInteger;
 
 import static com.keenwrite.events.StatusEvent.clue;
+import static com.keenwrite.events.StatusEvent.progress;
 import static com.keenwrite.util.FileWalker.walk;
 import static java.lang.System.lineSeparator;
 import static java.nio.charset.StandardCharsets.UTF_8;
@@ -48,29 +49,46 @@ public class ConcatenateCommand implements Callable<String> {
   }
 
   public String call() throws IOException {
-    final var glob = "**/*." + mExtension;
-    final var files = new ArrayList<Path>();
     final var text = new StringBuilder( DOCUMENT_LENGTH );
-    final var chapter = new AtomicInteger();
     final var eol = lineSeparator();
 
-    final var validator = new RangeValidator( mRange );
-
-    walk( mParent, glob, files::add );
-    files.sort( new AlphanumComparator<>() );
-    files.forEach( file -> {
+    for( final var file : list() ) {
       try {
-        if( validator.test( chapter.incrementAndGet() ) ) {
-          clue( "Main.status.export.concat", file );
+        progress( "Main.status.export.concat", file );
 
-          text.append( readString( file, UTF_8 ) )
-              .append( eol );
-        }
+        text.append( readString( file, UTF_8 ) )
+            .append( eol );
       } catch( final IOException ex ) {
         clue( "Main.status.export.concat.io", file );
       }
-    } );
+    }
 
     return text.toString();
   }
+
+  /**
+   * Returns the files to concatenate, in chapter order, which includes only
+   * those files that fall within the user-defined chapter ranges.
+   *
+   * @return The chapter files, sorted by their numeric order.
+   * @throws IOException Could not scan the parent directory for files.
+   */
+  public List<Path> list() throws IOException {
+    final var glob = "**/*." + mExtension;
+    final var files = new ArrayList<Path>();
+    final var chapters = new ArrayList<Path>();
+    final var validator = new RangeValidator( mRange );
+    int chapter = 0;
+
+    walk( mParent, glob, files::add );
+    files.sort( new AlphanumComparator<>() );
+
+    for( final var file : files ) {
+      if( validator.test( ++chapter ) ) {
+        chapters.add( file );
+      }
+    }
+
+    return chapters;
+  }
 }
@@ -217,11 +217,6 @@ public final class Constants {
    */
   public static final File PREVIEW_CUSTOM_DEFAULT = null;
 
-  /**
-   * Default identifier to use for synchronized scrolling.
-   */
-  public static final String CARET_ID = "caret";
-
   /**
    * Default spacing for UI items (e.g., toolbars).
    */
@@ -42,20 +42,19 @@ public class DocumentParser {
   private static final String INDENT_AMOUNT =
     "{http://xml.apache.org/xslt}indent-amount";
 
-  private static final ByteArrayOutputStream sWriter =
-    new ByteArrayOutputStream( 65536 );
-  private static final OutputStreamWriter sOutput =
-    new OutputStreamWriter( sWriter, UTF_8 );
+  private static final DocumentBuilderFactory sDocumentFactory;
+  private static final TransformerFactory sTransformerFactory =
+    TransformerFactory.newInstance();
 
   /**
-   * Caches {@link XPathExpression}s to avoid re-compiling.
+   * The parsers, transformers, and {@link XPath} services are not thread-safe,
+   * nor are the expressions that they compile, so each thread that processes
+   * documents is given its own set. The factories that create them are not
+   * guaranteed to be thread-safe, either, so they are used one thread at a
+   * time.
    */
-  private static final Map<String, XPathExpression> sXpaths = new HashMap<>();
-
-  private static final DocumentBuilderFactory sDocumentFactory;
-  private static DocumentBuilder sDocumentBuilder;
-  private static Transformer sTransformer;
-  private static final XPath sXpath = XPathFactory.newInstance().newXPath();
+  private static final ThreadLocal<Toolkit> sToolkit =
+    ThreadLocal.withInitial( Toolkit::new );
 
   public static final DOMImplementation sDomImplementation;
 
@@ -68,29 +67,52 @@ public class DocumentParser {
     sDocumentFactory.setIgnoringComments( true );
     sDocumentFactory.setIgnoringElementContentWhitespace( true );
 
-    DOMImplementation domImplementation;
+    sDomImplementation = builder().getDOMImplementation();
+  }
 
-    try {
-      sDocumentBuilder = sDocumentFactory.newDocumentBuilder();
-      domImplementation = sDocumentBuilder.getDOMImplementation();
-      sTransformer = TransformerFactory.newInstance().newTransformer();
-
-      // Ensure Unicode characters (emojis) are encoded correctly.
-      sTransformer.setOutputProperty( ENCODING, UTF_16.toString() );
-      sTransformer.setOutputProperty( OMIT_XML_DECLARATION, "yes" );
-      sTransformer.setOutputProperty( METHOD, "xml" );
-      sTransformer.setOutputProperty( INDENT, "no" );
-      sTransformer.setOutputProperty( INDENT_AMOUNT, "2" );
-    } catch( final Exception ex ) {
-      clue( ex );
-      domImplementation = sDocumentBuilder.getDOMImplementation();
-    }
+  /**
+   * Responsible for the XML services used by a single thread.
+   */
+  private static final class Toolkit {
+    private final DocumentBuilder mDocumentBuilder;
+    private final Transformer mTransformer;
+    private final XPath mXpath = XPathFactory.newInstance().newXPath();
+
+    /**
+     * Caches {@link XPathExpression}s to avoid re-compiling.
+     */
+    private final Map<String, XPathExpression> mXpaths = new HashMap<>();
+
+    private Toolkit() {
+      DocumentBuilder documentBuilder = null;
+      Transformer transformer = null;
+
+      try {
+        synchronized( sDocumentFactory ) {
+          documentBuilder = sDocumentFactory.newDocumentBuilder();
+        }
+
+        synchronized( sTransformerFactory ) {
+          transformer = sTransformerFactory.newTransformer();
+        }
 
-    sDomImplementation = domImplementation;
+        // Ensure Unicode characters (emojis) are encoded correctly.
+        transformer.setOutputProperty( ENCODING, UTF_16.toString() );
+        transformer.setOutputProperty( OMIT_XML_DECLARATION, "yes" );
+        transformer.setOutputProperty( METHOD, "xml" );
+        transformer.setOutputProperty( INDENT, "no" );
+        transformer.setOutputProperty( INDENT_AMOUNT, "2" );
+      } catch( final Exception ex ) {
+        clue( ex );
+      }
+
+      mDocumentBuilder = documentBuilder;
+      mTransformer = transformer;
+    }
   }
 
   public static Document newDocument() {
-    return sDocumentBuilder.newDocument();
+    return builder().newDocument();
   }
 
   /**
@@ -110,11 +132,11 @@ public class DocumentParser {
       input.setEncoding( UTF_8.toString() );
       input.setCharacterStream( reader );
 
-      return sDocumentBuilder.parse( input );
+      return builder().parse( input );
     } catch( final Throwable t ) {
       clue( t );
 
-      return sDocumentBuilder.newDocument();
+      return builder().newDocument();
     }
   }
 
@@ -148,7 +170,7 @@ public class DocumentParser {
     throws IOException, SAXException {
     assert doc != null;
 
-    return sDocumentBuilder.parse( doc );
+    return builder().parse( doc );
   }
 
   /**
@@ -257,20 +279,22 @@ public class DocumentParser {
   public static void sanitize( final Path path ) throws Exception {
     assert path != null;
 
-    // Preprocessing the SVG image is a single-threaded operation, no matter
-    // how many SVG images are in the document to typeset.
-    sWriter.reset();
+    final var bytes = new ByteArrayOutputStream( 65536 );
 
-    final var target = new StreamResult( sOutput );
-    final var source = sDocumentBuilder.parse( toFile( path ) );
+    try( final var output = new OutputStreamWriter( bytes, UTF_8 ) ) {
+      final var target = new StreamResult( output );
+      final var source = builder().parse( toFile( path ) );
 
-    transform( source, target );
-    write( path, sWriter.toByteArray() );
+      transform( source, target );
+    }
+
+    write( path, bytes.toByteArray() );
   }
 
   /**
    * Converts a string into an {@link XPathExpression}, which may be used to
-   * extract elements from a {@link Document} object model.
+   * extract elements from a {@link Document} object model. The expression
+   * must only be evaluated by the calling thread.
    *
    * @param cs The string to convert to an {@link XPathExpression}.
    * @return {@code null} if there was an error compiling the xpath.
@@ -279,10 +303,11 @@ public class DocumentParser {
     assert cs != null;
 
     final var xpath = cs.toString();
+    final var toolkit = sToolkit.get();
 
-    return sXpaths.computeIfAbsent( xpath, k -> {
+    return toolkit.mXpaths.computeIfAbsent( xpath, _ -> {
       try {
-        return sXpath.compile( xpath );
+        return toolkit.mXpath.compile( xpath );
       } catch( final XPathExpressionException ex ) {
         clue( ex );
         return null;
@@ -299,7 +324,16 @@ public class DocumentParser {
    */
   private static void transform( final Document src, final StreamResult dst )
     throws TransformerException {
-    sTransformer.transform( new DOMSource( src ), dst );
+    sToolkit.get().mTransformer.transform( new DOMSource( src ), dst );
+  }
+
+  /**
+   * Returns the calling thread's parser.
+   *
+   * @return A {@link DocumentBuilder} that no other thread uses.
+   */
+  private static DocumentBuilder builder() {
+    return sToolkit.get().mDocumentBuilder;
   }
 
   /**
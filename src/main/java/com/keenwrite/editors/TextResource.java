@@ -12,13 +12,16 @@ import javafx.scene.Node;
 import java.io.File;
 import java.nio.charset.Charset;
 import java.nio.file.Path;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
 
 import static com.keenwrite.constants.Constants.DEFAULT_CHARSET;
 import static com.keenwrite.events.StatusEvent.clue;
+import static com.keenwrite.io.AtomicFileWriter.write;
 import static com.keenwrite.io.SysFile.toFile;
 import static java.nio.file.Files.readAllBytes;
-import static java.nio.file.Files.write;
 import static java.util.Arrays.asList;
+import static javafx.application.Platform.runLater;
 
 /**
  * A text resource can be persisted and retrieved from its persisted location.
@@ -155,14 +158,20 @@ public interface TextResource {
   /**
    * Save the file contents and clear the modified flag. If the file cannot
    * be saved, the exception is swallowed and this method returns {@code false}.
+   * This blocks until the file is written; prefer {@link #saveLater()} where
+   * the outcome isn't needed immediately.
    *
    * @return {@code true} the file was saved; {@code false} if upon exception.
    */
   default boolean save() {
+    final var savePoint = createSavePoint();
+
     try {
-      write( getPath(), asBytes( getText() ) );
-      clearModifiedProperty();
+      write( getPath(), getText(), getEncoding() ).get();
+      savePoint.run();
       return true;
+    } catch( final ExecutionException ex ) {
+      clue( ex.getCause() );
     } catch( final Exception ex ) {
       clue( ex );
     }
@@ -170,6 +179,32 @@ public interface TextResource {
     return false;
   }
 
+  /**
+   * Saves the file contents on a background thread, then clears the
+   * modified flag unless the text was changed while it was being saved. The
+   * text is captured when this method is called, which must be on the
+   * JavaFX thread.
+   *
+   * @return Completed after the file is saved and the modified flag is
+   * cleared; completed exceptionally if the file could not be saved.
+   */
+  default CompletableFuture<Void> saveLater() {
+    final var savePoint = createSavePoint();
+
+    return write( getPath(), getText(), getEncoding() ).thenCompose(
+      _ -> {
+        final var cleared = new CompletableFuture<Void>();
+
+        runLater( () -> {
+          savePoint.run();
+          cleared.complete( null );
+        } );
+
+        return cleared;
+      }
+    );
+  }
+
   /**
    * Returns the node associated with this {@link TextResource}.
    *
@@ -203,16 +238,16 @@ public interface TextResource {
    */
   void clearModifiedProperty();
 
-
   /**
-   * Converts the given string to an array of bytes using the encoding that was
-   * originally detected (if any) and associated with this file.
+   * Captures the current state of the text so that the modified flag can be
+   * cleared once that state has been saved. Subclasses that can tell whether
+   * the text has since changed should override this so that such changes
+   * keep the resource modified.
    *
-   * @param text The text to convert into the original file encoding.
-   * @return A series of bytes ready for writing to a file.
+   * @return Clears the modified flag when run on the JavaFX thread.
    */
-  private byte[] asBytes( final String text ) {
-    return text.getBytes( getEncoding() );
+  default Runnable createSavePoint() {
+    return this::clearModifiedProperty;
   }
 
   private Charset detectEncoding( final byte[] bytes ) {
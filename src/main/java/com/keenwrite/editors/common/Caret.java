@@ -179,7 +179,7 @@ public class Caret {
    *
    * @return A zero-based index of the caret position.
    */
-  private int getTextOffset() {
+  public int getTextOffset() {
     return mMutator.mTextOffset.get();
   }
 
@@ -4,11 +4,11 @@
  */
 package com.keenwrite.editors.definition;
 
+import com.keenwrite.collections.VersionedMap;
 import com.keenwrite.constants.Constants;
 import com.keenwrite.editors.TextDefinition;
 import com.keenwrite.events.InsertDefinitionEvent;
 import com.keenwrite.events.TextDefinitionFocusEvent;
-import com.keenwrite.processors.r.Engine;
 import com.keenwrite.ui.tree.AltTreeView;
 import com.keenwrite.ui.tree.TreeItemConverter;
 import javafx.beans.property.BooleanProperty;
@@ -21,6 +21,7 @@ import javafx.event.Event;
 import javafx.event.EventHandler;
 import javafx.scene.Node;
 import javafx.scene.control.*;
+import javafx.scene.control.TreeItem.TreeModificationEvent;
 import javafx.scene.input.KeyEvent;
 import javafx.scene.layout.BorderPane;
 import javafx.scene.layout.HBox;
@@ -70,7 +71,8 @@ public final class DefinitionEditor extends BorderPane
   private final Set<EventHandler<? super KeyEvent>> mKeyEventHandlers
     = new HashSet<>();
 
-  private final Map<String, String> mDefinitions = new HashMap<>();
+  private final VersionedMap<String, String> mDefinitions =
+    new VersionedMap<>();
 
   /**
    * Opened file's character encoding, or {@link Constants#DEFAULT_CHARSET} if
@@ -84,6 +86,12 @@ public final class DefinitionEditor extends BorderPane
    */
   private final BooleanProperty mModified = new SimpleBooleanProperty();
 
+  /**
+   * Counts the changes made to the definitions, which tells whether the
+   * definitions changed while being saved.
+   */
+  private long mChanges;
+
   /**
    * File being edited by this editor instance, which may be renamed.
    */
@@ -137,25 +145,53 @@ public final class DefinitionEditor extends BorderPane
     // After the file is opened, watch for changes, not before. Otherwise,
     // upon saving, users will be prompted to save a file that hasn't had
     // any modifications (from their perspective).
-    addTreeChangeHandler( _ -> {
+    addTreeChangeHandler( event -> {
+      mChanges++;
       mModified.set( true );
-      updateDefinitions( getDefinitions(), getTreeView().getRoot() );
+      updateDefinitions( event );
     } );
   }
 
+  /**
+   * Updates the variable definitions affected by the given change to the
+   * {@link TreeView}. Changing a definition's value replaces only that
+   * definition; other changes update only the definitions that differ.
+   * <p>
+   * Cached R results need not be cleared because R statements are cached
+   * with the definition values substituted, so statements that reference
+   * changed definitions are evaluated anew.
+   * </p>
+   *
+   * @param event The change made to the tree.
+   */
+  private void updateDefinitions( final TreeModificationEvent<?> event ) {
+    final var item = event.getTreeItem();
+    final var parent = item == null ? null : item.getParent();
+
+    if( parent != null &&
+        event.getEventType() == valueChangedEvent() &&
+        item.isLeaf() &&
+        item.getValue() instanceof String value &&
+        parent.getChildren().size() == 1 ) {
+      mDefinitions.put( TreeItemMapper.toPath( parent ), value );
+    }
+    else {
+      updateDefinitions( getDefinitions(), getTreeView().getRoot() );
+    }
+  }
+
   /**
    * Replaces the given list of variable definitions with a flat hierarchy
-   * of the converted {@link TreeView} root.
+   * of the converted {@link TreeView} root. Only the definitions that
+   * differ are changed.
    *
    * @param definitions The definition map to update.
    * @param root        The values to flatten then insert into the map.
    */
   private void updateDefinitions(
-    final Map<String, String> definitions,
+    final VersionedMap<String, String> definitions,
     final TreeItem<String> root ) {
-    definitions.clear();
-    definitions.putAll( TreeItemMapper.convert( root ) );
-    Engine.clear();
+    definitions.update( TreeItemMapper.convert( root ) );
   }
 
   /**
@@ -164,7 +200,7 @@ public final class DefinitionEditor extends BorderPane
    * @return The definition map.
    */
   @Override
-  public Map<String, String> getDefinitions() {
+  public VersionedMap<String, String> getDefinitions() {
     return mDefinitions;
   }
 
@@ -228,6 +264,17 @@ public final class DefinitionEditor extends BorderPane
     mModified.setValue( false );
   }
 
+  @Override
+  public Runnable createSavePoint() {
+    final var changes = mChanges;
+
+    return () -> {
+      if( mChanges == changes ) {
+        clearModifiedProperty();
+      }
+    };
+  }
+
   private Button createButton(
     final String msgKey, final EventHandler<ActionEvent> eventHandler ) {
     final var keyPrefix = STR."\{Constants.ACTION_PREFIX}definition.\{msgKey}";
@@ -8,7 +8,6 @@ import com.fasterxml.jackson.databind.JsonNode;
 import javafx.scene.control.TreeItem;
 
 import java.util.HashMap;
-import java.util.Iterator;
 import java.util.Map;
 import java.util.Stack;
 
@@ -35,34 +34,6 @@ public final class TreeItemMapper {
    */
   public static final int DEFAULT_KEY_LENGTH = 64;
 
-  /**
-   * In-order traversal of a {@link TreeItem} hierarchy, exposing each item
-   * as a consecutive list.
-   */
-  private static final class TreeIterator
-    implements Iterator<TreeItem<String>> {
-    private final Stack<TreeItem<String>> mStack = new Stack<>();
-
-    public TreeIterator( final TreeItem<String> root ) {
-      if( root != null ) {
-        mStack.push( root );
-      }
-    }
-
-    @Override
-    public boolean hasNext() {
-      return !mStack.isEmpty();
-    }
-
-    @Override
-    public TreeItem<String> next() {
-      final var next = mStack.pop();
-      next.getChildren().forEach( mStack::push );
-
-      return next;
-    }
-  }
-
   /**
    * Iterate over a given root node (at any level of the tree) and process each
    * leaf node into a flat map.
@@ -72,15 +43,43 @@ public final class TreeItemMapper {
   public static Map<String, String> convert( final TreeItem<String> root ) {
     final var map = new HashMap<String, String>();
 
-    new TreeIterator( root ).forEachRemaining( item -> {
-      if( item.isLeaf() && item.getParent() != null ) {
-        map.put( toPath( item.getParent() ), item.getValue() );
-      }
-    } );
+    if( root != null ) {
+      final var path = toPath( root );
+      convert( root, path.isEmpty() ? null : path, map );
+    }
 
     return map;
   }
 
+  /**
+   * Adds the leaves beneath the given item to the map. Key names are built
+   * while descending the tree, rather than ascending the tree for each leaf.
+   * Children are visited last to first so that, for malformed trees having
+   * sibling leaves, the first leaf's value is kept.
+   *
+   * @param item The item having children to convert.
+   * @param path The key name for the item, or {@code null} for the root.
+   * @param map  The map to contain the leaves' keys and values.
+   */
+  private static void convert(
+    final TreeItem<String> item,
+    final String path,
+    final Map<String, String> map ) {
+    final var children = item.getChildren();
+
+    for( int i = children.size() - 1; i >= 0; i-- ) {
+      final var child = children.get( i );
+      final var value = child.getValue();
+
+      if( child.isLeaf() ) {
+        map.put( path == null ? "" : path, value );
+      }
+      else {
+        convert( child, path == null ? value : path + SEPARATOR + value, map );
+      }
+    }
+  }
+
   /**
    * For a given node, this will ascend the tree to generate a key name
    * that is associated with the leaf node's value.
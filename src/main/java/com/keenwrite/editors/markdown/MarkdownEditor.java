@@ -94,11 +94,22 @@ public final class MarkdownEditor extends BorderPane implements TextEditor {
   private File mFile;
 
   /**
-   * Set to {@code true} upon text or caret position changes. Value is {@code
-   * false} by default.
+   * Set to {@code true} upon text changes. Value is {@code false} by default.
    */
   private final BooleanProperty mDirty = new SimpleBooleanProperty();
 
+  /**
+   * Set to {@code true} upon caret position changes that leave the text
+   * unchanged. Value is {@code false} by default.
+   */
+  private final BooleanProperty mCaretMoved = new SimpleBooleanProperty();
+
+  /**
+   * Set while the editor handles a text change, so that moving the caret
+   * as part of that change is not reported as a caret-only move.
+   */
+  private boolean mTextChanging;
+
   /**
    * Opened file's character encoding, or {@link Constants#DEFAULT_CHARSET} if
    * either no encoding could be determined or this is a new (empty) file.
@@ -132,15 +143,23 @@ public final class MarkdownEditor extends BorderPane implements TextEditor {
     textArea.textProperty().addListener( ( c, o, n ) -> {
       // Fire, regardless of whether the caret position has changed.
       mDirty.set( false );
-
-      // Prevent the subsequent caret position change from raising dirty bits.
       mDirty.set( true );
+
+      // The caret moves after the text changes, within the same event. Edits
+      // that leave the caret in place (e.g., forward delete) must not hide
+      // the next caret move, so clear the flag once the event is handled.
+      if( !mTextChanging ) {
+        mTextChanging = true;
+        runLater( () -> mTextChanging = false );
+      }
     } );
 
     textArea.caretPositionProperty().addListener( ( c, o, n ) -> {
       // Fire when the caret position has changed and the text has not.
-      mDirty.set( true );
-      mDirty.set( false );
+      if( !mTextChanging ) {
+        mCaretMoved.set( true );
+        mCaretMoved.set( false );
+      }
     } );
 
     textArea.focusedProperty().addListener( ( c, o, n ) -> {
@@ -385,6 +404,28 @@ public final class MarkdownEditor extends BorderPane implements TextEditor {
     getUndoManager().mark();
   }
 
+  /**
+   * Marks the undo position at the time of saving, rather than when the save
+   * completes, so that edits made while saving keep the editor modified.
+   *
+   * @return Marks the captured undo position, if it still exists.
+   */
+  @Override
+  public Runnable createSavePoint() {
+    final var manager = getUndoManager();
+
+    // Edits merged into the current change would otherwise count as saved.
+    manager.preventMerge();
+
+    final var position = manager.getCurrentPosition();
+
+    return () -> {
+      if( position.isValid() ) {
+        position.mark();
+      }
+    };
+  }
+
   @Override
   public VirtualizedScrollPane<StyleClassedTextArea> getScrollPane() {
     return mScrollPane;
@@ -578,13 +619,22 @@ public final class MarkdownEditor extends BorderPane implements TextEditor {
 
   /**
    * Observers may listen for changes to the property returned from this method
-   * to receive notifications when either the text or caret have changed. This
-   * should not be used to track whether the text has been modified.
+   * to receive notifications when the text has changed. This should not be
+   * used to track whether the text has been modified since it was saved.
    */
   public void addDirtyListener( ChangeListener<Boolean> listener ) {
     mDirty.addListener( listener );
   }
 
+  /**
+   * Observers may listen for changes to the property returned from this method
+   * to receive notifications when the caret has moved without the text having
+   * changed, such as when navigating the document.
+   */
+  public void addCaretListener( ChangeListener<Boolean> listener ) {
+    mCaretMoved.addListener( listener );
+  }
+
   /**
    * Surrounds the selected text or word under the caret in Markdown markup.
    *
@@ -0,0 +1,46 @@
+/* Copyright 2024 White Magic Software, Ltd. -- All rights reserved.
+ *
+ * SPDX-License-Identifier: MIT
+ */
+package com.keenwrite.events;
+
+import com.keenwrite.processors.Processor;
+import com.keenwrite.processors.markdown.extensions.outline.DocumentOutlineExtension.Item;
+
+import java.util.List;
+
+/**
+ * Collates the headings of a document that has been parsed, after all
+ * pertinent {@link Processor}s applied. The entire outline is published at
+ * once so that subscribers can update their view of the outline in a single
+ * step.
+ */
+public class ParseOutlineEvent implements AppEvent {
+  /**
+   * The document headings, in document order.
+   */
+  private final List<Item> mHeadings;
+
+  private ParseOutlineEvent( final List<Item> headings ) {
+    mHeadings = headings;
+  }
+
+  /**
+   * Call to indicate that the document outline has changed.
+   *
+   * @param headings The document headings, in document order.
+   */
+  public static void fire( final List<Item> headings ) {
+    assert headings != null;
+    new ParseOutlineEvent( List.copyOf( headings ) ).publish();
+  }
+
+  /**
+   * Returns the document headings.
+   *
+   * @return An immutable list of headings, in document order.
+   */
+  public List<Item> getHeadings() {
+    return mHeadings;
+  }
+}
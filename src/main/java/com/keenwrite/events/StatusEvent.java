@@ -22,9 +22,25 @@ public final class StatusEvent implements AppEvent {
     "(?<=[a-z])(?=[A-Z])|(?<=[A-Z])(?=[A-Z][a-z])";
 
   /**
-   * Detailed information about a problem.
+   * Limits how often progress messages from the same bundle key are
+   * published.
    */
-  private final String mMessage;
+  private static final StatusThrottle THROTTLE = new StatusThrottle();
+
+  /**
+   * Detailed information about a problem, formatted when first requested.
+   */
+  private volatile String mMessage;
+
+  /**
+   * The message bundle key to format, or {@code null} if already formatted.
+   */
+  private final String mKey;
+
+  /**
+   * The placeholder values to substitute into the bundle key's value.
+   */
+  private final Object[] mArgs;
 
   /**
    * Provides stack trace information that isolates the cause.
@@ -38,7 +54,7 @@ public final class StatusEvent implements AppEvent {
    * @param message The human-readable message, typically displayed on-screen.
    */
   public StatusEvent( final String message ) {
-    this( message, null );
+    this( message, (Throwable) null );
   }
 
   /**
@@ -56,9 +72,24 @@ public final class StatusEvent implements AppEvent {
    */
   public StatusEvent( final String message, final Throwable problem ) {
     mMessage = message == null ? "" : message;
+    mKey = null;
+    mArgs = null;
     mProblem = problem;
   }
 
+  /**
+   * Constructs a new event that defers formatting its message until the
+   * message is needed, which may be never if the event is superseded.
+   *
+   * @param key  The property key having a value to populate with arguments.
+   * @param args The placeholder values to substitute into the key's value.
+   */
+  private StatusEvent( final String key, final Object[] args ) {
+    mKey = key;
+    mArgs = args;
+    mProblem = null;
+  }
+
   /**
    * Returns the stack trace information for the issue encountered. This is
    * optional because usually a status message isn't an application error.
@@ -83,7 +114,7 @@ public final class StatusEvent implements AppEvent {
   @Override
   public String toString() {
     // Not exactly sure how the message can be null, but it happened once!
-    final var message = mMessage == null ? "UNKNOWN" : mMessage;
+    final var message = getMessage() == null ? "UNKNOWN" : getMessage();
 
     return format( "%s%s%s",
                    message,
@@ -121,7 +152,15 @@ public final class StatusEvent implements AppEvent {
    * @return The message for this event.
    */
   public String getMessage() {
-    return mMessage;
+    var message = mMessage;
+
+    // Formatting twice from racing threads yields the same text.
+    if( message == null && mKey != null ) {
+      message = get( mKey, mArgs );
+      mMessage = message;
+    }
+
+    return message;
   }
 
   /**
@@ -153,13 +192,31 @@ public final class StatusEvent implements AppEvent {
   }
 
   /**
-   * Notifies listeners of a custom message.
+   * Notifies listeners of a custom message. The message is formatted only
+   * when a listener requests it, so the arguments must not be changed
+   * afterwards.
    *
    * @param key  The property key having a value to populate with arguments.
    * @param args The placeholder values to substitute into the key's value.
    */
   public static void clue( final String key, final Object... args ) {
-    fire( get( key, args ) );
+    new StatusEvent( key, args ).publish();
+  }
+
+  /**
+   * Notifies listeners of a progress message that a hot path sends many
+   * times, such as for every page typeset. Progress messages having the same
+   * key that are sent in quick succession are coalesced, so that only the
+   * most recent message is published. A message that is held back is
+   * dropped if any other message is published first. The message is
+   * formatted only when a listener requests it, so the arguments must not
+   * be changed afterwards.
+   *
+   * @param key  The property key having a value to populate with arguments.
+   * @param args The placeholder values to substitute into the key's value.
+   */
+  public static void progress( final String key, final Object... args ) {
+    THROTTLE.publish( key, new StatusEvent( key, args ) );
   }
 
   /**
@@ -187,6 +244,16 @@ public final class StatusEvent implements AppEvent {
     fire( problem );
   }
 
+  /**
+   * Submits this event to the {@link Bus}, dropping any progress message
+   * that is waiting to be published, because it would be out of date.
+   */
+  @Override
+  public void publish() {
+    THROTTLE.drop();
+    AppEvent.super.publish();
+  }
+
   public static void fire( final String message ) {
     new StatusEvent( message ).publish();
   }
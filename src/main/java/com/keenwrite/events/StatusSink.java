@@ -0,0 +1,121 @@
+/* Copyright 2024 White Magic Software, Ltd. -- All rights reserved.
+ *
+ * SPDX-License-Identifier: MIT
+ */
+package com.keenwrite.events;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+
+/**
+ * Responsible for handing status events from the threads that publish them
+ * to a consumer that handles them in batches, such as on the JavaFX thread.
+ * Events wait in a fixed-size ring buffer; when events arrive faster than
+ * the consumer handles them, the oldest waiting events are discarded. At
+ * most one batch is scheduled at a time, so a burst of events schedules one
+ * task rather than one task per event.
+ */
+public final class StatusSink {
+  private final StatusEvent[] mRing;
+  private final Executor mExecutor;
+  private final Consumer<List<StatusEvent>> mConsumer;
+
+  /**
+   * Set while a batch is scheduled but has not yet been taken.
+   */
+  private final AtomicBoolean mScheduled = new AtomicBoolean();
+
+  /**
+   * Prevents batches from being consumed out of order.
+   */
+  private final Object mDrainLock = new Object();
+
+  /**
+   * Index of the oldest waiting event.
+   */
+  private int mHead;
+
+  /**
+   * Number of waiting events.
+   */
+  private int mSize;
+
+  /**
+   * @param capacity Maximum number of events that may wait, must be
+   *                 greater than zero.
+   * @param executor Runs the consumer (e.g., on the JavaFX thread).
+   * @param consumer Receives the waiting events, oldest first.
+   */
+  public StatusSink(
+    final int capacity,
+    final Executor executor,
+    final Consumer<List<StatusEvent>> consumer ) {
+    assert capacity > 0;
+    assert executor != null;
+    assert consumer != null;
+
+    mRing = new StatusEvent[ capacity ];
+    mExecutor = executor;
+    mConsumer = consumer;
+  }
+
+  /**
+   * Adds an event to the ring buffer, discarding the oldest waiting event if
+   * the buffer is full, then schedules the consumer unless it is already
+   * scheduled. This may be called from any thread.
+   *
+   * @param event The event to pass to the consumer.
+   */
+  public void accept( final StatusEvent event ) {
+    assert event != null;
+
+    synchronized( mRing ) {
+      mRing[ (mHead + mSize) % mRing.length ] = event;
+
+      if( mSize < mRing.length ) {
+        mSize++;
+      }
+      else {
+        mHead = (mHead + 1) % mRing.length;
+      }
+    }
+
+    if( mScheduled.compareAndSet( false, true ) ) {
+      mExecutor.execute( this::drain );
+    }
+  }
+
+  /**
+   * Passes all waiting events to the consumer on the calling thread. This is
+   * called by the executor and may also be called to flush the events, such
+   * as before the application exits.
+   */
+  public void drain() {
+    synchronized( mDrainLock ) {
+      // Events accepted after this point schedule another batch.
+      mScheduled.set( false );
+
+      final List<StatusEvent> events;
+
+      synchronized( mRing ) {
+        events = new ArrayList<>( mSize );
+
+        for( int i = 0; i < mSize; i++ ) {
+          final var index = (mHead + i) % mRing.length;
+          events.add( mRing[ index ] );
+          mRing[ index ] = null;
+        }
+
+        mHead = 0;
+        mSize = 0;
+      }
+
+      if( !events.isEmpty() ) {
+        mConsumer.accept( events );
+      }
+    }
+  }
+}
@@ -0,0 +1,124 @@
+/* Copyright 2024 White Magic Software, Ltd. -- All rights reserved.
+ *
+ * SPDX-License-Identifier: MIT
+ */
+package com.keenwrite.events;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ScheduledExecutorService;
+
+import static com.keenwrite.events.Bus.post;
+import static java.util.concurrent.Executors.newSingleThreadScheduledExecutor;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+
+/**
+ * Responsible for limiting how often progress events having the same key
+ * are published. The first event for a key is published immediately. Events
+ * for that key that arrive within the following interval replace each other,
+ * and only the last of them is published once the interval has elapsed.
+ * Hot paths, such as resolving every image of a document, thereby publish
+ * a handful of events rather than thousands.
+ * <p>
+ * At most one event is held back at a time. Publishing any newer event,
+ * throttled or not, drops the held event so that stale progress never
+ * replaces a later status.
+ * </p>
+ */
+final class StatusThrottle {
+  /**
+   * Minimum time between publishing events having the same key.
+   */
+  private static final long INTERVAL_NS = MILLISECONDS.toNanos( 100 );
+
+  private static final ScheduledExecutorService sScheduler =
+    newSingleThreadScheduledExecutor( runnable -> {
+      final var thread = new Thread( runnable, "status-throttle" );
+      thread.setDaemon( true );
+      return thread;
+    } );
+
+  /**
+   * Maps keys to when an event having that key was last published.
+   */
+  private final Map<String, Long> mPublished = new HashMap<>();
+
+  /**
+   * The most recent event waiting to be published, if any.
+   */
+  private StatusEvent mHeld;
+
+  /**
+   * The key of the held event.
+   */
+  private String mHeldKey;
+
+  /**
+   * Incremented whenever an event is held for a different key than before,
+   * so that flushes scheduled for earlier held events do nothing.
+   */
+  private long mSeries;
+
+  /**
+   * Publishes the given event now, or later if an event with the same key
+   * was published recently.
+   *
+   * @param key   Groups events that replace each other, such as a message
+   *              bundle key.
+   * @param event The event to publish.
+   */
+  void publish( final String key, final StatusEvent event ) {
+    synchronized( this ) {
+      final var now = System.nanoTime();
+      final var published = mPublished.get( key );
+      final var delay = published == null
+        ? 0
+        : published + INTERVAL_NS - now;
+
+      if( delay > 0 ) {
+        // A flush is already scheduled, which will publish this event instead.
+        if( mHeld != null && key.equals( mHeldKey ) ) {
+          mHeld = event;
+          return;
+        }
+
+        final var series = ++mSeries;
+        mHeld = event;
+        mHeldKey = key;
+        sScheduler.schedule( () -> flush( series ), delay, NANOSECONDS );
+        return;
+      }
+
+      mHeld = null;
+      mPublished.put( key, now );
+    }
+
+    post( event );
+  }
+
+  /**
+   * Discards the event waiting to be published, because a newer event is
+   * about to be published.
+   */
+  synchronized void drop() {
+    mHeld = null;
+  }
+
+  private void flush( final long series ) {
+    final StatusEvent event;
+
+    synchronized( this ) {
+      event = mHeld;
+
+      if( event == null || series != mSeries ) {
+        return;
+      }
+
+      mHeld = null;
+      mPublished.put( mHeldKey, System.nanoTime() );
+    }
+
+    post( event );
+  }
+}
@@ -4,7 +4,7 @@
  */
 package com.keenwrite.events.spelling;
 
-import java.util.Map;
+import com.keenwrite.spelling.impl.LexiconIndex;
 
 /**
  * Collates information about the lexicon. Fired when the lexicon has been
@@ -12,22 +12,22 @@ import java.util.Map;
  */
 public class LexiconLoadedEvent extends LexiconEvent {
 
-  private final Map<String, Long> mLexicon;
+  private final LexiconIndex mLexicon;
 
-  private LexiconLoadedEvent( final Map<String, Long> lexicon ) {
+  private LexiconLoadedEvent( final LexiconIndex lexicon ) {
     mLexicon = lexicon;
   }
 
-  public static void fire( final Map<String, Long> lexicon ) {
+  public static void fire( final LexiconIndex lexicon ) {
     new LexiconLoadedEvent( lexicon ).publish();
   }
 
   /**
-   * Returns a word-frequency map used by the spell checking library.
+   * Returns a word-frequency index used by the spell checker.
    *
    * @return The lexicon that was loaded.
    */
-  public Map<String, Long> getLexicon() {
+  public LexiconIndex getLexicon() {
     return mLexicon;
   }
 }
@@ -0,0 +1,173 @@
+/* Copyright 2024 White Magic Software, Ltd. -- All rights reserved.
+ *
+ * SPDX-License-Identifier: MIT
+ */
+package com.keenwrite.io;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Path;
+import java.nio.file.attribute.PosixFileAttributeView;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+
+import static java.nio.file.Files.*;
+import static java.nio.file.LinkOption.NOFOLLOW_LINKS;
+import static java.nio.file.StandardCopyOption.ATOMIC_MOVE;
+import static java.nio.file.StandardCopyOption.REPLACE_EXISTING;
+import static java.nio.file.StandardOpenOption.CREATE_NEW;
+import static java.nio.file.StandardOpenOption.WRITE;
+import static java.util.concurrent.Executors.newSingleThreadExecutor;
+import static java.util.concurrent.ThreadLocalRandom.current;
+
+/**
+ * Responsible for writing text files on a background thread. Each file is
+ * written in full to a temporary file in the same directory, which then
+ * replaces the original file in a single rename, so a failure part way
+ * through writing never leaves a truncated file behind.
+ * <p>
+ * Requests to write a file that is still waiting to be written replace the
+ * waiting text, so only the most recent text is encoded and written.
+ * </p>
+ */
+public final class AtomicFileWriter {
+  /**
+   * Writes one file at a time, so writes to the same file happen in the
+   * order they were requested.
+   */
+  private static final ExecutorService sExecutor =
+    newSingleThreadExecutor( runnable -> {
+      final var thread = new Thread( runnable, "file-writer" );
+      thread.setDaemon( true );
+      return thread;
+    } );
+
+  /**
+   * Text waiting to be written, keyed by file. A file has an entry only
+   * while a write is scheduled for it.
+   */
+  private static final Map<Path, Snapshot> sPending =
+    new ConcurrentHashMap<>();
+
+  /**
+   * Text to write to a file, captured when the write was requested.
+   *
+   * @param text     The file contents.
+   * @param encoding The character encoding for the file contents.
+   * @param written  Completed when the text, or text requested later, has
+   *                 been written.
+   */
+  private record Snapshot(
+    String text, Charset encoding, CompletableFuture<Void> written ) {}
+
+  private AtomicFileWriter() { }
+
+  /**
+   * Schedules the given text to be written to a file.
+   *
+   * @param path     The file to replace.
+   * @param text     The complete text to write, which must not change.
+   * @param encoding The character encoding for the file contents.
+   * @return Completed when the text, or newer text for the same file, has
+   * been written; completed exceptionally with the {@link IOException} if
+   * the file could not be written.
+   */
+  public static CompletableFuture<Void> write(
+    final Path path, final String text, final Charset encoding ) {
+    assert path != null;
+    assert text != null;
+    assert encoding != null;
+
+    final var file = path.toAbsolutePath().normalize();
+    final var snapshot = new Snapshot( text, encoding,
+                                       new CompletableFuture<>() );
+    final var replaced = sPending.put( file, snapshot );
+
+    if( replaced == null ) {
+      sExecutor.execute( () -> flush( file ) );
+    }
+    else {
+      // The replaced text will never be written, so it is as saved as the
+      // text that replaced it.
+      snapshot.written().whenComplete( ( _, ex ) -> {
+        if( ex == null ) {
+          replaced.written().complete( null );
+        }
+        else {
+          replaced.written().completeExceptionally( ex );
+        }
+      } );
+    }
+
+    return snapshot.written();
+  }
+
+  private static void flush( final Path file ) {
+    final var snapshot = sPending.remove( file );
+
+    try {
+      replace( file, snapshot.text().getBytes( snapshot.encoding() ) );
+      snapshot.written().complete( null );
+    } catch( final Exception ex ) {
+      snapshot.written().completeExceptionally( ex );
+    }
+  }
+
+  /**
+   * Replaces the contents of the given file, following symbolic links so
+   * that the link is kept and the file it refers to is replaced.
+   *
+   * @param path  The file to replace.
+   * @param bytes The new file contents.
+   * @throws IOException The file could not be replaced.
+   */
+  private static void replace( final Path path, final byte[] bytes )
+    throws IOException {
+    final var file = exists( path ) ? path.toRealPath() : path;
+    final var suffix = Long.toHexString( current().nextLong() );
+    final var temp = file.resolveSibling(
+      STR.".\{file.getFileName()}.\{suffix}.tmp" );
+
+    try {
+      try( final var channel = FileChannel.open( temp, CREATE_NEW, WRITE ) ) {
+        final var buffer = ByteBuffer.wrap( bytes );
+
+        while( buffer.hasRemaining() ) {
+          channel.write( buffer );
+        }
+
+        // Ensure the contents are on disk before the rename is.
+        channel.force( true );
+      }
+
+      copyPermissions( file, temp );
+
+      try {
+        move( temp, file, ATOMIC_MOVE, REPLACE_EXISTING );
+      } catch( final AtomicMoveNotSupportedException ex ) {
+        move( temp, file, REPLACE_EXISTING );
+      }
+    } finally {
+      deleteIfExists( temp );
+    }
+  }
+
+  /**
+   * Keeps the permissions of a file that is being replaced, on file systems
+   * that support POSIX permissions.
+   */
+  private static void copyPermissions( final Path source, final Path target )
+    throws IOException {
+    final var view = getFileAttributeView(
+      source, PosixFileAttributeView.class, NOFOLLOW_LINKS );
+
+    if( view != null && exists( source ) ) {
+      setPosixFilePermissions( target, view.readAttributes().permissions() );
+    }
+  }
+}
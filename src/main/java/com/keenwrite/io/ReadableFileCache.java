@@ -0,0 +1,235 @@
+/* Copyright 2024 White Magic Software, Ltd. -- All rights reserved.
+ *
+ * SPDX-License-Identifier: MIT
+ */
+package com.keenwrite.io;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.InvalidPathException;
+import java.nio.file.Path;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static java.nio.file.FileSystems.getDefault;
+import static java.nio.file.StandardWatchEventKinds.*;
+import static java.util.Collections.synchronizedMap;
+
+/**
+ * Responsible for answering whether files can be read without asking the
+ * file system every time. Answers, whether the file was found or not, are
+ * kept for each directory until a file within that directory is created,
+ * deleted, or modified, as reported by the directory's watch service. This
+ * turns the many probes made when resolving image paths into lookups.
+ * <p>
+ * Only the most recently checked directories are watched, so that the
+ * application does not hold a watch on every directory it has probed.
+ * Directories that cannot be watched (e.g., they do not exist) are probed
+ * on every request, as are all directories on platforms without a native
+ * watch service. For example, macOS polls for changes every few seconds,
+ * which would give stale answers.
+ * </p>
+ */
+public final class ReadableFileCache {
+  /**
+   * Maximum number of directories to watch at once.
+   */
+  private static final int MAX_DIRECTORIES = 256;
+
+  /**
+   * A watched directory and the answers for the files within it.
+   *
+   * @param key   The directory's registration with the watch service.
+   * @param names Answers for each file, keyed by filename.
+   */
+  private record Directory( WatchKey key, Map<String, Boolean> names ) { }
+
+  /**
+   * Watched directories, least recently checked first. A directory has an
+   * entry only while it is being watched; the watch is cancelled when the
+   * directory is evicted.
+   */
+  private static final Map<Path, Directory> sDirectories = synchronizedMap(
+    new LinkedHashMap<>( 64, 0.75f, true ) {
+      @Override
+      protected boolean removeEldestEntry(
+        final Map.Entry<Path, Directory> eldest ) {
+        final var evict = size() > MAX_DIRECTORIES;
+
+        if( evict ) {
+          eldest.getValue().key().cancel();
+        }
+
+        return evict;
+      }
+    }
+  );
+
+  private static final WatchService sWatchService = createWatchService();
+
+  static {
+    if( sWatchService != null ) {
+      final var thread = new Thread(
+        ReadableFileCache::handleEvents, "readable-file-watcher" );
+      thread.setDaemon( true );
+      thread.start();
+    }
+  }
+
+  private ReadableFileCache() { }
+
+  /**
+   * Answers whether the given file is a regular file that can be read.
+   *
+   * @param file The file to check.
+   * @return {@code true} if the file exists, isn't a directory, and can be
+   * read by the application.
+   */
+  public static boolean isReadable( final File file ) {
+    try {
+      return isReadable( file.toPath() );
+    } catch( final InvalidPathException ex ) {
+      return file.isFile() && file.canRead();
+    }
+  }
+
+  /**
+   * Answers whether the given path is a regular file that can be read.
+   *
+   * @param path The path to check.
+   * @return {@code true} if the file exists, isn't a directory, and can be
+   * read by the application.
+   */
+  public static boolean isReadable( final Path path ) {
+    final var file = path.toAbsolutePath().normalize();
+    final var dir = file.getParent();
+    final var name = file.getFileName();
+
+    if( dir == null || name == null || sWatchService == null ) {
+      return probe( file );
+    }
+
+    var directory = sDirectories.get( dir );
+
+    if( directory == null ) {
+      directory = watch( dir );
+
+      if( directory == null ) {
+        return probe( file );
+      }
+    }
+
+    return directory.names().computeIfAbsent(
+      name.toString(), _ -> probe( file ) );
+  }
+
+  /**
+   * Registers the given directory for file system events. Registering a
+   * directory that is already registered returns its existing entry. The
+   * directory is watched before any answer is probed so that changes made
+   * after probing cannot be missed.
+   *
+   * @param dir The directory to watch.
+   * @return {@code null} if the directory cannot be watched.
+   */
+  private static Directory watch( final Path dir ) {
+    // Registering and recording the key together prevents the event thread
+    // from cancelling a key that is about to be recorded.
+    synchronized( sDirectories ) {
+      var directory = sDirectories.get( dir );
+
+      if( directory == null ) {
+        try {
+          final var key = dir.register(
+            sWatchService, ENTRY_CREATE, ENTRY_DELETE, ENTRY_MODIFY );
+
+          directory = new Directory( key, new ConcurrentHashMap<>() );
+          sDirectories.put( dir, directory );
+        } catch( final IOException | RuntimeException ex ) {
+          return null;
+        }
+      }
+
+      return directory;
+    }
+  }
+
+  /**
+   * Forgets the answers for any directory that changes, including when
+   * events have been lost. Directories that can no longer be watched (e.g.,
+   * they were deleted) are removed, and are watched again when a file within
+   * them is next checked.
+   */
+  private static void handleEvents() {
+    try {
+      while( true ) {
+        final var key = sWatchService.take();
+        final var dir = (Path) key.watchable();
+
+        key.pollEvents();
+
+        synchronized( sDirectories ) {
+          final var directory = sDirectories.get( dir );
+
+          if( directory == null || directory.key() != key ) {
+            // The directory was evicted while its events were pending.
+            key.cancel();
+          }
+          else if( key.reset() ) {
+            sDirectories.put(
+              dir, new Directory( key, new ConcurrentHashMap<>() ) );
+          }
+          else {
+            sDirectories.remove( dir );
+          }
+        }
+      }
+    } catch( final InterruptedException | ClosedWatchServiceException ex ) {
+      // Without events, answers could become stale, so stop caching them.
+      try {
+        sWatchService.close();
+      } catch( final IOException ignored ) { }
+
+      sDirectories.clear();
+    }
+  }
+
+  /**
+   * Returns the number of directories being watched.
+   *
+   * @return The number of watched directories.
+   */
+  static int watched() {
+    return sDirectories.size();
+  }
+
+  private static boolean probe( final Path path ) {
+    final var file = path.toFile();
+    return file.isFile() && file.canRead();
+  }
+
+  /**
+   * Returns the platform's watch service, provided that it is notified of
+   * changes by the operating system rather than by polling.
+   *
+   * @return {@code null} if there is no native watch service.
+   */
+  private static WatchService createWatchService() {
+    try {
+      final var service = getDefault().newWatchService();
+
+      if( service.getClass().getSimpleName().startsWith( "Polling" ) ) {
+        service.close();
+        return null;
+      }
+
+      return service;
+    } catch( final Exception ex ) {
+      return null;
+    }
+  }
+}
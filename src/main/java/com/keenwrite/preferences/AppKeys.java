@@ -92,6 +92,7 @@ public final class AppKeys {
   public static final Key KEY_TYPESET_CONTEXT_THEMES_PATH = key( KEY_TYPESET_CONTEXT_THEMES, "path" );
   public static final Key KEY_TYPESET_CONTEXT_THEME_SELECTION = key( KEY_TYPESET_CONTEXT_THEMES, "selection" );
   public static final Key KEY_TYPESET_CONTEXT_CLEAN = key( KEY_TYPESET_CONTEXT, "clean" );
+  public static final Key KEY_TYPESET_CONTEXT_INCREMENTAL = key( KEY_TYPESET_CONTEXT, "incremental" );
   public static final Key KEY_TYPESET_CONTEXT_CHAPTERS = key( KEY_TYPESET_CONTEXT, "chapters" );
   public static final Key KEY_TYPESET_TYPOGRAPHY = key( KEY_TYPESET, "typography" );
   public static final Key KEY_TYPESET_TYPOGRAPHY_QUOTES = key( KEY_TYPESET_TYPOGRAPHY, "quotes" );
@@ -131,7 +131,10 @@ public final class PreferencesController {
                       true ),
           Setting.of( label( KEY_TYPESET_CONTEXT_CLEAN ) ),
           Setting.of( title( KEY_TYPESET_CONTEXT_CLEAN ),
-                      booleanProperty( KEY_TYPESET_CONTEXT_CLEAN ) )
+                      booleanProperty( KEY_TYPESET_CONTEXT_CLEAN ) ),
+          Setting.of( label( KEY_TYPESET_CONTEXT_INCREMENTAL ) ),
+          Setting.of( title( KEY_TYPESET_CONTEXT_INCREMENTAL ),
+                      booleanProperty( KEY_TYPESET_CONTEXT_INCREMENTAL ) )
         ),
         Group.of(
           get( KEY_TYPESET_CONTEXT_FONTS ),
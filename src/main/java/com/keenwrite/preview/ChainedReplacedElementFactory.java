@@ -1,7 +1,8 @@
 /* Copyright 2020-2021 White Magic Software, Ltd. -- All rights reserved. */
 package com.keenwrite.preview;
 
-import com.keenwrite.collections.BoundedCache;
+import com.keenwrite.collections.GenerationalCache;
+import com.keenwrite.preview.ImageReplacedElementFactory.PlaceholderElement;
 import com.keenwrite.ui.adapters.ReplacedElementAdapter;
 import org.w3c.dom.Element;
 import org.xhtmlrenderer.extend.ReplacedElement;
@@ -12,7 +13,6 @@ import org.xhtmlrenderer.render.BlockBox;
 import org.xhtmlrenderer.swing.ImageReplacedElement;
 
 import java.util.LinkedHashSet;
-import java.util.Map;
 import java.util.Set;
 
 import static com.keenwrite.preview.ImageReplacedElementFactory.HTML_IMAGE;
@@ -34,11 +34,12 @@ public final class ChainedReplacedElementFactory
   private final Set<ReplacedElementFactory> mFactories = new LinkedHashSet<>();
 
   /**
-   * A bounded cache that removes the oldest image if the maximum number of
-   * cached images has been reached. This constrains the number of images
-   * loaded into memory.
+   * Keeps the images used by the documents being laid out, discarding images
+   * that are no longer used. This constrains the number of images loaded
+   * into memory without evicting images that the document still shows.
    */
-  private final Map<String, ReplacedElement> mCache = new BoundedCache<>( 150 );
+  private final GenerationalCache<String, ReplacedElement> mCache =
+    new GenerationalCache<>();
 
   public ChainedReplacedElementFactory(
     final ReplacedElementFactory... factories ) {
@@ -76,13 +77,20 @@ public final class ChainedReplacedElementFactory
         break;
       }
 
-      final var replaced = mCache.computeIfAbsent( source, k -> {
+      var replaced = mCache.get( source );
+
+      if( replaced == null ) {
         final var r = f.createReplacedElement( c, box, uac, width, height );
 
-        return r instanceof final ImageReplacedElement ire
+        replaced = r instanceof final ImageReplacedElement ire
           ? createImageElement( box, ire )
           : r;
-      } );
+
+        // Placeholders are replaced once the image has been rasterized.
+        if( replaced != null && !(replaced instanceof PlaceholderElement) ) {
+          mCache.put( source, replaced );
+        }
+      }
 
       if( replaced != null ) {
         return replaced;
@@ -110,6 +118,14 @@ public final class ChainedReplacedElementFactory
     mCache.clear();
   }
 
+  /**
+   * Called when a new document is about to be laid out. Images that were
+   * not used by the previous document are discarded.
+   */
+  void advance() {
+    mCache.advance();
+  }
+
   /**
    * Creates a new image that maintains its aspect ratio while fitting into
    * the given {@link BlockBox}. If the image is too big, it is scaled down.
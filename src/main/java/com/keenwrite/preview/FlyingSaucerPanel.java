@@ -7,7 +7,6 @@ import com.keenwrite.ui.adapters.DocumentAdapter;
 import javafx.beans.property.BooleanProperty;
 import javafx.beans.property.SimpleBooleanProperty;
 import org.w3c.dom.Document;
-import org.xhtmlrenderer.layout.SharedContext;
 import org.xhtmlrenderer.render.Box;
 import org.xhtmlrenderer.simple.XHTMLPanel;
 import org.xhtmlrenderer.simple.extend.XhtmlNamespaceHandler;
@@ -18,13 +17,17 @@ import java.awt.*;
 import java.awt.event.ComponentAdapter;
 import java.awt.event.ComponentEvent;
 import java.net.URI;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.BooleanSupplier;
+import java.util.function.Supplier;
 
 import static com.keenwrite.events.StatusEvent.clue;
 import static com.keenwrite.util.ProtocolScheme.getProtocol;
 import static java.lang.Boolean.FALSE;
 import static java.lang.Boolean.TRUE;
 import static java.lang.Math.max;
-import static java.lang.Thread.sleep;
 import static javax.swing.SwingUtilities.invokeLater;
 
 /**
@@ -86,14 +89,40 @@ public final class FlyingSaucerPanel extends XHTMLPanel
 
   private static final XhtmlNamespaceHandler XNH = new XhtmlNamespaceHandler();
   private final ChainedReplacedElementFactory mFactory;
+  private final ImageReplacedElementFactory mImageFactory;
 
-  FlyingSaucerPanel() {
+  /**
+   * Offsets of the elements in the document being displayed.
+   */
+  private SourceMap mSourceMap = SourceMap.EMPTY;
+
+  /**
+   * The layout that the source boxes were collected from.
+   */
+  private Box mSourceRoot;
+  private List<Box> mSourceBoxes = List.of();
+
+  /**
+   * Scrolls to a position that was requested before its document was laid
+   * out; accessed on the Swing thread only.
+   */
+  private BooleanSupplier mPending;
+
+  /**
+   * Creates a panel that keeps rasterized images in the given directory.
+   *
+   * @param cacheDir Provides the directory for caching rasterized images.
+   */
+  FlyingSaucerPanel( final Supplier<Path> cacheDir ) {
     // The order is important: SwingReplacedElementFactory replaces SVG images
     // with a blank image, which will cause the chained factory to cache the
     // image and exit. Instead, the SVG must execute first to rasterize the
     // content. Consequently, the chained factory must maintain insertion order.
+    mImageFactory = new ImageReplacedElementFactory(
+      new RasterCache( cacheDir ), this::relayout
+    );
     mFactory = new ChainedReplacedElementFactory(
-      new ImageReplacedElementFactory(),
+      mImageFactory,
       new SwingReplacedElementFactory()
     );
 
@@ -114,31 +143,113 @@ public final class FlyingSaucerPanel extends XHTMLPanel
    *
    * @param doc     A complete HTML5 document, including doctype.
    * @param baseUri URI to use for finding relative files, such as images.
+   * @param map     The offsets of the document's marked elements.
    */
   @Override
-  public void render( final Document doc, final String baseUri ) {
+  public void render(
+    final Document doc, final String baseUri, final SourceMap map ) {
+    mSourceMap = map;
+    mFactory.advance();
+    mImageFactory.advance();
     setDocument( doc, baseUri, XNH );
   }
 
   @Override
   public void clearCache() {
     mFactory.clearCache();
+    mImageFactory.clearCache();
+  }
+
+  @Override
+  public void scrollTo(
+    final SourceMap map, final int offset, final JScrollPane scrollPane ) {
+    if( !scroll( map, offset, scrollPane ) ) {
+      mPending = () -> scroll( map, offset, scrollPane );
+    }
   }
 
+  /**
+   * Scrolls to any position requested before the document was laid out.
+   *
+   * @param g The graphics context used for layout.
+   */
   @Override
-  public void scrollTo( final String id, final JScrollPane scrollPane ) {
-    int iter = 0;
-    Box box = null;
+  public void doDocumentLayout( final Graphics g ) {
+    super.doDocumentLayout( g );
 
-    while( iter++ < 3 && ((box = getBoxById( id )) == null) ) {
-      try {
-        sleep( 10 );
-      } catch( final Exception ex ) {
-        clue( ex );
+    final var pending = mPending;
+
+    if( pending != null ) {
+      mPending = null;
+      pending.getAsBoolean();
+    }
+  }
+
+  /**
+   * Scrolls to the box of the element at the given offset, provided that the
+   * laid out document is the one described by the map.
+   *
+   * @return {@code false} if the map's document has not been laid out.
+   */
+  private boolean scroll(
+    final SourceMap map, final int offset, final JScrollPane scrollPane ) {
+    if( map != mSourceMap ) {
+      return false;
+    }
+
+    final var boxes = getSourceBoxes();
+
+    if( boxes.size() != map.size() ) {
+      return false;
+    }
+
+    final var index = map.indexOf( offset );
+
+    if( index >= 0 ) {
+      scrollTo( boxes.get( index ), scrollPane );
+    }
+
+    return true;
+  }
+
+  /**
+   * Returns the boxes of the elements marked as having source offsets, in
+   * document order. The boxes are found once per layout.
+   *
+   * @return The boxes corresponding to the entries of a {@link SourceMap}.
+   */
+  private List<Box> getSourceBoxes() {
+    final var root = getRootBox();
+
+    if( root != mSourceRoot ) {
+      final var boxes = new ArrayList<Box>();
+
+      if( root != null ) {
+        collect( root, boxes );
       }
+
+      mSourceRoot = root;
+      mSourceBoxes = boxes;
+    }
+
+    return mSourceBoxes;
+  }
+
+  private static void collect( final Box box, final List<Box> boxes ) {
+    final var element = box.getElement();
+
+    if( element != null && element.hasAttribute( SourceMap.ATTRIBUTE ) ) {
+      // An element may be split into several boxes.
+      if( boxes.isEmpty() || boxes.getLast().getElement() != element ) {
+        boxes.add( box );
+      }
+
+      return;
     }
 
-    scrollTo( box, scrollPane );
+    for( int i = 0, count = box.getChildCount(); i < count; i++ ) {
+      collect( box.getChild( i ), boxes );
+    }
   }
 
   /**
@@ -188,17 +299,6 @@ public final class FlyingSaucerPanel extends XHTMLPanel
     return new Point( x, y );
   }
 
-  /**
-   * Delegates to the {@link SharedContext}.
-   *
-   * @param id The HTML element identifier to retrieve in {@link Box} form.
-   * @return The {@link Box} that corresponds to the given element ID, or
-   * {@code null} if none found.
-   */
-  Box getBoxById( final String id ) {
-    return getSharedContext().getBoxById( id );
-  }
-
   /**
    * Suppress scrolling to the top on updates.
    */
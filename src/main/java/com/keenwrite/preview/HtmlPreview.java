@@ -78,15 +78,26 @@ public final class HtmlPreview extends SwingNode implements ComponentListener {
 
   private static final URL HTML_STYLE_PREVIEW = toUrl( STYLESHEET_PREVIEW );
 
-  /**
-   * Reusing this buffer prevents repetitious memory re-allocations.
-   */
-  private final StringBuilder mDocument = new StringBuilder( 65536 );
-
   private HtmlRenderer mPreview;
   private JScrollPane mScrollPane;
   private String mBaseUriPath = "";
-  private String mHead;
+
+  /**
+   * The doctype, head, and empty body, parsed once per change to the head.
+   * Each document is parsed directly into the body of a copy of this shell,
+   * which avoids concatenating and then parsing the entire document.
+   */
+  private volatile org.jsoup.nodes.Document mShell;
+
+  /**
+   * The most recently rendered HTML, kept for re-rendering.
+   */
+  private volatile String mHtml = "";
+
+  /**
+   * Offsets of the elements in the most recently rendered HTML.
+   */
+  private volatile SourceMap mSourceMap = SourceMap.EMPTY;
 
   private volatile boolean mScrollLocked;
   private final JButton mScrollLockButton = new JButton();
@@ -100,13 +111,15 @@ public final class HtmlPreview extends SwingNode implements ComponentListener {
    */
   public HtmlPreview( final Workspace workspace ) {
     mWorkspace = workspace;
-    mHead = generateHead();
+    mShell = generateShell();
 
     // Attempts to prevent a flash of black un-styled content upon load.
     setStyle( "-fx-background-color: white;" );
 
     invokeLater( () -> {
-      mPreview = new FlyingSaucerPanel();
+      mPreview = new FlyingSaucerPanel(
+        () -> mWorkspace.getFile( KEY_CACHE_DIR ).toPath()
+      );
       mScrollPane = new JScrollPane( (Component) mPreview );
       final var verticalBar = mScrollPane.getVerticalScrollBar();
       final var verticalPanel = new JPanel( new BorderLayout() );
@@ -156,12 +169,19 @@ public final class HtmlPreview extends SwingNode implements ComponentListener {
    * @param html The new HTML document to display.
    */
   public void render( final String html ) {
-    final var jsoupDoc = DocumentConverter.parse( decorate( html ) );
+    final var map = SourceMap.getPublished();
+
+    mHtml = html;
+    mSourceMap = map;
+
+    final var jsoupDoc = mShell.clone();
+    jsoupDoc.body().html( html );
+
     final var doc = CONVERTER.fromJsoup( jsoupDoc );
     final var uri = getBaseUri();
 
     doc.setDocumentURI( uri );
-    invokeLater( () -> mPreview.render( doc, uri ) );
+    invokeLater( () -> mPreview.render( doc, uri, map ) );
     DocumentChangedEvent.fire( html );
   }
 
@@ -177,23 +197,18 @@ public final class HtmlPreview extends SwingNode implements ComponentListener {
    * Recomputes the HTML head then renders the document.
    */
   private void rerender() {
-    mHead = generateHead();
-    render( mDocument.toString() );
+    mShell = generateShell();
+    render( mHtml );
   }
 
   /**
-   * Attaches the HTML head prefix and HTML tail suffix to the given HTML
-   * string.
+   * Parses the HTML head prefix and HTML tail suffix into a document that
+   * has an empty body, ready to receive the content to render.
    *
-   * @param html The HTML to adorn with opening and closing tags.
-   * @return A complete HTML document, ready for rendering.
+   * @return A complete HTML document having no content.
    */
-  private String decorate( final String html ) {
-    mDocument.setLength( 0 );
-    mDocument.append( html );
-
-    // Head and tail must be separate from document due to re-rendering.
-    return mHead + mDocument + HTML_TAIL;
+  private org.jsoup.nodes.Document generateShell() {
+    return DocumentConverter.parse( generateHead() + HTML_TAIL );
   }
 
   /**
@@ -239,15 +254,16 @@ public final class HtmlPreview extends SwingNode implements ComponentListener {
   }
 
   /**
-   * Scrolls to the closest element matching the given identifier without
-   * waiting for the document to be ready.
+   * Scrolls to the element rendered from the source text at the given
+   * offset. This uses the offsets recorded when the document was rendered,
+   * so the document need not be rendered again when only the caret moves.
    *
-   * @param id Scroll the preview pane to this unique paragraph identifier.
+   * @param offset The offset into the source document (e.g., the caret).
    */
-  public void scrollTo( final String id ) {
+  public void scrollTo( final int offset ) {
     if( !mScrollLocked ) {
-      mPreview.scrollTo( id, mScrollPane );
-      mScrollPane.repaint();
+      final var map = mSourceMap;
+      invokeLater( () -> mPreview.scrollTo( map, offset, mScrollPane ) );
     }
   }
 
@@ -14,17 +14,22 @@ public interface HtmlRenderer {
    *
    * @param doc     The document to render.
    * @param baseUri The document's relative URI.
+   * @param map     The offsets into the source document of the document's
+   *                marked elements.
    */
-  void render( final Document doc, final String baseUri );
+  void render( final Document doc, final String baseUri, final SourceMap map );
 
   /**
-   * Scrolls the given {@link JScrollPane} to the first HTML element that
-   * has an {@code id} attribute that matches the given identifier.
+   * Scrolls the given {@link JScrollPane} to the HTML element rendered from
+   * the source text at the given offset. If the document described by the
+   * map has not been laid out, this scrolls once it has been.
    *
-   * @param id         The HTML element identifier.
+   * @param map        The offsets of the rendered document's elements.
+   * @param offset     The offset into the source document (e.g., the caret).
    * @param scrollPane The GUI widget that controls scrolling.
    */
-  void scrollTo( final String id, final JScrollPane scrollPane );
+  void scrollTo(
+    final SourceMap map, final int offset, final JScrollPane scrollPane );
 
   /**
    * Clears the cache (e.g., so that images are re-rendered using updated
@@ -4,37 +4,61 @@
  */
 package com.keenwrite.preview;
 
+import com.keenwrite.collections.GenerationalCache;
 import com.keenwrite.io.MediaType;
 import com.keenwrite.ui.adapters.ReplacedElementAdapter;
-import io.sf.carte.echosvg.transcoder.TranscoderException;
 import org.w3c.dom.Element;
 import org.xhtmlrenderer.extend.ReplacedElement;
 import org.xhtmlrenderer.extend.UserAgentCallback;
 import org.xhtmlrenderer.layout.LayoutContext;
 import org.xhtmlrenderer.render.BlockBox;
+import org.xhtmlrenderer.swing.EmptyReplacedElement;
 import org.xhtmlrenderer.swing.ImageReplacedElement;
 
 import javax.imageio.ImageIO;
 import java.awt.image.BufferedImage;
-import java.io.IOException;
 import java.net.URI;
 import java.net.URISyntaxException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
-import java.text.ParseException;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Supplier;
 
 import static com.keenwrite.events.StatusEvent.clue;
+import static com.keenwrite.events.StatusEvent.progress;
 import static com.keenwrite.io.downloads.DownloadManager.open;
 import static com.keenwrite.preview.SvgRasterizer.BROKEN_IMAGE_PLACEHOLDER;
 import static com.keenwrite.preview.SvgRasterizer.rasterize;
 import static com.keenwrite.processors.markdown.extensions.tex.TexNode.HTML_TEX;
 import static com.keenwrite.util.ProtocolScheme.getProtocol;
+import static java.lang.Math.max;
+import static java.lang.Math.min;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.util.concurrent.Executors.newFixedThreadPool;
+import static javax.swing.SwingUtilities.invokeLater;
 
 /**
  * Responsible for running {@link SvgRasterizer} on SVG images detected within
  * a document to transform them into rasterized versions. This will fall back
  * to loading rasterized images from a file if not detected as SVG.
+ * <p>
+ * Images are fetched, decoded, and rasterized by a pool of worker threads so
+ * that layout need not wait for them. Until an image is ready, layout is
+ * given a {@link PlaceholderElement}; once images are ready, the given
+ * callback is run on the Swing event dispatch thread to lay out the document
+ * again.
+ * </p>
+ * <p>
+ * Rasterized images are kept for as long as the documents being laid out
+ * use them, however many images there are. Each image requests at most one
+ * layout, so layout and rasterization cannot feed each other indefinitely.
+ * </p>
  */
 public final class ImageReplacedElementFactory extends ReplacedElementAdapter {
 
@@ -44,6 +68,77 @@ public final class ImageReplacedElementFactory extends ReplacedElementAdapter {
   private static final ImageReplacedElement BROKEN_IMAGE =
     createElement( BROKEN_IMAGE_PLACEHOLDER );
 
+  /**
+   * Vector graphics files are rasterized at screen resolution.
+   */
+  private static final double SVG_DPI = 96;
+
+  /**
+   * Rasterizes images in parallel, off the Swing event dispatch thread.
+   */
+  private static final ExecutorService sExecutor = newFixedThreadPool(
+    max( 1, min( 4, Runtime.getRuntime().availableProcessors() - 1 ) ),
+    runnable -> {
+      final var thread = new Thread( runnable, "image-rasterizer" );
+      thread.setDaemon( true );
+      return thread;
+    }
+  );
+
+  /**
+   * Marks elements that stand in for images that are not yet rasterized.
+   * These elements must not be cached.
+   */
+  static final class PlaceholderElement extends EmptyReplacedElement {
+    private PlaceholderElement( final int width, final int height ) {
+      super( width, height );
+    }
+  }
+
+  private static final PlaceholderElement EMPTY =
+    new PlaceholderElement( 0, 0 );
+
+  private final RasterCache mCache;
+
+  /**
+   * Maps image sources to images that are being, or have been, rasterized.
+   */
+  private final GenerationalCache<String, Future<BufferedImage>> mRasters =
+    new GenerationalCache<>();
+
+  /**
+   * Image sources that have requested a layout since the cache was last
+   * cleared. An image that is rasterized again, after its raster was
+   * discarded, does not request another layout. Replaced when the cache is
+   * cleared so that rasterizers that were already running cannot suppress
+   * the layouts of their replacements.
+   */
+  private Set<String> mLaidOut = new HashSet<>();
+
+  /**
+   * Coalesces requests to lay out the document after images are ready.
+   */
+  private final AtomicBoolean mLayoutPending = new AtomicBoolean();
+
+  private final Runnable mRelayout;
+
+  /**
+   * Creates a factory that keeps rasterized vector graphics and equations in
+   * the given cache.
+   *
+   * @param cache    Stores rasterized images between sessions.
+   * @param relayout Called on the Swing event dispatch thread after one or
+   *                 more images have been rasterized.
+   */
+  ImageReplacedElementFactory(
+    final RasterCache cache, final Runnable relayout ) {
+    assert cache != null;
+    assert relayout != null;
+
+    mCache = cache;
+    mRelayout = relayout;
+  }
+
   @Override
   public ReplacedElement createReplacedElement(
     final LayoutContext c,
@@ -54,14 +149,11 @@ public final class ImageReplacedElementFactory extends ReplacedElementAdapter {
     final var e = box.getElement();
 
     try {
-      final BufferedImage raster =
-        switch( e.getNodeName() ) {
-          case HTML_IMAGE -> createHtmlImage( box, e, uac );
-          case HTML_TEX -> createTexImage( e );
-          default -> null;
-        };
-
-      return createElement( raster );
+      return switch( e.getNodeName() ) {
+        case HTML_IMAGE -> createHtmlImage( box, e, uac );
+        case HTML_TEX -> createTexImage( e );
+        default -> null;
+      };
     } catch( final Exception ex ) {
       clue( "Main.status.image.request.error.create", ex );
     }
@@ -70,56 +162,66 @@ public final class ImageReplacedElementFactory extends ReplacedElementAdapter {
   }
 
   /**
-   * Convert an HTML element to a raster graphic.
+   * Convert an HTML element to a raster graphic. The element is resolved
+   * immediately, but the image is rasterized asynchronously.
    */
-  private static BufferedImage createHtmlImage(
+  private ReplacedElement createHtmlImage(
     final BlockBox box,
     final Element e,
-    final UserAgentCallback uac )
-    throws TranscoderException, URISyntaxException, IOException {
+    final UserAgentCallback uac ) throws URISyntaxException {
     final var source = e.getAttribute( HTML_IMAGE_SRC );
     final var mediaType = MediaType.fromFilename( source );
-
-    URI uri = null;
-    BufferedImage raster = null;
-
     final var w = box.getContentWidth();
 
     if( getProtocol( source ).isRemote() ) {
-      try( final var response = open( source );
-           final var stream = response.getInputStream() ) {
+      return createElement( STR."\{w}:\{source}", () -> EMPTY, () -> {
+        try( final var response = open( source );
+             final var stream = response.getInputStream() ) {
 
-        // Rasterize SVG from URL resource.
-        raster = response.isSvg()
-          ? rasterize( stream, w )
-          : ImageIO.read( stream );
+          // Rasterize SVG from URL resource.
+          final var raster = response.isSvg()
+            ? rasterize( stream, w )
+            : ImageIO.read( stream );
 
-        clue( "Main.status.image.request.fetch", source );
-      }
-    }
-    else if( mediaType.isSvg() ) {
-      uri = resolve( source, uac, e );
+          progress( "Main.status.image.request.fetch", source );
+          return raster;
+        }
+      } );
     }
 
-    if( uri != null && w > 0 ) {
-      raster = rasterize( uri, w );
+    if( mediaType.isSvg() && w > 0 ) {
+      final var uri = resolve( source, uac, e );
+
+      return createElement( STR."\{w}:\{uri}", () -> EMPTY, () -> {
+        final var raster = "file".equalsIgnoreCase( uri.getScheme() )
+          ? mCache.get(
+          Files.readAllBytes( Paths.get( uri ) ), w, SVG_DPI,
+          () -> rasterize( uri, w ) )
+          : rasterize( uri, w );
+
+        // Image path resolved; image rendered successfully.
+        clue();
+        return raster;
+      } );
     }
 
     // Not an SVG, attempt to read a local rasterized image.
-    if( raster == null && mediaType.isImage() ) {
-      uri = resolve( source, uac, e );
+    if( mediaType.isImage() ) {
+      final var uri = resolve( source, uac, e );
 
-      final var path = Paths.get( uri );
+      return createElement(
+        uri.toString(), () -> placeholder( uri, w ), () -> {
+          try( final var stream = Files.newInputStream( Paths.get( uri ) ) ) {
+            final var raster = ImageIO.read( stream );
 
-      try( final var stream = Files.newInputStream( path ) ) {
-        raster = ImageIO.read( stream );
-      }
+            // Image path resolved; image rendered successfully.
+            clue();
+            return raster;
+          }
+        } );
     }
 
-    // Image path resolved; image rendered successfully.
-    clue();
-
-    return raster;
+    return BROKEN_IMAGE;
   }
 
   /**
@@ -142,7 +244,7 @@ public final class ImageReplacedElementFactory extends ReplacedElementAdapter {
       final var baseUri = new URI( uac.getBaseURL() );
       final var resolved = baseUri.resolve( nSource );
       final var path = resolved.normalize();
-      clue( "Main.status.image.request.resolve", path );
+      progress( "Main.status.image.request.resolve", path );
 
       return path.isAbsolute() ? path : resolve( nSource, e );
     } catch( final Exception ex ) {
@@ -160,9 +262,141 @@ public final class ImageReplacedElementFactory extends ReplacedElementAdapter {
   /**
    * Convert the TeX element to a raster graphic.
    */
-  private BufferedImage createTexImage( final Element e )
-    throws TranscoderException, ParseException {
-    return rasterize( MathRenderer.toString( e.getTextContent() ) );
+  private ReplacedElement createTexImage( final Element e ) {
+    final var tex = e.getTextContent();
+    final var size = MathRenderer.getSize();
+
+    return createElement(
+      STR."\{size}:\{tex}", () -> EMPTY, () -> mCache.get(
+        tex.getBytes( UTF_8 ), 0, size,
+        () -> rasterize( MathRenderer.toString( tex ) )
+      ) );
+  }
+
+  /**
+   * Returns the rasterized image for the given key, if ready. Otherwise,
+   * this starts rasterizing the image, if not yet started, and returns a
+   * placeholder.
+   *
+   * @param key         Uniquely identifies the rasterized image.
+   * @param placeholder Provides an element until the image is rasterized.
+   * @param rasterizer  Creates the image, called from a worker thread.
+   * @return The rasterized image, or a placeholder if not yet rasterized.
+   */
+  private ReplacedElement createElement(
+    final String key,
+    final Supplier<PlaceholderElement> placeholder,
+    final Callable<BufferedImage> rasterizer ) {
+    final Future<BufferedImage> future;
+
+    synchronized( mRasters ) {
+      final var laidOut = mLaidOut;
+
+      future = mRasters.computeIfAbsent(
+        key, _ -> sExecutor.submit( () -> {
+          try {
+            return rasterizer.call();
+          } finally {
+            requestLayout( laidOut, key );
+          }
+        } )
+      );
+    }
+
+    if( !future.isDone() ) {
+      return placeholder.get();
+    }
+
+    try {
+      return createElement( future.get() );
+    } catch( final Exception ex ) {
+      // Failures are kept so that layout does not retry indefinitely; the
+      // image is attempted again after the cache is cleared.
+      clue( "Main.status.image.request.error.create", ex );
+    }
+
+    return BROKEN_IMAGE;
+  }
+
+  /**
+   * Discards all rasterized images so that they will be created anew.
+   */
+  public void clearCache() {
+    synchronized( mRasters ) {
+      mRasters.clear();
+      mLaidOut = new HashSet<>();
+    }
+  }
+
+  /**
+   * Called when a new document is about to be laid out. Images that were
+   * not used by the previous document are discarded.
+   */
+  void advance() {
+    synchronized( mRasters ) {
+      mRasters.advance();
+    }
+  }
+
+  /**
+   * Returns a placeholder having the dimensions of the given local image,
+   * scaled down to fit the given width. Only the image header is read.
+   *
+   * @param uri   The image file to measure.
+   * @param width The width that the image must fit, in pixels.
+   * @return A placeholder for the image, which is empty if the image
+   * dimensions cannot be determined.
+   */
+  private static PlaceholderElement placeholder(
+    final URI uri, final int width ) {
+    try( final var stream = ImageIO.createImageInputStream(
+      Paths.get( uri ).toFile() ) ) {
+      final var readers = ImageIO.getImageReaders( stream );
+
+      if( readers.hasNext() ) {
+        final var reader = readers.next();
+
+        try {
+          reader.setInput( stream, true, true );
+
+          final var w = reader.getWidth( 0 );
+          final var h = reader.getHeight( 0 );
+          final var scale = width > 0 && w > width ? (double) width / w : 1;
+
+          return new PlaceholderElement(
+            (int) (w * scale), (int) (h * scale) );
+        } finally {
+          reader.dispose();
+        }
+      }
+    } catch( final Exception ignored ) {
+      // The rasterizer reports problems reading the image.
+    }
+
+    return EMPTY;
+  }
+
+  /**
+   * Requests that the document be laid out again, coalescing requests made
+   * before the layout takes place. Only the first image rasterized for a
+   * given source requests a layout.
+   *
+   * @param laidOut The sources that have already requested a layout.
+   * @param key     The source of the image that was rasterized.
+   */
+  private void requestLayout( final Set<String> laidOut, final String key ) {
+    synchronized( mRasters ) {
+      if( !laidOut.add( key ) ) {
+        return;
+      }
+    }
+
+    if( mLayoutPending.compareAndSet( false, true ) ) {
+      invokeLater( () -> {
+        mLayoutPending.set( false );
+        mRelayout.run();
+      } );
+    }
   }
 
   private static ImageReplacedElement createElement( final BufferedImage bi ) {
@@ -1,12 +1,15 @@
 /* Copyright 2020-2021 White Magic Software, Ltd. -- All rights reserved. */
 package com.keenwrite.preview;
 
+import com.keenwrite.collections.BoundedCache;
 import com.keenwrite.dom.DocumentParser;
 import com.whitemagicsoftware.keentype.lib.KeenType;
 import javafx.beans.property.DoubleProperty;
 import javafx.beans.property.SimpleDoubleProperty;
 import org.w3c.dom.Document;
 
+import java.util.Map;
+
 import static com.keenwrite.events.StatusEvent.clue;
 
 /**
@@ -26,20 +29,86 @@ public final class MathRenderer {
 
   private static final DoubleProperty sSize = new SimpleDoubleProperty( 2 );
 
+  /**
+   * Identifies a typeset equation.
+   *
+   * @param tex  The mathematical expression, without sigils.
+   * @param size The magnification used when typesetting.
+   */
+  private record Key( String tex, double size ) { }
+
+  /**
+   * Retains the typeset SVG of an equation, along with the forms derived
+   * from the SVG, which are created upon first request.
+   */
+  private static final class Equation {
+    private final String mSvg;
+    private Document mDocument;
+    private String mElement;
+
+    private Equation( final String svg ) {
+      mSvg = svg;
+    }
+
+    private synchronized Document getDocument() {
+      if( mDocument == null ) {
+        mDocument = DocumentParser.parse( mSvg );
+      }
+
+      return mDocument;
+    }
+
+    private synchronized String getElement() {
+      if( mElement == null ) {
+        mElement = SvgRasterizer.toSvg( getDocument().getDocumentElement() );
+      }
+
+      return mElement;
+    }
+  }
+
+  /**
+   * Equations that have been typeset, which avoids typesetting the same
+   * equation for every render and export.
+   */
+  private static final Map<Key, Equation> sEquations =
+    new BoundedCache<>( 1024 );
+
   private MathRenderer() { }
 
   public static void bindSize( final DoubleProperty size ) {
     sSize.bind( size );
   }
 
+  /**
+   * Returns the magnification applied to equations when rendered.
+   *
+   * @return The equation scaling factor.
+   */
+  public static double getSize() {
+    return sSize.doubleValue();
+  }
+
   /**
    * Converts a TeX-based equation into an SVG document.
    *
    * @param equation A mathematical expression to render, without sigils.
    * @return The given string with all formulas transformed into SVG format.
+   * The caller may modify the document.
    */
   public static Document toDocument( final String equation ) {
-    return DocumentParser.parse( toString( equation ) );
+    return (Document) lookup( equation ).getDocument().cloneNode( true );
+  }
+
+  /**
+   * Converts a TeX-based equation into an SVG element, serialized for
+   * embedding into an HTML document.
+   *
+   * @param equation A mathematical expression to render, without sigils.
+   * @return The given formula transformed into an SVG element.
+   */
+  public static String toElement( final String equation ) {
+    return lookup( equation ).getElement();
   }
 
   /**
@@ -49,6 +118,42 @@ public final class MathRenderer {
    * @return The given string with all formulas transformed into SVG format.
    */
   public static String toString( final String equation ) {
-    return sTypesetter.toSvg( "$" + equation + "$", sSize.doubleValue() );
+    return lookup( equation ).mSvg;
+  }
+
+  /**
+   * Returns the typeset equation at the current size, typesetting it if
+   * it has not been typeset previously.
+   *
+   * @param equation A mathematical expression to render, without sigils.
+   * @return The typeset equation.
+   */
+  private static Equation lookup( final String equation ) {
+    final var key = new Key( equation, sSize.doubleValue() );
+
+    synchronized( sEquations ) {
+      final var cached = sEquations.get( key );
+
+      if( cached != null ) {
+        return cached;
+      }
+    }
+
+    final var typeset = new Equation( typeset( key ) );
+
+    synchronized( sEquations ) {
+      final var cached = sEquations.putIfAbsent( key, typeset );
+      return cached == null ? typeset : cached;
+    }
+  }
+
+  /**
+   * Equations are typeset one at a time because the typesetter is shared.
+   *
+   * @param key The equation and size to typeset.
+   * @return The equation in SVG format.
+   */
+  private static synchronized String typeset( final Key key ) {
+    return sTypesetter.toSvg( "$" + key.tex() + "$", key.size() );
   }
 }
@@ -0,0 +1,369 @@
+/* Copyright 2024 White Magic Software, Ltd. -- All rights reserved.
+ *
+ * SPDX-License-Identifier: MIT
+ */
+package com.keenwrite.preview;
+
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.function.Supplier;
+
+import static com.keenwrite.events.StatusEvent.clue;
+import static com.keenwrite.preview.SvgRasterizer.BROKEN_IMAGE_PLACEHOLDER;
+import static com.keenwrite.util.DataTypeConverter.hash;
+import static com.keenwrite.util.DataTypeConverter.toHex;
+import static java.awt.image.BufferedImage.TYPE_INT_ARGB;
+import static java.lang.Math.round;
+import static java.lang.String.format;
+import static java.nio.file.StandardCopyOption.ATOMIC_MOVE;
+import static java.nio.file.StandardCopyOption.REPLACE_EXISTING;
+import static java.nio.file.StandardOpenOption.READ;
+import static java.nio.file.StandardOpenOption.WRITE;
+
+/**
+ * Responsible for keeping rasterized images in a directory so that vector
+ * graphics and equations need not be rasterized again after the preview is
+ * resized or the application is restarted. Images are addressed by a hash of
+ * their source content, their width, and their scale. Pixels are stored
+ * uncompressed so that reading an image is a single bulk copy. Files are
+ * read into heap buffers rather than mapped, because a mapped file cannot
+ * be deleted or replaced on some platforms until the mapping is garbage
+ * collected. When the total size of the images exceeds a limit, the least
+ * recently used images are deleted.
+ */
+final class RasterCache {
+  /**
+   * Identifies files written by this class ("KWRC").
+   */
+  private static final int MAGIC = 0x4B575243;
+
+  /**
+   * Number of bytes for the magic number, width, and height.
+   */
+  private static final int HEADER_SIZE = 3 * Integer.BYTES;
+
+  private static final String SUBDIRECTORY = "rasters";
+  private static final String EXTENSION = ".raster";
+
+  /**
+   * Maximum number of bytes to keep on disk before evicting images.
+   */
+  private static final long MAX_SIZE = 256L * 1024 * 1024;
+
+  /**
+   * Rasters larger than this number of pixels are not cached.
+   */
+  private static final long MAX_PIXELS = 16L * 1024 * 1024;
+
+  private final Supplier<Path> mCacheDir;
+
+  /**
+   * Maps cached files to their sizes, in least recently used order.
+   */
+  private final Map<Path, Long> mEntries =
+    new LinkedHashMap<>( 256, 0.75f, true );
+
+  private final Object mMutex = new Object();
+
+  /**
+   * Directory last scanned for cached files, which can change when the user
+   * updates the cache directory preference.
+   */
+  private Path mDir;
+  private long mSize;
+
+  /**
+   * Creates a cache that stores files beneath the given directory.
+   *
+   * @param cacheDir Provides the directory for cache files.
+   */
+  RasterCache( final Supplier<Path> cacheDir ) {
+    assert cacheDir != null;
+
+    mCacheDir = cacheDir;
+  }
+
+  /**
+   * Returns the image having the given source content, width, and scale.
+   * If the image is not cached, the given rasterizer creates the image,
+   * which is then added to the cache.
+   *
+   * @param source     Content that uniquely determines the image's pixels.
+   * @param width      Width of the image, in pixels, or 0 if intrinsic.
+   * @param scale      Resolution or magnification of the image.
+   * @param rasterizer Creates the image when not cached.
+   * @return The cached or newly rasterized image.
+   * @throws Exception The rasterizer could not create the image.
+   */
+  BufferedImage get(
+    final byte[] source,
+    final int width,
+    final double scale,
+    final Callable<BufferedImage> rasterizer ) throws Exception {
+    final var path = toPath( source, width, scale );
+
+    if( path != null ) {
+      final var image = read( path );
+
+      if( image != null ) {
+        return image;
+      }
+    }
+
+    final var image = rasterizer.call();
+
+    if( path != null && image != null && image != BROKEN_IMAGE_PLACEHOLDER ) {
+      write( path, image );
+    }
+
+    return image;
+  }
+
+  /**
+   * Maps the image's key to a file in the cache directory.
+   *
+   * @return The path to the cached image, or {@code null} if the cache
+   * directory cannot be used.
+   */
+  private Path toPath(
+    final byte[] source, final int width, final double scale ) {
+    try {
+      final var dir = getDir();
+
+      return dir == null
+        ? null
+        : dir.resolve( format(
+        "%s-%d-%d%s",
+        toHex( hash( source ) ), width, round( scale * 1000 ), EXTENSION
+      ) );
+    } catch( final Exception ex ) {
+      clue( ex );
+      return null;
+    }
+  }
+
+  /**
+   * Reads the image at the given path, if present.
+   *
+   * @param path The file containing a cached image.
+   * @return The image, or {@code null} when not cached.
+   */
+  private BufferedImage read( final Path path ) {
+    synchronized( mMutex ) {
+      if( mEntries.get( path ) == null ) {
+        return null;
+      }
+    }
+
+    try( final var channel = FileChannel.open( path, READ ) ) {
+      final var header = ByteBuffer.allocate( HEADER_SIZE );
+      fill( channel, header );
+
+      final var w = header.getInt( Integer.BYTES );
+      final var h = header.getInt( 2 * Integer.BYTES );
+      final var pixelsSize = (long) w * h * Integer.BYTES;
+
+      if( header.getInt( 0 ) != MAGIC || w <= 0 || h <= 0 ||
+        (long) w * h > MAX_PIXELS ||
+        channel.size() != HEADER_SIZE + pixelsSize ) {
+        throw new IOException( path.toString() );
+      }
+
+      final var buffer = ByteBuffer.allocate( (int) pixelsSize );
+      fill( channel, buffer );
+
+      final var image = new BufferedImage( w, h, TYPE_INT_ARGB );
+      final var pixels = (DataBufferInt) image.getRaster().getDataBuffer();
+
+      buffer.rewind();
+      buffer.asIntBuffer().get( pixels.getData() );
+
+      // Persist the recent use so that eviction order survives restarts.
+      Files.setLastModifiedTime(
+        path, FileTime.fromMillis( System.currentTimeMillis() )
+      );
+
+      return image;
+    } catch( final Exception ex ) {
+      // Corrupt or missing cache files are rasterized anew.
+      remove( path );
+      return null;
+    }
+  }
+
+  /**
+   * Writes the given image to the cache, evicting old images as needed. The
+   * image is written to a temporary file first so that partially written
+   * files are never read.
+   *
+   * @param path  The file to contain the cached image.
+   * @param image The image to cache.
+   */
+  private void write( final Path path, final BufferedImage image ) {
+    final var w = image.getWidth();
+    final var h = image.getHeight();
+    final var pixels = (long) w * h;
+
+    if( pixels > MAX_PIXELS ) {
+      return;
+    }
+
+    final var size = HEADER_SIZE + pixels * Integer.BYTES;
+    final var buffer = ByteBuffer.allocate( (int) size );
+
+    buffer.putInt( MAGIC ).putInt( w ).putInt( h );
+    buffer.asIntBuffer().put( image.getRGB( 0, 0, w, h, null, 0, w ) );
+    buffer.rewind();
+
+    Path temp = null;
+
+    try {
+      temp = Files.createTempFile( path.getParent(), null, null );
+
+      try( final var channel = FileChannel.open( temp, WRITE ) ) {
+        while( buffer.hasRemaining() ) {
+          channel.write( buffer );
+        }
+      }
+
+      Files.move( temp, path, ATOMIC_MOVE, REPLACE_EXISTING );
+
+      synchronized( mMutex ) {
+        final var previous = mEntries.put( path, size );
+        mSize += size - (previous == null ? 0 : previous);
+        evict();
+      }
+    } catch( final Exception ex ) {
+      clue( ex );
+    } finally {
+      deleteTemp( temp );
+    }
+  }
+
+  /**
+   * Reads from the given channel until the buffer is full.
+   *
+   * @param channel The channel to read.
+   * @param buffer  The buffer to fill.
+   * @throws IOException The channel ended before the buffer was filled.
+   */
+  private static void fill(
+    final FileChannel channel, final ByteBuffer buffer ) throws IOException {
+    while( buffer.hasRemaining() ) {
+      if( channel.read( buffer ) < 0 ) {
+        throw new IOException( "Truncated raster" );
+      }
+    }
+  }
+
+  /**
+   * Deletes the temporary file left behind by a failed write, if any.
+   *
+   * @param temp The temporary file, which no longer exists after a
+   *             successful move, or {@code null} if none was created.
+   */
+  private static void deleteTemp( final Path temp ) {
+    if( temp != null ) {
+      try {
+        Files.deleteIfExists( temp );
+      } catch( final IOException ex ) {
+        clue( ex );
+      }
+    }
+  }
+
+  /**
+   * Deletes the least recently used images until the cache fits.
+   */
+  private void evict() {
+    final var iterator = mEntries.entrySet().iterator();
+
+    while( mSize > MAX_SIZE && iterator.hasNext() ) {
+      final var eldest = iterator.next();
+
+      try {
+        Files.deleteIfExists( eldest.getKey() );
+      } catch( final IOException ex ) {
+        clue( ex );
+      }
+
+      mSize -= eldest.getValue();
+      iterator.remove();
+    }
+  }
+
+  private void remove( final Path path ) {
+    synchronized( mMutex ) {
+      final var size = mEntries.remove( path );
+
+      if( size != null ) {
+        mSize -= size;
+      }
+    }
+
+    try {
+      Files.deleteIfExists( path );
+    } catch( final IOException ex ) {
+      clue( ex );
+    }
+  }
+
+  /**
+   * Returns the directory for cached images, scanning it for existing
+   * images whenever the directory changes.
+   *
+   * @return The directory, or {@code null} if it cannot be created.
+   */
+  private Path getDir() throws IOException {
+    final var cacheDir = mCacheDir.get();
+
+    if( cacheDir == null ) {
+      return null;
+    }
+
+    final var dir = cacheDir.resolve( SUBDIRECTORY );
+
+    synchronized( mMutex ) {
+      if( !dir.equals( mDir ) ) {
+        Files.createDirectories( dir );
+
+        mEntries.clear();
+        mSize = 0;
+
+        try( final var files = Files.list( dir ) ) {
+          files
+            .filter( file -> file.toString().endsWith( EXTENSION ) )
+            .sorted( ( a, b ) -> lastModified( a ).compareTo(
+              lastModified( b ) ) )
+            .forEach( file -> {
+              final var size = file.toFile().length();
+              mEntries.put( file, size );
+              mSize += size;
+            } );
+        }
+
+        mDir = dir;
+        evict();
+      }
+    }
+
+    return dir;
+  }
+
+  private static FileTime lastModified( final Path path ) {
+    try {
+      return Files.getLastModifiedTime( path );
+    } catch( final IOException ex ) {
+      return FileTime.fromMillis( 0 );
+    }
+  }
+}
@@ -0,0 +1,148 @@
+/* Copyright 2024 White Magic Software, Ltd. -- All rights reserved.
+ *
+ * SPDX-License-Identifier: MIT
+ */
+package com.keenwrite.preview;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static com.keenwrite.events.StatusEvent.clue;
+import static java.lang.Math.min;
+import static java.util.concurrent.Executors.newSingleThreadScheduledExecutor;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+
+/**
+ * Responsible for running document renders one at a time, in the background,
+ * such that only the most recent request for each key (e.g., each editor) is
+ * run. Requests that arrive while another request having the same key is
+ * waiting replace the waiting request, which is dropped. Requests having
+ * different keys never replace each other. A render that is already running
+ * is allowed to finish because the processors cannot be safely interrupted.
+ * <p>
+ * Requests are delayed by half the average render time, up to a limit, so
+ * that rapid edits to large documents are coalesced into fewer renders while
+ * small documents render immediately.
+ * </p>
+ */
+public final class RenderScheduler {
+  /**
+   * Longest delay before running a request, in milliseconds.
+   */
+  private static final long MAX_DELAY = 200;
+
+  /**
+   * Weight given to the most recent render time in the running average,
+   * expressed as a power of two (i.e., 1/8).
+   */
+  private static final int AVERAGE_SHIFT = 3;
+
+  private final ScheduledExecutorService mExecutor =
+    newSingleThreadScheduledExecutor( runnable -> {
+      final var thread = new Thread( runnable, "preview-renderer" );
+      thread.setDaemon( true );
+      return thread;
+    } );
+
+  /**
+   * Maps keys to their waiting renders, in the order first requested.
+   */
+  private final Map<Object, Runnable> mPending = new LinkedHashMap<>();
+  private final AtomicBoolean mScheduled = new AtomicBoolean();
+  private final AtomicLong mDropped = new AtomicLong();
+
+  /**
+   * Running average of the render time, in nanoseconds.
+   */
+  private final AtomicLong mAverage = new AtomicLong();
+
+  /**
+   * Requests that the given render be run, replacing any request having the
+   * same key that has not yet started.
+   *
+   * @param key    Identifies the source of the render, such as an editor;
+   *               may be {@code null}.
+   * @param render The render to perform on a background thread.
+   */
+  public void schedule( final Object key, final Runnable render ) {
+    assert render != null;
+
+    synchronized( mPending ) {
+      if( mPending.put( key, render ) != null ) {
+        mDropped.incrementAndGet();
+      }
+    }
+
+    if( mScheduled.compareAndSet( false, true ) ) {
+      mExecutor.schedule( this::drain, getDelay(), MILLISECONDS );
+    }
+  }
+
+  /**
+   * Returns the number of renders that are waiting to run, which is at most
+   * one per key.
+   *
+   * @return The number of renders that have not started.
+   */
+  public int getQueueDepth() {
+    synchronized( mPending ) {
+      return mPending.size();
+    }
+  }
+
+  /**
+   * Returns the number of requests that were replaced by a newer request
+   * having the same key before they could run.
+   *
+   * @return The number of renders skipped.
+   */
+  public long getDropped() {
+    return mDropped.get();
+  }
+
+  /**
+   * Returns the delay applied to new requests, which adapts to the time
+   * taken by previous renders.
+   *
+   * @return The delay in milliseconds.
+   */
+  private long getDelay() {
+    return min( MAX_DELAY, NANOSECONDS.toMillis( mAverage.get() ) / 2 );
+  }
+
+  /**
+   * Runs the most recent request for each key, if any. Requests that arrive
+   * while running are scheduled to run afterwards.
+   */
+  private void drain() {
+    mScheduled.set( false );
+
+    final List<Runnable> renders;
+
+    synchronized( mPending ) {
+      renders = new ArrayList<>( mPending.values() );
+      mPending.clear();
+    }
+
+    for( final var render : renders ) {
+      final var began = System.nanoTime();
+
+      try {
+        render.run();
+      } catch( final Exception ex ) {
+        clue( ex );
+      } finally {
+        final var elapsed = System.nanoTime() - began;
+        mAverage.updateAndGet(
+          average -> average + ((elapsed - average) >> AVERAGE_SHIFT)
+        );
+      }
+    }
+  }
+}
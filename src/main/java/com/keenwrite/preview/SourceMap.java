@@ -0,0 +1,149 @@
+/* Copyright 2024 White Magic Software, Ltd. -- All rights reserved.
+ *
+ * SPDX-License-Identifier: MIT
+ */
+package com.keenwrite.preview;
+
+import java.util.Arrays;
+
+/**
+ * Responsible for relating offsets into a Markdown document to the top-level
+ * HTML elements rendered from it. Each such element is marked with the
+ * {@link #ATTRIBUTE} and its source offsets are kept in the same order, so
+ * the preview can find the element nearest to the caret by position alone,
+ * without rendering the document again.
+ */
+public final class SourceMap {
+  /**
+   * Marks the HTML elements that have entries in the map.
+   */
+  public static final String ATTRIBUTE = "data-source";
+
+  /**
+   * Used before any document has been rendered.
+   */
+  public static final SourceMap EMPTY = new SourceMap( new int[ 0 ], 0 );
+
+  /**
+   * The map of the document most recently rendered.
+   */
+  private static volatile SourceMap sPublished = EMPTY;
+
+  /**
+   * Pairs of starting and ending offsets for each element, in document order.
+   */
+  private final int[] mOffsets;
+  private final int mSize;
+
+  private SourceMap( final int[] offsets, final int size ) {
+    mOffsets = offsets;
+    mSize = size;
+  }
+
+  /**
+   * Replaces the map of the document being previewed. This must be called
+   * before the HTML rendered alongside the map is given to the preview.
+   *
+   * @param map The offsets of the elements in the rendered HTML.
+   */
+  public static void publish( final SourceMap map ) {
+    assert map != null;
+    sPublished = map;
+  }
+
+  /**
+   * Returns the map of the document most recently rendered.
+   *
+   * @return The map last published, or {@link #EMPTY}.
+   */
+  public static SourceMap getPublished() {
+    return sPublished;
+  }
+
+  /**
+   * Returns the number of marked elements.
+   *
+   * @return The number of entries in the map.
+   */
+  public int size() {
+    return mSize;
+  }
+
+  /**
+   * Finds the element that contains the given offset. An offset between two
+   * elements, such as a blank line, belongs to the following element.
+   *
+   * @param offset The offset into the document (e.g., the caret position).
+   * @return The index of the element, or {@code -1} if the map is empty.
+   */
+  public int indexOf( final int offset ) {
+    if( mSize == 0 ) {
+      return -1;
+    }
+
+    int lo = 0;
+    int hi = mSize - 1;
+
+    // Find the last element that begins at or before the offset.
+    while( lo < hi ) {
+      final int mid = (lo + hi + 1) >>> 1;
+
+      if( mOffsets[ mid << 1 ] <= offset ) {
+        lo = mid;
+      }
+      else {
+        hi = mid - 1;
+      }
+    }
+
+    return offset > mOffsets[ (lo << 1) + 1 ] && lo + 1 < mSize ? lo + 1 : lo;
+  }
+
+  /**
+   * Responsible for collecting element offsets as a document is rendered.
+   */
+  public static final class Builder {
+    private int[] mOffsets = new int[ 64 ];
+    private int mSize;
+
+    /**
+     * Appends an element's offsets to the map.
+     *
+     * @param began Offset into the document where the element's source begins.
+     * @param ended Offset into the document where the element's source ends.
+     */
+    public void add( final int began, final int ended ) {
+      if( (mSize << 1) + 2 > mOffsets.length ) {
+        mOffsets = Arrays.copyOf( mOffsets, mOffsets.length << 1 );
+      }
+
+      mOffsets[ mSize << 1 ] = began;
+      mOffsets[ (mSize << 1) + 1 ] = ended;
+      mSize++;
+    }
+
+    /**
+     * Appends the entries of another map, such as one rendered from a part
+     * of the document, moved by the given number of characters.
+     *
+     * @param map   The entries to append.
+     * @param delta The number of characters to add to every offset.
+     */
+    public void add( final SourceMap map, final int delta ) {
+      for( int i = 0, size = map.mSize << 1; i < size; i += 2 ) {
+        add( map.mOffsets[ i ] + delta, map.mOffsets[ i + 1 ] + delta );
+      }
+    }
+
+    /**
+     * Returns a map of the entries added so far.
+     *
+     * @return An immutable map.
+     */
+    public SourceMap build() {
+      return mSize == 0
+        ? EMPTY
+        : new SourceMap( Arrays.copyOf( mOffsets, mSize << 1 ), mSize );
+    }
+  }
+}
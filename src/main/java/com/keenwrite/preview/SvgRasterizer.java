@@ -36,7 +36,6 @@ import static io.sf.carte.echosvg.transcoder.image.ImageTranscoder.KEY_PIXEL_UNI
 import static io.sf.carte.echosvg.util.SVGConstants.SVG_HEIGHT_ATTRIBUTE;
 import static io.sf.carte.echosvg.util.SVGConstants.SVG_WIDTH_ATTRIBUTE;
 import static java.awt.image.BufferedImage.TYPE_INT_RGB;
-import static java.text.NumberFormat.getIntegerInstance;
 
 /**
  * Responsible for converting SVG images into rasterized PNG images.
@@ -64,15 +63,22 @@ public final class SvgRasterizer {
   }
 
   private static final UserAgent USER_AGENT = new UserAgentAdapter();
-  private static final BridgeContext BRIDGE_CONTEXT = new BridgeContext(
-    USER_AGENT, new DocumentLoader( USER_AGENT )
-  );
   private static final ErrorHandler sErrorHandler = new SvgErrorHandler();
 
-  private static final SAXSVGDocumentFactory FACTORY_DOM =
-    new SAXSVGDocumentFactory();
+  /*
+   * Images may be rasterized concurrently, so the parsers, formatters, and
+   * contexts that are not thread-safe are confined to each thread.
+   */
+  private static final ThreadLocal<BridgeContext> BRIDGE_CONTEXT =
+    ThreadLocal.withInitial( () -> new BridgeContext(
+      USER_AGENT, new DocumentLoader( USER_AGENT )
+    ) );
+
+  private static final ThreadLocal<SAXSVGDocumentFactory> FACTORY_DOM =
+    ThreadLocal.withInitial( SAXSVGDocumentFactory::new );
 
-  private static final NumberFormat INT_FORMAT = getIntegerInstance();
+  private static final ThreadLocal<NumberFormat> INT_FORMAT =
+    ThreadLocal.withInitial( NumberFormat::getIntegerInstance );
 
   public static final BufferedImage BROKEN_IMAGE_PLACEHOLDER;
 
@@ -250,7 +256,7 @@ public final class SvgRasterizer {
     final var root = document.getDocumentElement();
     final var width = root.getAttribute( SVG_WIDTH_ATTRIBUTE );
 
-    return rasterize( document, INT_FORMAT.parse( width ).intValue() );
+    return rasterize( document, INT_FORMAT.get().parse( width ).intValue() );
   }
 
   /**
@@ -292,7 +298,9 @@ public final class SvgRasterizer {
    */
   public static BufferedImage rasterize( final URI uri, final int width ) {
     try {
-      return rasterize( FACTORY_DOM.createDocument( uri.toString() ), width );
+      return rasterize(
+        FACTORY_DOM.get().createDocument( uri.toString() ), width
+      );
     } catch( final Exception ex ) {
       clue( ex );
     }
@@ -316,8 +324,8 @@ public final class SvgRasterizer {
     final var root = document.getDocumentElement();
     final var width = root.getAttribute( SVG_WIDTH_ATTRIBUTE );
     final var height = root.getAttribute( SVG_HEIGHT_ATTRIBUTE );
-    final var w = INT_FORMAT.parse( width ).intValue() * scale;
-    final var h = INT_FORMAT.parse( height ).intValue() * scale;
+    final var w = INT_FORMAT.get().parse( width ).intValue() * scale;
+    final var h = INT_FORMAT.get().parse( height ).intValue() * scale;
 
     return rasterize( svg, w, h );
   }
@@ -361,7 +369,7 @@ public final class SvgRasterizer {
    */
   private static Document toDocument( final String xml ) {
     try( final var reader = new StringReader( xml ) ) {
-      return FACTORY_DOM.createSVGDocument(
+      return FACTORY_DOM.get().createSVGDocument(
         "http://www.w3.org/2000/svg", reader );
     } catch( final Exception ex ) {
       throw new IllegalArgumentException( ex );
@@ -440,7 +448,7 @@ public final class SvgRasterizer {
   private static float fit(
     final Element root, final String w, final int width ) {
     final var usWidth = svgHorizontalLengthToUserSpace(
-      w, SVG_WIDTH_ATTRIBUTE, createContext( BRIDGE_CONTEXT, root )
+      w, SVG_WIDTH_ATTRIBUTE, createContext( BRIDGE_CONTEXT.get(), root )
     );
 
     // If the image is too small, scale it to 1/4 the canvas width.
@@ -5,6 +5,7 @@
 package com.keenwrite.processors;
 
 import com.keenwrite.ExportFormat;
+import com.keenwrite.collections.IncrementalInterpolator;
 import com.keenwrite.collections.InterpolatingMap;
 import com.keenwrite.constants.Constants;
 import com.keenwrite.editors.common.Caret;
@@ -43,6 +44,12 @@ public final class ProcessorContext {
 
   private final Mutator mMutator;
 
+  /**
+   * Interpolates only those definitions affected by changes since the
+   * definitions were last interpolated.
+   */
+  private volatile IncrementalInterpolator mInterpolator;
+
   /**
    * Determines the file type from the path extension. This should only be
    * called when it is known that the file type won't be a definition file
@@ -116,6 +123,7 @@ public final class ProcessorContext {
 
     private Supplier<Boolean> mCurlQuotes = () -> true;
     private Supplier<Boolean> mAutoRemove = () -> true;
+    private Supplier<Boolean> mIncremental = () -> false;
 
     public void setSourcePath( final Path sourcePath ) {
       assert sourcePath != null;
@@ -282,6 +290,11 @@ public final class ProcessorContext {
       mAutoRemove = autoRemove;
     }
 
+    public void setIncremental( final Supplier<Boolean> incremental ) {
+      assert incremental != null;
+      mIncremental = incremental;
+    }
+
     private boolean isExportFormat( final ExportFormat format ) {
       return mExportFormat == format;
     }
@@ -348,9 +361,16 @@ public final class ProcessorContext {
    * @return A map to help dereference variables.
    */
   public InterpolatingMap getInterpolatedDefinitions() {
-    return new InterpolatingMap(
-      createDefinitionKeyOperator(), getDefinitions()
-    ).interpolate();
+    final var operator = createDefinitionKeyOperator();
+    var interpolator = mInterpolator;
+
+    // Interpolate anew if the user changed the sigils.
+    if( interpolator == null || !interpolator.isOperator( operator ) ) {
+      interpolator = new IncrementalInterpolator( operator );
+      mInterpolator = interpolator;
+    }
+
+    return interpolator.interpolate( getDefinitions() );
   }
 
   public Map<String, String> getMetadata() {
@@ -434,6 +454,16 @@ public final class ProcessorContext {
     return mMutator.mAutoRemove.get();
   }
 
+  /**
+   * Answers whether the typesetter may reuse the state from a previous
+   * export of the same document.
+   *
+   * @return {@code true} to typeset incrementally.
+   */
+  public boolean getIncremental() {
+    return mMutator.mIncremental.get();
+  }
+
   public Path getRWorkingDir() {
     return mMutator.mRWorkingDir.get();
   }
@@ -62,14 +62,7 @@ public final class ProcessorFactory {
     // to SVG. Without conversion would require client-side rendering of
     // math (such as using the JavaScript-based KaTeX engine).
     final var outputType = context.getExportFormat();
-
-    final var successor = switch( outputType ) {
-      case NONE -> preview;
-      case XHTML_TEX -> createXhtmlProcessor( context );
-      case TEXT_TEX -> createTextProcessor( context );
-      case APPLICATION_PDF -> createPdfProcessor( context );
-      default -> createIdentityProcessor( context );
-    };
+    final var successor = createSuccessor( context, preview );
 
     final var inputType = context.getSourceFileType();
     final Processor<String> processor;
@@ -91,6 +84,39 @@ public final class ProcessorFactory {
     return new ExecutorProcessor<>( processor );
   }
 
+  /**
+   * Creates a {@link Processor} chain for HTML that was converted from
+   * Markdown beforehand, such as chapters that were converted in parallel.
+   * Apart from omitting the Markdown processor, the chain is the same as
+   * the chain created to export the given context.
+   *
+   * @param context Parameters needed to construct various processors.
+   * @return A processor that can export the given HTML document.
+   */
+  public static Processor<String> createHtmlProcessors(
+    final ProcessorContext context ) {
+    final var successor = createSuccessor( context, null );
+    return new ExecutorProcessor<>(
+      createVariableProcessor( successor, context ) );
+  }
+
+  /**
+   * Creates the processor that follows the Markdown and variable processors.
+   *
+   * @param context Parameters needed to construct various processors.
+   * @param preview The processor to use when no export format is specified.
+   */
+  private static Processor<String> createSuccessor(
+    final ProcessorContext context, final Processor<String> preview ) {
+    return switch( context.getExportFormat() ) {
+      case NONE -> preview;
+      case XHTML_TEX -> createXhtmlProcessor( context );
+      case TEXT_TEX -> createTextProcessor( context );
+      case APPLICATION_PDF -> createPdfProcessor( context );
+      default -> createIdentityProcessor( context );
+    };
+  }
+
   /**
    * Instantiates a new {@link Processor} that has no successor and returns
    * the string it was given without modification.
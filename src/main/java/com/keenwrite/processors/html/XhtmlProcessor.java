@@ -10,28 +10,42 @@ import com.keenwrite.processors.ExecutorProcessor;
 import com.keenwrite.processors.Processor;
 import com.keenwrite.processors.ProcessorContext;
 import com.keenwrite.ui.heuristics.WordCounter;
-import com.keenwrite.util.DataTypeConverter;
 import com.whitemagicsoftware.keenquotes.parser.Contractions;
 import com.whitemagicsoftware.keenquotes.parser.Curler;
 import org.w3c.dom.Document;
+import org.w3c.dom.Node;
 
 import java.io.File;
 import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
 
 import static com.keenwrite.Bootstrap.APP_TITLE_ABBR;
 import static com.keenwrite.dom.DocumentParser.*;
 import static com.keenwrite.events.StatusEvent.clue;
+import static com.keenwrite.events.StatusEvent.progress;
+import static com.keenwrite.io.ReadableFileCache.isReadable;
 import static com.keenwrite.io.SysFile.toFile;
 import static com.keenwrite.io.downloads.DownloadManager.open;
+import static com.keenwrite.util.DataTypeConverter.hash;
+import static com.keenwrite.util.DataTypeConverter.toHex;
 import static com.keenwrite.util.ProtocolScheme.getProtocol;
 import static com.whitemagicsoftware.keenquotes.lex.FilterType.FILTER_XML;
 import static java.lang.String.format;
 import static java.lang.String.valueOf;
 import static java.nio.charset.StandardCharsets.UTF_8;
 import static java.nio.file.Files.copy;
+import static java.nio.file.Files.createTempFile;
+import static java.nio.file.Files.deleteIfExists;
+import static java.nio.file.Files.move;
+import static java.nio.file.StandardCopyOption.ATOMIC_MOVE;
 import static java.nio.file.StandardCopyOption.REPLACE_EXISTING;
+import static java.util.concurrent.Executors.newFixedThreadPool;
 
 /**
  * Responsible for making an XHTML document complete by wrapping it with html
@@ -42,6 +56,23 @@ public final class XhtmlProcessor extends ExecutorProcessor<String> {
   private static final Curler sTypographer =
     new Curler( createContractions(), FILTER_XML, true );
 
+  /**
+   * Maximum number of images to download at the same time.
+   */
+  private static final int MAX_CONNECTIONS = 6;
+
+  /**
+   * Downloads remote images in parallel.
+   */
+  private static final ExecutorService sDownloader = newFixedThreadPool(
+    MAX_CONNECTIONS,
+    runnable -> {
+      final var thread = new Thread( runnable, "image-downloader" );
+      thread.setDaemon( true );
+      return thread;
+    }
+  );
+
   private final ProcessorContext mContext;
 
   public XhtmlProcessor(
@@ -67,37 +98,26 @@ public final class XhtmlProcessor extends ExecutorProcessor<String> {
       final var doc = parse( html );
       setMetaData( doc );
 
+      final var sources = new ArrayList<Node>();
+
       visit( doc, "//img", node -> {
-        try {
-          final var attrs = node.getAttributes();
-          final var attr = attrs.getNamedItem( "src" );
-
-          if( attr != null ) {
-            final var src = attr.getTextContent();
-            final Path location;
-            final Path imagesDir;
-
-            // Download into a cache directory, which can be written to without
-            // any possibility of overwriting local image files. Further, the
-            // filenames are hashed as a second layer of protection.
-            if( getProtocol( src ).isRemote() ) {
-              location = downloadImage( src );
-              imagesDir = getCachesPath();
-            }
-            else {
-              location = resolveImage( src );
-              imagesDir = getImagesPath();
-            }
-
-            final var relative = imagesDir.relativize( location );
-
-            attr.setTextContent( relative.toString() );
-          }
-        } catch( final Exception ex ) {
-          clue( ex );
+        final var attr = node.getAttributes().getNamedItem( "src" );
+
+        if( attr != null ) {
+          sources.add( attr );
         }
       } );
 
+      final var locations = stageImages( sources );
+
+      for( final var attr : sources ) {
+        final var location = locations.get( attr.getTextContent() );
+
+        if( location != null ) {
+          attr.setTextContent( location.toString() );
+        }
+      }
+
       final var document = DocumentParser.toString( doc );
       final var curl = mContext.getCurlQuotes();
 
@@ -168,30 +188,84 @@ public final class XhtmlProcessor extends ExecutorProcessor<String> {
     return result == null ? new HashMap<>() : result;
   }
 
+  /**
+   * Downloads remote images and finds local images. Remote images are
+   * downloaded in parallel into a cache directory, which can be written to
+   * without any possibility of overwriting local image files. Further, the
+   * filenames are hashed as a second layer of protection.
+   *
+   * @param sources The {@code src} attributes of the document's images.
+   * @return The image locations relative to the directory of the image type,
+   * keyed by {@code src} value; images that could not be staged are absent.
+   */
+  private Map<String, Path> stageImages( final List<Node> sources ) {
+    final var srcs = new LinkedHashSet<String>();
+    sources.forEach( attr -> srcs.add( attr.getTextContent() ) );
+
+    final var cached = listCache();
+    final var downloads = new LinkedHashMap<String, Future<Path>>();
+    final var result = new HashMap<String, Path>();
+
+    for( final var src : srcs ) {
+      if( getProtocol( src ).isRemote() ) {
+        downloads.put(
+          src, sDownloader.submit( () -> downloadImage( src, cached ) ) );
+      }
+      else {
+        try {
+          final var location = resolveImage( src );
+          result.put( src, getImagesPath().relativize( location ) );
+        } catch( final Exception ex ) {
+          clue( ex );
+        }
+      }
+    }
+
+    downloads.forEach( ( src, download ) -> {
+      try {
+        result.put( src, getCachesPath().relativize( download.get() ) );
+      } catch( final ExecutionException ex ) {
+        clue( ex.getCause() );
+      } catch( final Exception ex ) {
+        clue( ex );
+      }
+    } );
+
+    return result;
+  }
+
   /**
    * Hashes the URL so that the number of files doesn't eat up disk space
-   * over time. For static resources, a feature could be added to prevent
-   * downloading the URL if the hashed filename already exists.
+   * over time. If an image for the same URL has already been downloaded,
+   * the existing file is used instead of downloading the URL again.
    *
-   * @param src The source file's URL to download.
+   * @param src    The source file's URL to download.
+   * @param cached Previously downloaded files, keyed by filename without
+   *               extension.
    * @return A {@link Path} to the local file containing the URL's contents.
    * @throws Exception Could not download or save the file.
    */
-  private Path downloadImage( final String src ) throws Exception {
+  private Path downloadImage( final String src, final Map<String, Path> cached )
+    throws Exception {
+    final var id = APP_TITLE_ABBR + toHex( hash( src ) ).toLowerCase();
+    final var existing = cached.get( id );
+
+    if( existing != null ) {
+      progress( "Main.status.image.xhtml.image.found", existing );
+      return existing;
+    }
+
     final Path imagePath;
     final File imageFile;
     final var cachesPath = getCachesPath();
 
-    clue( "Main.status.image.xhtml.image.download", src );
+    progress( "Main.status.image.xhtml.image.download", src );
 
     try( final var response = open( src ) ) {
       final var mediaType = response.getMediaType();
-
       final var ext = MediaTypeExtension.valueFrom( mediaType ).getExtension();
-      final var hash = DataTypeConverter.toHex( DataTypeConverter.hash( src ) );
-      final var id = hash.toLowerCase();
 
-      imagePath = cachesPath.resolve( APP_TITLE_ABBR + id + '.' + ext );
+      imagePath = cachesPath.resolve( id + '.' + ext );
       imageFile = toFile( imagePath );
 
       // Preserve image files if auto-remove is turned off.
@@ -199,12 +273,22 @@ public final class XhtmlProcessor extends ExecutorProcessor<String> {
         imageFile.deleteOnExit();
       }
 
-      try( final var image = response.getInputStream() ) {
-        copy( image, imagePath, REPLACE_EXISTING );
-      }
+      // Download to a temporary file so that an interrupted download is never
+      // mistaken for a cached image.
+      final var temp = createTempFile( cachesPath, id, ".tmp" );
 
-      if( mediaType.isSvg() ) {
-        sanitize( imagePath );
+      try {
+        try( final var image = response.getInputStream() ) {
+          copy( image, temp, REPLACE_EXISTING );
+        }
+
+        if( mediaType.isSvg() ) {
+          sanitize( temp );
+        }
+
+        move( temp, imagePath, ATOMIC_MOVE, REPLACE_EXISTING );
+      } finally {
+        deleteIfExists( temp );
       }
     }
 
@@ -216,40 +300,77 @@ public final class XhtmlProcessor extends ExecutorProcessor<String> {
     return imagePath;
   }
 
-  private Path resolveImage( final String src ) throws Exception {
-    var imagePath = getImagesPath();
-    var found = false;
-
-    Path imageFile = null;
+  /**
+   * Finds the local image file for the given source, trying each image
+   * extension in order within the images directory before trying the
+   * document's directory.
+   *
+   * @param src The image's source, which may lack an extension.
+   * @return The image file that was found.
+   * @throws FileNotFoundException The image could not be found.
+   */
+  private Path resolveImage( final String src )
+    throws FileNotFoundException {
+    final var imagePath = getImagesPath();
+    final var candidates = new ArrayList<Path>();
 
-    clue( "Main.status.image.xhtml.image.resolve", src );
+    progress( "Main.status.image.xhtml.image.resolve", src );
 
     for( final var extension : getImageOrder() ) {
       final var filename = format(
         "%s%s%s", src, extension.isBlank() ? "" : ".", extension );
-      imageFile = imagePath.resolve( filename );
+      candidates.add( imagePath.resolve( filename ) );
+    }
 
-      if( toFile( imageFile ).exists() ) {
-        found = true;
-        break;
-      }
+    candidates.add( getDocumentDir().resolve( src ) );
+
+    final var imageFile = find( candidates );
+
+    if( imageFile == null ) {
+      final var filename = candidates.getLast().toString();
+      clue( "Main.status.image.xhtml.image.missing", filename );
+
+      throw new FileNotFoundException( filename );
     }
 
-    if( !found ) {
-      imagePath = getDocumentDir();
-      imageFile = imagePath.resolve( src );
+    progress( "Main.status.image.xhtml.image.found", imageFile.toString() );
 
-      if( !toFile( imageFile ).exists() ) {
-        final var filename = imageFile.toString();
-        clue( "Main.status.image.xhtml.image.missing", filename );
+    return imageFile;
+  }
 
-        throw new FileNotFoundException( filename );
+  private static Path find( final List<Path> candidates ) {
+    for( final var candidate : candidates ) {
+      if( isReadable( candidate ) ) {
+        return candidate;
       }
     }
 
-    clue( "Main.status.image.xhtml.image.found", imageFile.toString() );
+    return null;
+  }
 
-    return imageFile;
+  /**
+   * Lists the images downloaded previously into the cache directory.
+   *
+   * @return Non-empty image files keyed by filename without extension.
+   */
+  private Map<String, Path> listCache() {
+    final var cached = new HashMap<String, Path>();
+
+    try( final var files = Files.list( getCachesPath() ) ) {
+      files.forEach( file -> {
+        final var name = file.getFileName().toString();
+        final var dot = name.lastIndexOf( '.' );
+
+        if( name.startsWith( APP_TITLE_ABBR ) && dot > 0 &&
+          !name.endsWith( ".tmp" ) && file.toFile().length() > 0 ) {
+          cached.put( name.substring( 0, dot ), file );
+        }
+      } );
+    } catch( final IOException ignored ) {
+      // Nothing has been downloaded.
+    }
+
+    return cached;
   }
 
   private Path getImagesPath() {
@@ -290,13 +411,21 @@ public final class XhtmlProcessor extends ExecutorProcessor<String> {
     return mContext.getAutoRemove();
   }
 
+  /**
+   * Counts the words in the document. Each element's text is separated from
+   * the next, so the last word of one element is never joined to the first
+   * word of the next.
+   *
+   * @param doc The document to count.
+   * @return The number of words, as a string.
+   */
   private String wordCount( final Document doc ) {
     final var sb = new StringBuilder( 65536 * 10 );
 
     visit(
       doc,
       "//*[normalize-space( text() ) != '']",
-      node -> sb.append( node.getTextContent() )
+      node -> sb.append( node.getTextContent() ).append( '\n' )
     );
 
     return valueOf( WordCounter.create( getLocale() ).count( sb.toString() ) );
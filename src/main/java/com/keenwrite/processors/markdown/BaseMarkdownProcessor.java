@@ -7,9 +7,15 @@ package com.keenwrite.processors.markdown;
 import com.keenwrite.dom.DocumentConverter;
 import com.keenwrite.processors.ExecutorProcessor;
 import com.keenwrite.processors.Processor;
+import com.keenwrite.preview.SourceMap;
 import com.keenwrite.processors.ProcessorContext;
+import com.keenwrite.processors.markdown.HeadingIds.Fragment;
+import com.keenwrite.processors.markdown.HeadingIds.HeadingId;
 import com.keenwrite.processors.markdown.extensions.captions.CaptionExtension;
+import com.keenwrite.processors.markdown.extensions.caret.CaretExtension;
 import com.keenwrite.processors.markdown.extensions.fences.FencedDivExtension;
+import com.keenwrite.processors.markdown.extensions.outline.DocumentOutlineExtension;
+import com.keenwrite.processors.markdown.extensions.outline.DocumentOutlineExtension.Item;
 import com.keenwrite.processors.markdown.extensions.r.RInlineExtension;
 import com.keenwrite.processors.markdown.extensions.references.CrossReferenceExtension;
 import com.vladsch.flexmark.ext.definition.DefinitionExtension;
@@ -18,14 +24,22 @@ import com.vladsch.flexmark.ext.superscript.SuperscriptExtension;
 import com.vladsch.flexmark.ext.tables.TablesExtension;
 import com.vladsch.flexmark.html.HtmlRenderer;
 import com.vladsch.flexmark.parser.Parser;
+import com.vladsch.flexmark.util.ast.Document;
 import com.vladsch.flexmark.util.ast.IParse;
 import com.vladsch.flexmark.util.ast.IRender;
 import com.vladsch.flexmark.util.ast.Node;
 import com.vladsch.flexmark.util.data.MutableDataSet;
 import com.vladsch.flexmark.util.misc.Extension;
+import com.vladsch.flexmark.util.sequence.BasedSequence;
 
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+
+import static com.keenwrite.ExportFormat.NONE;
+import static com.keenwrite.collections.VersionedMap.versionOf;
 
 /**
  * Responsible for parsing and rendering Markdown into HTML. This is required
@@ -34,13 +48,54 @@ import java.util.List;
  */
 public class BaseMarkdownProcessor extends ExecutorProcessor<String> {
 
+  /**
+   * The HTML and headings produced from a single top-level Markdown block.
+   *
+   * @param html    The block rendered as HTML.
+   * @param outline The block's headings, relative to the start of the block,
+   *                or {@code null} if no outline was collected.
+   * @param sources The block's element offsets, relative to the start of the
+   *                block, or {@code null} if no offsets were collected.
+   * @param ids     The block's heading identifiers, in document order.
+   */
+  private record Block(
+    String html,
+    List<Item> outline,
+    SourceMap sources,
+    List<HeadingId> ids ) { }
+
   private final IParse mParser;
   private final IRender mRenderer;
 
+  /**
+   * Answers whether the HTML is destined for the preview. The preview renders
+   * the document incrementally, whereas exports must see the entire document
+   * at once. The preview also balances tags when it parses the HTML, so the
+   * HTML need not be made well-formed beforehand.
+   */
+  private final boolean mPreview;
+
+  private final Supplier<Map<String, String>> mDefinitions;
+
+  /**
+   * Maps the Markdown text of each top-level block to its rendered HTML. This
+   * is replaced after every render so that only the current blocks are kept.
+   */
+  private Map<String, Block> mBlocks = new HashMap<>();
+
+  /**
+   * Evaluated expressions (R, TeX, diagrams) depend on the definitions, so
+   * cached blocks are discarded when the definitions change.
+   */
+  private long mDefinitionsVersion;
+
   public BaseMarkdownProcessor(
     final Processor<String> successor, final ProcessorContext context ) {
     super( successor );
 
+    mPreview = context.isExportFormat( NONE );
+    mDefinitions = context::getDefinitions;
+
     final var options = new MutableDataSet();
     options.set( HtmlRenderer.GENERATE_HEADER_ID, true );
     options.set( HtmlRenderer.RENDER_HEADER_ID, true );
@@ -79,14 +134,143 @@ public class BaseMarkdownProcessor extends ExecutorProcessor<String> {
 
   /**
    * Converts the given Markdown string into HTML, without the doctype, html,
-   * head, and body tags.
+   * head, and body tags. When exporting, the HTML is well-formed.
    *
    * @param markdown The string to convert from Markdown to HTML.
    * @return The HTML representation of the Markdown document.
    */
   @Override
   public String apply( final String markdown ) {
-    return toXhtml( toHtml( toNode( markdown ) ) );
+    return mPreview
+      ? BlockSplitter.isSplittable( markdown )
+        ? toHtmlIncremental( markdown )
+        : toHtmlComplete( markdown )
+      : toXhtml( toHtmlComplete( markdown ) );
+  }
+
+  /**
+   * Parses and renders the entire document.
+   *
+   * @param markdown The document to convert to HTML.
+   * @return The HTML representation of the Markdown document.
+   */
+  private String toHtmlComplete( final String markdown ) {
+    final var document = parse( markdown );
+    final var html = toHtml( document );
+    final var outline = DocumentOutlineExtension.getOutline( document );
+    final var sources = CaretExtension.getSourceMap( document );
+
+    if( outline != null ) {
+      DocumentOutlineExtension.publish( outline );
+    }
+
+    if( sources != null ) {
+      SourceMap.publish( sources );
+    }
+
+    mBlocks.clear();
+
+    return html;
+  }
+
+  /**
+   * Parses and renders only the top-level blocks that have changed since
+   * the previous call, reusing the HTML of unchanged blocks. Blocks are
+   * parsed as subsequences of the entire document, which keeps node offsets
+   * relative to the start of the document.
+   *
+   * @param markdown The document to convert to HTML.
+   * @return The HTML representation of the Markdown document.
+   */
+  private String toHtmlIncremental( final String markdown ) {
+    final var version = versionOf( mDefinitions.get() );
+
+    if( version != mDefinitionsVersion ) {
+      mDefinitionsVersion = version;
+      mBlocks.clear();
+    }
+
+    final var starts = BlockSplitter.split( markdown );
+    final var sequence = BasedSequence.of( markdown );
+    final var length = markdown.length();
+    final var html = new StringBuilder( length + (length >> 1) );
+    final var blocks = new HashMap<String, Block>( starts.size() << 1 );
+    final var headings = new HeadingIds();
+    List<Item> outline = new ArrayList<>();
+    SourceMap.Builder sources = new SourceMap.Builder();
+
+    for( int i = 0, size = starts.size(); i < size; i++ ) {
+      final int began = starts.get( i );
+      final int ended = i + 1 < size ? starts.get( i + 1 ) : length;
+      final var text = markdown.substring( began, ended );
+      var block = mBlocks.get( text );
+
+      if( block == null ) {
+        block = render( sequence.subSequence( began, ended ), began );
+      }
+
+      blocks.put( text, block );
+      html.append( headings.identify( block.html(), block.ids(), false ) );
+
+      if( block.outline() == null ) {
+        outline = null;
+      }
+      else if( outline != null ) {
+        for( final var item : block.outline() ) {
+          outline.add( item.shift( began ) );
+        }
+      }
+
+      if( block.sources() == null ) {
+        sources = null;
+      }
+      else if( sources != null ) {
+        sources.add( block.sources(), began );
+      }
+    }
+
+    mBlocks = blocks;
+
+    if( outline != null ) {
+      DocumentOutlineExtension.publish( outline );
+    }
+
+    if( sources != null ) {
+      SourceMap.publish( sources.build() );
+    }
+
+    return html.toString();
+  }
+
+  /**
+   * Parses and renders a single top-level block.
+   *
+   * @param markdown The block to render, a subsequence of the document.
+   * @param began    Offset of the block into the document.
+   * @return The rendered block, with headings and element offsets relative
+   * to the block.
+   */
+  private Block render( final BasedSequence markdown, final int began ) {
+    final var document = (Document) getParser().parse( markdown );
+    final var outline = DocumentOutlineExtension.getOutline( document );
+    final var html = toHtml( document );
+    final var sources = CaretExtension.getSourceMap( document );
+
+    return new Block(
+      html,
+      outline == null
+        ? null
+        : outline.stream().map( item -> item.shift( -began ) ).toList(),
+      sources == null ? null : shift( sources, -began ),
+      HeadingIds.collect( document )
+    );
+  }
+
+  private static SourceMap shift( final SourceMap sources, final int delta ) {
+    final var builder = new SourceMap.Builder();
+    builder.add( sources, delta );
+
+    return builder.build();
   }
 
   /**
@@ -101,6 +285,23 @@ public class BaseMarkdownProcessor extends ExecutorProcessor<String> {
     return parse( markdown );
   }
 
+  /**
+   * Converts the given Markdown string into HTML without making it
+   * well-formed. This allows the HTML from several Markdown documents to be
+   * joined before the combined document is made well-formed. The heading
+   * identifiers are returned so that they can be made unique across the
+   * joined documents.
+   *
+   * @param markdown The string to convert from Markdown to HTML.
+   * @return The HTML representation of the Markdown document.
+   */
+  public Fragment toHtmlFragment( final String markdown ) {
+    final var document = parse( markdown );
+    final var html = toHtml( document );
+
+    return new Fragment( html, HeadingIds.collect( document ) );
+  }
+
   /**
    * Returns the result of converting the given AST into an HTML string.
    *
@@ -128,8 +329,8 @@ public class BaseMarkdownProcessor extends ExecutorProcessor<String> {
    * @param markdown The Markdown to parse.
    * @return The root node of the Markdown tree.
    */
-  private Node parse( final String markdown ) {
-    return getParser().parse( markdown );
+  private Document parse( final String markdown ) {
+    return (Document) getParser().parse( markdown );
   }
 
   /**
@@ -0,0 +1,191 @@
+/* Copyright 2024 White Magic Software, Ltd. -- All rights reserved.
+ *
+ * SPDX-License-Identifier: MIT
+ */
+package com.keenwrite.processors.markdown;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Pattern;
+
+import static java.util.regex.Pattern.MULTILINE;
+
+/**
+ * Responsible for dividing a Markdown document into top-level blocks that
+ * can be parsed and rendered independently of each other. A block begins
+ * at the first non-blank line following one or more blank lines, provided
+ * that the line cannot continue the preceding block. Lines that continue
+ * a block include indented lines, list items, block quotes, definitions,
+ * and captions. Fenced code blocks and HTML comments are never divided.
+ * <p>
+ * Captions are swapped with the element they follow, which may be an
+ * entire fenced div. A caption following a closing fence is therefore kept
+ * in the same block as its opening fence.
+ * </p>
+ */
+final class BlockSplitter {
+  /**
+   * Link reference definitions apply to the entire document, which prevents
+   * rendering blocks independently.
+   */
+  private static final Pattern REFERENCE_DEFINITION =
+    Pattern.compile( "^ {0,3}\\[[^]]+]:", MULTILINE );
+
+  private BlockSplitter() { }
+
+  /**
+   * Answers whether the given document may be rendered one block at a time.
+   *
+   * @param markdown The document to check for document-wide constructs.
+   * @return {@code false} when the blocks depend on each other.
+   */
+  static boolean isSplittable( final CharSequence markdown ) {
+    return !REFERENCE_DEFINITION.matcher( markdown ).find();
+  }
+
+  /**
+   * Returns the starting offsets of every top-level block in the document.
+   * The first offset is always zero; each block ends where the next begins,
+   * or at the end of the document.
+   *
+   * @param markdown The document to divide into blocks.
+   * @return The offsets into the document where blocks begin.
+   */
+  static List<Integer> split( final CharSequence markdown ) {
+    final var blocks = new ArrayList<Integer>();
+    final var divs = new ArrayList<Integer>();
+    final var length = markdown.length();
+
+    var began = 0;
+    var blank = false;
+    var fence = "";
+    var comment = false;
+    var divOpened = -1;
+
+    blocks.add( 0 );
+
+    while( began < length ) {
+      var ended = began;
+
+      while( ended < length && markdown.charAt( ended ) != '\n' ) {
+        ended++;
+      }
+
+      final var line = markdown.subSequence( began, ended ).toString();
+      final var trimmed = line.strip();
+
+      if( !fence.isEmpty() ) {
+        if( trimmed.startsWith( fence ) &&
+          trimmed.replace( fence.charAt( 0 ), ' ' ).isBlank() ) {
+          fence = "";
+        }
+      }
+      else if( comment ) {
+        comment = !line.contains( "-->" );
+      }
+      else if( trimmed.isEmpty() ) {
+        blank = true;
+      }
+      else {
+        if( blank && !continues( line ) ) {
+          blocks.add( began );
+        }
+
+        blank = false;
+
+        if( isCaption( line ) && divOpened >= 0 ) {
+          // Merge the blocks from the opening fence through to the caption.
+          while( blocks.size() > divOpened + 1 ) {
+            blocks.removeLast();
+          }
+        }
+
+        divOpened = -1;
+
+        if( line.startsWith( ":::" ) ) {
+          if( isDivOpening( line ) ) {
+            divs.add( blocks.size() - 1 );
+          }
+          else if( !divs.isEmpty() ) {
+            divOpened = divs.removeLast();
+          }
+        }
+        else if( line.contains( "<!--" ) ) {
+          comment = !line.substring( line.indexOf( "<!--" ) ).contains( "-->" );
+        }
+        else {
+          fence = fence( trimmed, line );
+        }
+      }
+
+      began = ended + 1;
+    }
+
+    return blocks;
+  }
+
+  /**
+   * Answers whether the given line, which follows a blank line, belongs to
+   * the preceding block.
+   *
+   * @param line The line to check, never blank.
+   * @return {@code true} when the line may not start a new block.
+   */
+  private static boolean continues( final String line ) {
+    final var c = line.charAt( 0 );
+
+    return Character.isWhitespace( c ) ||
+      c == '>' ||
+      (c == ':' && !line.startsWith( ":::" )) ||
+      isListItem( line );
+  }
+
+  private static boolean isListItem( final String line ) {
+    final var c = line.charAt( 0 );
+
+    if( c == '*' || c == '-' || c == '+' ) {
+      return line.length() > 1 && line.charAt( 1 ) == ' ';
+    }
+
+    var i = 0;
+
+    while( i < line.length() && Character.isDigit( line.charAt( i ) ) ) {
+      i++;
+    }
+
+    return i > 0 && i < line.length() &&
+      (line.charAt( i ) == '.' || line.charAt( i ) == ')');
+  }
+
+  private static boolean isCaption( final String line ) {
+    return line.startsWith( "::" ) && !line.startsWith( ":::" );
+  }
+
+  private static boolean isDivOpening( final String line ) {
+    final var args = line.replaceFirst( "^:+", "" );
+    return !args.isBlank() && Character.isWhitespace( args.charAt( 0 ) );
+  }
+
+  /**
+   * Returns the code fence that the given line opens, if any.
+   *
+   * @param trimmed The line without leading or trailing whitespace.
+   * @param line    The line, used to check that indentation is permissible.
+   * @return The fence characters, or the empty string if not a fence.
+   */
+  private static String fence( final String trimmed, final String line ) {
+    if( (trimmed.startsWith( "```" ) || trimmed.startsWith( "~~~" )) &&
+      line.indexOf( trimmed.charAt( 0 ) ) < 4 ) {
+      final var c = trimmed.charAt( 0 );
+      var i = 0;
+
+      while( i < trimmed.length() && trimmed.charAt( i ) == c ) {
+        i++;
+      }
+
+      return trimmed.substring( 0, i );
+    }
+
+    return "";
+  }
+}
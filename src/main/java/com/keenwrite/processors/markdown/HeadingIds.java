@@ -0,0 +1,142 @@
+/* Copyright 2024 White Magic Software, Ltd. -- All rights reserved.
+ *
+ * SPDX-License-Identifier: MIT
+ */
+package com.keenwrite.processors.markdown;
+
+import com.vladsch.flexmark.ast.Heading;
+import com.vladsch.flexmark.html.renderer.HeaderIdGenerator;
+import com.vladsch.flexmark.util.ast.Document;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+import static com.vladsch.flexmark.html.HtmlRenderer.HEADER_ID_GENERATOR_NON_ASCII_TO_LOWERCASE;
+import static com.vladsch.flexmark.html.HtmlRenderer.HEADER_ID_GENERATOR_NON_DASH_CHARS;
+import static com.vladsch.flexmark.html.HtmlRenderer.HEADER_ID_GENERATOR_NO_DUPED_DASHES;
+import static com.vladsch.flexmark.html.HtmlRenderer.HEADER_ID_GENERATOR_TO_DASH_CHARS;
+import static java.util.regex.Matcher.quoteReplacement;
+
+/**
+ * Responsible for making heading identifiers unique across HTML fragments
+ * that were rendered separately, such as preview blocks or chapters. Each
+ * fragment restarts flexmark's numbering of repeated headings, so fragments
+ * are numbered again, in document order, the same way that flexmark numbers
+ * the headings of a single document.
+ */
+public final class HeadingIds {
+  /**
+   * A heading identifier as generated when its fragment was rendered alone.
+   *
+   * @param base The identifier derived from the heading text, before being
+   *             made unique.
+   * @param id   The identifier written into the fragment's HTML.
+   */
+  public record HeadingId( String base, String id ) { }
+
+  /**
+   * HTML rendered from Markdown along with its heading identifiers.
+   *
+   * @param html The HTML, which need not be well-formed.
+   * @param ids  The heading identifiers, in document order.
+   */
+  public record Fragment( String html, List<HeadingId> ids ) { }
+
+  /**
+   * Matches the identifier of an HTML heading element.
+   */
+  private static final Pattern HEADING_ID =
+    Pattern.compile( "(<h[1-6]\\b[^>]*?\\sid=\")([^\"]*)(\")" );
+
+  /**
+   * Matches the identifier of an HTML heading element or the target of an
+   * in-document link.
+   */
+  private static final Pattern HEADING_ID_OR_LINK = Pattern.compile(
+    "(<h[1-6]\\b[^>]*?\\sid=\"|<a\\b[^>]*?\\shref=\"#)([^\"]*)(\")"
+  );
+
+  /**
+   * Number of times each base identifier was seen so far.
+   */
+  private final Map<String, Integer> mCounts = new HashMap<>();
+
+  /**
+   * Collects the heading identifiers that were generated while rendering
+   * the given document.
+   *
+   * @param document The rendered document.
+   * @return The identifiers in document order.
+   */
+  static List<HeadingId> collect( final Document document ) {
+    final var ids = new ArrayList<HeadingId>();
+
+    for( final var node : document.getDescendants() ) {
+      if( node instanceof Heading heading ) {
+        final var id = heading.getAnchorRefId();
+
+        if( !id.isEmpty() ) {
+          final var base = HeaderIdGenerator.generateId(
+            heading.getAnchorRefText(),
+            HEADER_ID_GENERATOR_TO_DASH_CHARS.get( document ),
+            HEADER_ID_GENERATOR_NON_DASH_CHARS.get( document ),
+            HEADER_ID_GENERATOR_NO_DUPED_DASHES.get( document ),
+            HEADER_ID_GENERATOR_NON_ASCII_TO_LOWERCASE.get( document )
+          );
+
+          ids.add( new HeadingId( base, id ) );
+        }
+      }
+    }
+
+    return ids;
+  }
+
+  /**
+   * Returns the given HTML with its heading identifiers made unique among
+   * all the fragments passed to this method so far. Fragments must be passed
+   * in document order.
+   *
+   * @param html  The fragment's HTML.
+   * @param ids   The fragment's heading identifiers, in document order.
+   * @param links Whether to also update in-document links that target the
+   *              fragment's own headings, such as when each fragment is a
+   *              chapter whose links refer to headings in that chapter.
+   * @return The HTML with unique heading identifiers.
+   */
+  public String identify(
+    final String html, final List<HeadingId> ids, final boolean links ) {
+    final var renames = new HashMap<String, String>();
+
+    for( final var heading : ids ) {
+      final var base = heading.base();
+      final var count = mCounts.merge( base, 0, ( n, _ ) -> n + 1 );
+      final var id = count == 0 ? base : base + "-" + count;
+
+      if( !id.equals( heading.id() ) ) {
+        renames.put( heading.id(), id );
+      }
+    }
+
+    if( renames.isEmpty() ) {
+      return html;
+    }
+
+    final var pattern = links ? HEADING_ID_OR_LINK : HEADING_ID;
+    final var matcher = pattern.matcher( html );
+    final var result = new StringBuilder( html.length() + 16 );
+
+    while( matcher.find() ) {
+      final var id = renames.getOrDefault( matcher.group( 2 ),
+                                           matcher.group( 2 ) );
+      matcher.appendReplacement(
+        result, quoteReplacement( matcher.group( 1 ) + id + matcher.group( 3 ) )
+      );
+    }
+
+    return matcher.appendTail( result ).toString();
+  }
+}
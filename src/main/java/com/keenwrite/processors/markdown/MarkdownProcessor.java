@@ -47,10 +47,10 @@ public final class MarkdownProcessor extends BaseMarkdownProcessor {
 
   /**
    * Creating extensions based using an instance of {@link ProcessorContext}
-   * indicates that the {@link CaretExtension} should be used to inject the
-   * caret position into the final HTML document. This enables the HTML
-   * preview pane to scroll to the same position, relatively speaking, within
-   * the main document. Scrolling is developed this way to decouple the
+   * indicates that the {@link CaretExtension} should be used to map the
+   * final HTML document's elements to offsets into the source document. This
+   * enables the HTML preview pane to scroll to the same position, relatively
+   * speaking, within the main document. Scrolling is developed this way to decouple the
    * document being edited from the preview pane so that multiple document
    * formats can be edited.
    *
@@ -86,7 +86,7 @@ public final class MarkdownProcessor extends BaseMarkdownProcessor {
     result.add( FencedBlockExtension.create( processor, evaluator, context ) );
 
     if( context.isExportFormat( ExportFormat.NONE ) ) {
-      result.add( CaretExtension.create( context ) );
+      result.add( CaretExtension.create() );
     }
 
     result.add( DocumentOutlineExtension.create( processor ) );
@@ -1,36 +1,47 @@
 /* Copyright 2020-2021 White Magic Software, Ltd. -- All rights reserved. */
 package com.keenwrite.processors.markdown.extensions.caret;
 
-import com.keenwrite.editors.common.Caret;
-import com.keenwrite.processors.ProcessorContext;
+import com.keenwrite.preview.SourceMap;
 import com.keenwrite.processors.markdown.extensions.common.HtmlRendererAdapter;
+import com.vladsch.flexmark.util.ast.Document;
 import org.jetbrains.annotations.NotNull;
 
-import java.util.function.Supplier;
-
-import static com.keenwrite.processors.markdown.extensions.caret.IdAttributeProvider.createFactory;
+import static com.keenwrite.processors.markdown.extensions.caret.SourceAttributeProvider.SOURCES;
+import static com.keenwrite.processors.markdown.extensions.caret.SourceAttributeProvider.createFactory;
 import static com.vladsch.flexmark.html.HtmlRenderer.Builder;
 
 /**
- * Responsible for giving most block-level elements a unique identifier
- * attribute. The identifier is used to coordinate scrolling.
+ * Responsible for marking the top-level elements of the rendered HTML with
+ * their offsets into the document. The offsets are used to coordinate
+ * scrolling: when the caret moves, the preview scrolls to the element at the
+ * caret's offset without rendering the document again.
  */
 public class CaretExtension extends HtmlRendererAdapter {
 
-  private final Supplier<Caret> mCaret;
+  private CaretExtension() { }
 
-  private CaretExtension( final ProcessorContext context ) {
-    mCaret = context.getCaret();
+  public static CaretExtension create() {
+    return new CaretExtension();
   }
 
-  public static CaretExtension create( final ProcessorContext context ) {
-    return new CaretExtension( context );
+  /**
+   * Returns the offsets of the elements marked while rendering the given
+   * document.
+   *
+   * @param document The document rendered with this extension.
+   * @return The element offsets in document order, or {@code null} if the
+   * document was rendered without this extension.
+   */
+  public static SourceMap getSourceMap( final Document document ) {
+    return document.contains( SOURCES )
+      ? SOURCES.get( document ).build()
+      : null;
   }
 
   @Override
   public void extend(
     @NotNull final Builder builder,
     @NotNull final String rendererType ) {
-    builder.attributeProviderFactory( createFactory( mCaret ) );
+    builder.attributeProviderFactory( createFactory() );
   }
 }
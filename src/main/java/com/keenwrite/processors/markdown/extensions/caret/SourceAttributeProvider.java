@@ -0,0 +1,89 @@
+package com.keenwrite.processors.markdown.extensions.caret;
+
+import com.keenwrite.preview.SourceMap;
+import com.vladsch.flexmark.ext.tables.TableBlock;
+import com.vladsch.flexmark.html.AttributeProvider;
+import com.vladsch.flexmark.html.AttributeProviderFactory;
+import com.vladsch.flexmark.html.IndependentAttributeProviderFactory;
+import com.vladsch.flexmark.html.renderer.AttributablePart;
+import com.vladsch.flexmark.html.renderer.LinkResolverContext;
+import com.vladsch.flexmark.util.ast.Document;
+import com.vladsch.flexmark.util.ast.Node;
+import com.vladsch.flexmark.util.data.NullableDataKey;
+import com.vladsch.flexmark.util.html.MutableAttributes;
+import org.jetbrains.annotations.NotNull;
+
+import static com.keenwrite.preview.SourceMap.ATTRIBUTE;
+import static com.keenwrite.processors.markdown.extensions.common.EmptyNode.EMPTY_NODE;
+
+/**
+ * Responsible for marking the HTML element of every top-level Markdown node
+ * with the {@link SourceMap#ATTRIBUTE}, recording the node's offsets into the
+ * document in the same order. This class is instantiated once per render.
+ */
+final class SourceAttributeProvider implements AttributeProvider {
+  /**
+   * Offsets of the marked nodes of a rendered {@link Document}.
+   */
+  static final NullableDataKey<SourceMap.Builder> SOURCES =
+    new NullableDataKey<>( "SOURCES" );
+
+  private final LinkResolverContext mContext;
+  private final SourceMap.Builder mSources;
+
+  /**
+   * The most recently marked node, which prevents marking a second element
+   * rendered for the same node.
+   */
+  private Node mMarked;
+
+  private SourceAttributeProvider(
+    final LinkResolverContext context, final SourceMap.Builder sources ) {
+    mContext = context;
+    mSources = sources;
+  }
+
+  static AttributeProviderFactory createFactory() {
+    return new IndependentAttributeProviderFactory() {
+      @Override
+      public @NotNull AttributeProvider apply(
+        @NotNull final LinkResolverContext context ) {
+        final var sources = new SourceMap.Builder();
+        SOURCES.set( context.getDocument(), sources );
+
+        return new SourceAttributeProvider( context, sources );
+      }
+    };
+  }
+
+  @Override
+  public void setAttributes(
+    @NotNull final Node curr,
+    @NotNull final AttributablePart part,
+    @NotNull final MutableAttributes attributes ) {
+    // Skip nodes whose attributes are requested while rendering another
+    // node, such as the reference definition of a link in a paragraph.
+    if( part != AttributablePart.NODE ||
+        curr == mMarked ||
+        curr != mContext.getCurrentNode() ||
+        !(curr.getParent() instanceof Document) ) {
+      return;
+    }
+
+    // If a table block has been earmarked with an empty node, it means
+    // another extension has generated code from an external source. The
+    // Markdown processor won't be able to determine the caret position
+    // with any semblance of accuracy, so skip the element. This usually
+    // happens with tables, but in theory any Markdown generated from an
+    // external source (e.g., an R script) could produce text that has no
+    // caret position that can be calculated.
+    if( curr instanceof TableBlock && curr.getLastChild() == EMPTY_NODE ) {
+      return;
+    }
+
+    // This line empowers synchronizing the text editor with the preview.
+    attributes.replaceValue( ATTRIBUTE, "" );
+    mSources.add( curr.getStartOffset(), curr.getEndOffset() );
+    mMarked = curr;
+  }
+}
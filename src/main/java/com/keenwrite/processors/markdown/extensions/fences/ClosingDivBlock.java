@@ -9,6 +9,13 @@ import com.vladsch.flexmark.html.HtmlWriter;
 public final class ClosingDivBlock extends DivBlock {
   @Override
   void write( final HtmlWriter html ) {
-    html.closeTag( HTML_DIV );
+    // The preview renders blocks independently, so the opening element may
+    // have been written while rendering an earlier block.
+    if( html.getOpenTags().isEmpty() ) {
+      html.raw( "</" ).raw( HTML_DIV ).raw( ">" );
+    }
+    else {
+      html.closeTag( HTML_DIV );
+    }
   }
 }
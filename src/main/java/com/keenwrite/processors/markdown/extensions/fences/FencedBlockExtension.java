@@ -7,6 +7,8 @@ import com.keenwrite.processors.ProcessorContext;
 import com.keenwrite.processors.variable.VariableProcessor;
 import com.keenwrite.processors.markdown.MarkdownProcessor;
 import com.keenwrite.processors.markdown.extensions.common.HtmlRendererAdapter;
+import com.keenwrite.processors.r.Engine;
+import com.keenwrite.processors.r.PlotCache;
 import com.keenwrite.processors.r.RChunkEvaluator;
 import com.keenwrite.processors.variable.RVariableProcessor;
 import com.vladsch.flexmark.ast.FencedCodeBlock;
@@ -23,8 +25,6 @@ import java.util.HashSet;
 import java.util.Set;
 import java.util.function.Function;
 
-import static com.keenwrite.Bootstrap.APP_TITLE_LOWERCASE;
-import static com.keenwrite.constants.Constants.TEMPORARY_DIRECTORY;
 import static com.keenwrite.processors.html.IdentityProcessor.IDENTITY;
 import static com.vladsch.flexmark.html.HtmlRenderer.Builder;
 import static com.vladsch.flexmark.html.renderer.CoreNodeRenderer.CODE_CONTENT;
@@ -64,6 +64,7 @@ public final class FencedBlockExtension extends HtmlRendererAdapter {
   }
 
   private final RChunkEvaluator mRChunkEvaluator;
+  private final PlotCache mPlotCache;
   private final Function<String, String> mInlineEvaluator;
 
   private final Processor<String> mRVariableProcessor;
@@ -77,6 +78,7 @@ public final class FencedBlockExtension extends HtmlRendererAdapter {
     assert context != null;
     mContext = context;
     mRChunkEvaluator = new RChunkEvaluator();
+    mPlotCache = new PlotCache( context::getCacheDir );
     mInlineEvaluator = evaluator;
     mRVariableProcessor = new VerbatimRVariableProcessor( IDENTITY, context );
   }
@@ -125,6 +127,17 @@ public final class FencedBlockExtension extends HtmlRendererAdapter {
     return text.toString().toLowerCase();
   }
 
+  /**
+   * Converts the given path to a URI path, which helps convert backslashes
+   * to forward slashes.
+   *
+   * @param path The path to convert.
+   * @return The path suitable for R and HTML.
+   */
+  private static String toUriPath( final Path path ) {
+    return path.toUri().getPath();
+  }
+
   /**
    * Responsible for generating images from a fenced block that contains a
    * diagram reference.
@@ -182,7 +195,8 @@ public final class FencedBlockExtension extends HtmlRendererAdapter {
     /**
      * Evaluates an R expression. This will take into consideration any
      * key/value pairs passed in from the document, such as width and height
-     * attributes of the form: <code>{r width=5 height=5}</code>.
+     * attributes of the form: <code>{r width=5 height=5}</code>. The R
+     * expression is not evaluated when its plot is found in the cache.
      *
      * @param node    The {@link FencedCodeBlock} to evaluate using R.
      * @param context Used to resolve the link that refers to any resulting
@@ -196,17 +210,23 @@ public final class FencedBlockExtension extends HtmlRendererAdapter {
       final NodeRendererContext context ) {
       final var content = node.getContentChars().normalizeEOL().trim();
       final var text = mRVariableProcessor.apply( content );
-      final var hash = Integer.toHexString( text.hashCode() );
-      final var filename = format( "%s-%s.svg", APP_TITLE_LOWERCASE, hash );
-
-      // The URI helps convert backslashes to forward slashes.
-      final var uri = Path.of( TEMPORARY_DIRECTORY, filename ).toUri();
-      final var svg = uri.getPath();
-      final var link = context.resolveLink( LINK, svg, false );
       final var dimensions = getAttributes( node.getInfo() );
-      final var r = format( R_SVG_EXPORT, svg, dimensions, text );
 
-      mRChunkEvaluator.apply( r );
+      // Variables in the chunk are already substituted, so changing a
+      // definition that only the chunk references replots only this chunk.
+      // The bootstrap script contains the values of the variables that it
+      // references and may affect any chunk, so changing one of those
+      // definitions replots every chunk.
+      final var source = format(
+        "%s%n%s%n%s", Engine.getBootstrap(), dimensions, text );
+
+      final var plot = mPlotCache.get( source, path -> {
+        final var file = toUriPath( path );
+        mRChunkEvaluator.apply( format( R_SVG_EXPORT, file, dimensions, text ) );
+      } );
+
+      final var svg = toUriPath( plot );
+      final var link = context.resolveLink( LINK, svg, false );
 
       return new Tuple<>( svg, link );
     }
@@ -17,6 +17,7 @@ import java.nio.file.Path;
 import java.util.Optional;
 
 import static com.keenwrite.events.StatusEvent.clue;
+import static com.keenwrite.io.ReadableFileCache.isReadable;
 import static com.keenwrite.io.SysFile.toFile;
 import static com.keenwrite.util.ProtocolScheme.getProtocol;
 import static com.vladsch.flexmark.html.HtmlRenderer.Builder;
@@ -195,6 +196,6 @@ public class ImageLinkExtension extends HtmlRendererAdapter {
   }
 
   private static boolean readable( final File file ) {
-    return file.isFile() && file.canRead();
+    return isReadable( file );
   }
 }
@@ -1,6 +1,6 @@
 package com.keenwrite.processors.markdown.extensions.outline;
 
-import com.keenwrite.events.ParseHeadingEvent;
+import com.keenwrite.events.ParseOutlineEvent;
 import com.keenwrite.processors.Processor;
 import com.keenwrite.processors.markdown.extensions.common.MarkdownParserExtension;
 import com.vladsch.flexmark.ast.Heading;
@@ -10,15 +10,52 @@ import com.vladsch.flexmark.parser.block.NodePostProcessorFactory;
 import com.vladsch.flexmark.util.ast.Document;
 import com.vladsch.flexmark.util.ast.Node;
 import com.vladsch.flexmark.util.ast.NodeTracker;
+import com.vladsch.flexmark.util.data.NullableDataKey;
 import org.jetbrains.annotations.NotNull;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.regex.Pattern;
 
-import static com.keenwrite.events.ParseHeadingEvent.fireNewOutlineEvent;
-
+/**
+ * Responsible for collecting the headings of a parsed document. The headings
+ * are stored with the {@link Document} rather than published as they are
+ * found, which allows a document to be parsed one block at a time.
+ */
 public final class DocumentOutlineExtension implements MarkdownParserExtension {
   private static final Pattern REGEX = Pattern.compile( "^(#+)" );
 
+  /**
+   * Headings found in a parsed {@link Document}, in document order.
+   */
+  private static final NullableDataKey<List<Item>> OUTLINE =
+    new NullableDataKey<>( "OUTLINE" );
+
+  /**
+   * Describes a single heading within the document.
+   *
+   * @param level  A value between 1 and 6.
+   * @param text   The heading text (parsed and processed).
+   * @param offset Absolute offset into document where heading is found.
+   */
+  public record Item( int level, String text, int offset ) {
+    /**
+     * Returns a copy of this heading moved by the given number of characters.
+     *
+     * @param delta The number of characters to add to the offset.
+     * @return An equivalent heading at a different offset.
+     */
+    public Item shift( final int delta ) {
+      return delta == 0 ? this : new Item( level, text, offset + delta );
+    }
+  }
+
+  /**
+   * The outline most recently published, which avoids publishing the same
+   * outline again when a render leaves the headings unchanged.
+   */
+  private static List<Item> sPublished = List.of();
+
   private final Processor<String> mProcessor;
 
   private DocumentOutlineExtension( final Processor<String> processor ) {
@@ -35,7 +72,44 @@ public final class DocumentOutlineExtension implements MarkdownParserExtension {
     return new DocumentOutlineExtension( processor );
   }
 
+  /**
+   * Returns the headings collected while parsing the given document.
+   *
+   * @param document The document parsed with this extension.
+   * @return The headings in document order, or {@code null} if the document
+   * was parsed without this extension.
+   */
+  public static List<Item> getOutline( final Document document ) {
+    return document.contains( OUTLINE ) ? OUTLINE.get( document ) : null;
+  }
+
+  /**
+   * Replaces the document outline with the given headings, unless the
+   * headings are the same as those most recently published.
+   *
+   * @param outline The headings to publish, in document order.
+   */
+  public static void publish( final List<Item> outline ) {
+    final List<Item> headings;
+
+    synchronized( DocumentOutlineExtension.class ) {
+      if( outline.equals( sPublished ) ) {
+        return;
+      }
+
+      sPublished = headings = List.copyOf( outline );
+    }
+
+    ParseOutlineEvent.fire( headings );
+  }
+
   private class HeadingNodePostProcessor extends NodePostProcessor {
+    private final List<Item> mOutline;
+
+    private HeadingNodePostProcessor( final List<Item> outline ) {
+      mOutline = outline;
+    }
+
     @Override
     public void process(
       @NotNull final NodeTracker state, @NotNull final Node node ) {
@@ -46,7 +120,7 @@ public final class DocumentOutlineExtension implements MarkdownParserExtension {
         final var level = matcher.group().length();
         final var text = heading.substring( level );
         final var offset = node.getStartOffset();
-        ParseHeadingEvent.fire( level, text, offset );
+        mOutline.add( new Item( level, text, offset ) );
       }
     }
   }
@@ -60,8 +134,9 @@ public final class DocumentOutlineExtension implements MarkdownParserExtension {
     @NotNull
     @Override
     public NodePostProcessor apply( @NotNull final Document document ) {
-      fireNewOutlineEvent();
-      return new HeadingNodePostProcessor();
+      final var outline = new ArrayList<Item>();
+      OUTLINE.set( document, outline );
+      return new HeadingNodePostProcessor( outline );
     }
   }
 }
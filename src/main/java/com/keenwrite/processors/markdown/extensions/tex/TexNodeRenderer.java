@@ -3,7 +3,6 @@ package com.keenwrite.processors.markdown.extensions.tex;
 
 import com.keenwrite.ExportFormat;
 import com.keenwrite.preview.MathRenderer;
-import com.keenwrite.preview.SvgRasterizer;
 import com.vladsch.flexmark.html.HtmlWriter;
 import com.vladsch.flexmark.html.renderer.NodeRenderer;
 import com.vladsch.flexmark.html.renderer.NodeRendererContext;
@@ -120,10 +119,9 @@ public class TexNodeRenderer {
                  final NodeRendererContext context,
                  final HtmlWriter html ) {
       final var tex = node.getText().toStringOrNull();
-      final var doc = MathRenderer.toDocument(
+      final var svg = MathRenderer.toElement(
         tex == null ? "" : getEvaluator().apply( tex )
       );
-      final var svg = SvgRasterizer.toSvg( doc.getDocumentElement() );
       html.raw( svg );
     }
   }
@@ -5,21 +5,47 @@ import com.keenwrite.processors.ExecutorProcessor;
 import com.keenwrite.processors.ProcessorContext;
 import com.keenwrite.typesetting.Typesetter;
 
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.util.regex.Pattern;
+
 import static com.keenwrite.Bootstrap.APP_TITLE_ABBR;
 import static com.keenwrite.events.StatusEvent.clue;
 import static com.keenwrite.io.MediaType.TEXT_XML;
 import static com.keenwrite.io.SysFile.normalize;
 import static com.keenwrite.typesetting.Typesetter.Mutator;
+import static com.keenwrite.util.DataTypeConverter.hash;
+import static com.keenwrite.util.DataTypeConverter.toHex;
 import static com.keenwrite.util.Strings.sanitize;
 import static java.nio.charset.StandardCharsets.UTF_8;
-import static java.nio.file.Files.deleteIfExists;
-import static java.nio.file.Files.writeString;
+import static java.nio.file.Files.*;
+import static java.nio.file.StandardCopyOption.REPLACE_EXISTING;
+import static java.util.regex.Pattern.compile;
 
 /**
  * Responsible for using a typesetting engine to convert an XHTML document
  * into a PDF file. This must not be run from the JavaFX thread.
+ * <p>
+ * When typesetting incrementally, each document is typeset in its own
+ * working directory, which keeps the typesetter's auxiliary files between
+ * exports so that later exports need fewer passes. Typesetting is skipped
+ * when none of its inputs changed since the previous export.
+ * </p>
  */
 public final class PdfProcessor extends ExecutorProcessor<String> {
+  private static final String WORK_DIR = "typeset";
+  private static final String WORK_SOURCE = "document.xml";
+  private static final String WORK_TARGET = "document.pdf";
+  private static final String WORK_INPUTS = "document.sha1";
+
+  /**
+   * Finds the images that the typesetter reads.
+   */
+  private static final Pattern IMAGE_SOURCE =
+    compile( "<img\\s[^>]*?src=\"([^\"]+)\"" );
+
   private final ProcessorContext mProcessorContext;
 
   public PdfProcessor( final ProcessorContext context ) {
@@ -43,11 +69,8 @@ public final class PdfProcessor extends ExecutorProcessor<String> {
       final var targetPath = context.getTargetPath();
       clue( "Main.status.typeset.setting", "target", targetPath );
 
-      final var parent = normalize( targetPath.toAbsolutePath().getParent() );
-
-      final var document = TEXT_XML.createTempFile( APP_TITLE_ABBR, parent );
-      final var sourcePath = writeString( document, xhtml, UTF_8 );
-      clue( "Main.status.typeset.setting", "source", sourcePath );
+      final var incremental = context.getIncremental();
+      clue( "Main.status.typeset.setting", "incremental", incremental );
 
       final var themeDir = normalize( context.getThemeDir() );
       clue( "Main.status.typeset.setting", "themes", themeDir );
@@ -73,9 +96,42 @@ public final class PdfProcessor extends ExecutorProcessor<String> {
       final var autoRemove = context.getAutoRemove();
       clue( "Main.status.typeset.setting", "purge", autoRemove );
 
+      final Path document;
+      final Path typesetPath;
+      final Path workDir;
+      final String inputs;
+
+      if( incremental ) {
+        workDir = createDirectories(
+          cacheDir.resolve( WORK_DIR ).resolve( toId( targetPath ) )
+        );
+        document = workDir.resolve( WORK_SOURCE );
+        typesetPath = workDir.resolve( WORK_TARGET );
+        inputs = fingerprint(
+          xhtml, themeDir, imageDir, cacheDir, modesEnabled );
+
+        if( isUnchanged( workDir, inputs ) ) {
+          copy( typesetPath, targetPath, REPLACE_EXISTING );
+          clue( "Main.status.typeset.unchanged", targetPath );
+
+          return null;
+        }
+      }
+      else {
+        final var parent = normalize( targetPath.toAbsolutePath().getParent() );
+
+        workDir = parent;
+        document = TEXT_XML.createTempFile( APP_TITLE_ABBR, parent );
+        typesetPath = targetPath;
+        inputs = "";
+      }
+
+      final var sourcePath = writeString( document, xhtml, UTF_8 );
+      clue( "Main.status.typeset.setting", "source", sourcePath );
+
       final var typesetter = Typesetter
         .builder()
-        .with( Mutator::setTargetPath, targetPath )
+        .with( Mutator::setTargetPath, typesetPath )
         .with( Mutator::setSourcePath, sourcePath )
         .with( Mutator::setThemeDir, themeDir )
         .with( Mutator::setImageDir, imageDir )
@@ -83,15 +139,29 @@ public final class PdfProcessor extends ExecutorProcessor<String> {
         .with( Mutator::setFontDir, fontDir )
         .with( Mutator::setModesEnabled, modesEnabled )
         .with( Mutator::setAutoRemove, autoRemove )
+        .with( Mutator::setIncremental, incremental )
         .build();
 
-      try {
-        typesetter.typeset();
+      if( incremental ) {
+        // An export that fails must not be mistaken for the previous export,
+        // so neither its fingerprint nor its document may remain.
+        deleteIfExists( workDir.resolve( WORK_INPUTS ) );
+        deleteIfExists( typesetPath );
+
+        if( typesetter.typeset() && exists( typesetPath ) ) {
+          copy( typesetPath, targetPath, REPLACE_EXISTING );
+          writeString( workDir.resolve( WORK_INPUTS ), inputs, UTF_8 );
+        }
       }
-      finally {
-        // Smote the temporary file after typesetting the document.
-        if( typesetter.autoRemove() ) {
-          deleteIfExists( document );
+      else {
+        try {
+          typesetter.typeset();
+        }
+        finally {
+          // Smote the temporary file after typesetting the document.
+          if( typesetter.autoRemove() ) {
+            deleteIfExists( document );
+          }
         }
       }
     } catch( final Exception ex ) {
@@ -102,4 +172,84 @@ public final class PdfProcessor extends ExecutorProcessor<String> {
     // Do not continue processing (the document was typeset into a binary).
     return null;
   }
+
+  /**
+   * Answers whether the previous export in the given working directory
+   * succeeded using the same inputs.
+   *
+   * @param workDir The document's working directory.
+   * @param inputs  The fingerprint of the inputs for this export.
+   * @return {@code true} if the previously typeset document can be reused.
+   */
+  private static boolean isUnchanged( final Path workDir, final String inputs )
+    throws IOException {
+    final var previous = workDir.resolve( WORK_INPUTS );
+
+    return exists( previous ) &&
+      exists( workDir.resolve( WORK_TARGET ) ) &&
+      readString( previous, UTF_8 ).equals( inputs );
+  }
+
+  /**
+   * Computes a value that changes whenever the typeset document may change.
+   * Rather than reading every file, the theme files and referenced images
+   * are identified by their size and time of modification.
+   *
+   * @param xhtml    The document to typeset.
+   * @param themeDir The directory containing the selected theme.
+   * @param imageDir The directory containing local images.
+   * @param cacheDir The directory containing downloaded images.
+   * @param modes    The typesetting modes to enable.
+   * @return A hexadecimal hash of all the inputs.
+   */
+  private static String fingerprint(
+    final String xhtml,
+    final Path themeDir,
+    final Path imageDir,
+    final Path cacheDir,
+    final String modes ) throws Exception {
+    final var digest = MessageDigest.getInstance( "SHA-1" );
+    final var sb = new StringBuilder( 4096 ).append( modes ).append( '\n' );
+
+    digest.update( xhtml.getBytes( UTF_8 ) );
+
+    if( isDirectory( themeDir ) ) {
+      try( final var files = walk( themeDir ) ) {
+        files.filter( Files::isRegularFile )
+             .sorted()
+             .forEach( file -> append( sb, file ) );
+      }
+    }
+
+    final var matcher = IMAGE_SOURCE.matcher( xhtml );
+
+    while( matcher.find() ) {
+      final var src = matcher.group( 1 );
+
+      append( sb, imageDir.resolve( src ) );
+      append( sb, cacheDir.resolve( src ) );
+    }
+
+    digest.update( sb.toString().getBytes( UTF_8 ) );
+
+    return toHex( digest.digest() );
+  }
+
+  private static void append( final StringBuilder sb, final Path file ) {
+    final var f = file.toFile();
+
+    sb.append( f ).append( '|' )
+      .append( f.length() ).append( '|' )
+      .append( f.lastModified() ).append( '\n' );
+  }
+
+  /**
+   * Names the working directory for the given target document.
+   *
+   * @param targetPath The document to create.
+   * @return A name that is unique to the target document.
+   */
+  private static String toId( final Path targetPath ) throws Exception {
+    return toHex( hash( targetPath.toAbsolutePath().toString() ) );
+  }
 }
@@ -5,60 +5,338 @@ import com.keenwrite.collections.BoundedCache;
 
 import javax.script.ScriptEngine;
 import javax.script.ScriptEngineManager;
+import java.util.ArrayDeque;
+import java.util.Deque;
 import java.util.Map;
+import java.util.concurrent.ExecutorService;
 
 import static com.keenwrite.Messages.get;
 import static com.keenwrite.events.StatusEvent.clue;
+import static java.lang.Math.max;
 import static java.lang.Math.min;
+import static java.util.concurrent.Executors.newSingleThreadExecutor;
 
 /**
  * Responsible for executing R statements, which can also update the engine's
  * state.
+ * <p>
+ * Statements are evaluated by a small pool of engines so that threads
+ * rendering different documents need not wait for each other. Each thread
+ * keeps using the engine it used first, waiting for that engine if another
+ * thread has borrowed it, so that the state built by earlier statements
+ * (e.g., variables assigned in R chunks) remains available to later
+ * statements in the same document. Engines are created and run the
+ * bootstrap script in the background whenever the bootstrap script is set
+ * or the engines are cleared, so that rendering rarely pays either cost.
+ * </p>
+ * <p>
+ * Each engine caches the results of the statements that it has evaluated.
+ * The caches are not shared because statements can have side effects: a
+ * statement such as {@code x <- 5} must run on every engine that later
+ * evaluates statements reading {@code x}.
+ * </p>
  */
 public final class Engine {
   /**
-   * Inline R expressions that have already been evaluated.
+   * Maximum number of engines.
    */
-  private static final Map<String, String> sCache =
-    new BoundedCache<>( 768 );
+  private static final int POOL_SIZE =
+    max( 1, min( 4, Runtime.getRuntime().availableProcessors() ) );
 
   /**
-   * Engine for evaluating R expressions.
+   * Maximum number of results cached by each engine.
    */
-  private static final ScriptEngine sEngine =
-    new ScriptEngineManager().getEngineByName( "Renjin" );
+  private static final int CACHE_SIZE = 768;
 
   /**
-   * Empties the cache.
+   * Guards the idle engines and the number of engines created.
+   */
+  private static final Object sMutex = new Object();
+
+  /**
+   * Engines that are not evaluating statements.
+   */
+  private static final Deque<Session> sIdle = new ArrayDeque<>();
+
+  /**
+   * Number of engines that have been created or are being created.
+   */
+  private static int sCreated;
+
+  /**
+   * Engine used by the current thread.
+   */
+  private static final ThreadLocal<Session> sAffinity = new ThreadLocal<>();
+
+  /**
+   * Creates engines and runs the bootstrap script ahead of their use.
+   */
+  private static final ExecutorService sWarmer =
+    newSingleThreadExecutor( runnable -> {
+      final var thread = new Thread( runnable, "r-engine-warmer" );
+      thread.setDaemon( true );
+      return thread;
+    } );
+
+  /**
+   * R statements to run before evaluating statements on any engine. The
+   * revision increments whenever the engines must run the bootstrap again.
+   *
+   * @param revision Identifies the bootstrap that each engine has run.
+   * @param script   The R statements to run, which may be blank.
+   */
+  private record Bootstrap( int revision, String script ) { }
+
+  private static volatile Bootstrap sBootstrap = new Bootstrap( 0, "" );
+
+  /**
+   * An engine for evaluating R expressions along with the revision of the
+   * bootstrap script that it has run and the results that it has computed.
+   * Only the thread that borrowed the engine may use it.
+   */
+  private static final class Session {
+    private final ScriptEngine mEngine =
+      new ScriptEngineManager().getEngineByName( "Renjin" );
+
+    /**
+     * Inline R expressions that this engine has already evaluated.
+     */
+    private final Map<String, String> mCache =
+      new BoundedCache<>( CACHE_SIZE );
+
+    private int mRevision;
+
+    /**
+     * Answers whether this engine must run the bootstrap script again.
+     *
+     * @return {@code true} if the bootstrap script changed since last run.
+     */
+    private boolean isBehind() {
+      return mRevision != sBootstrap.revision();
+    }
+
+    /**
+     * Runs the bootstrap script, discarding cached results, if this engine
+     * has fallen behind.
+     */
+    private void synchronize() {
+      final var bootstrap = sBootstrap;
+
+      if( mRevision != bootstrap.revision() ) {
+        mRevision = bootstrap.revision();
+        mCache.clear();
+
+        if( !bootstrap.script().isBlank() ) {
+          try {
+            mEngine.eval( bootstrap.script() );
+          } catch( final Exception ex ) {
+            clue( ex );
+          }
+        }
+      }
+    }
+  }
+
+  /**
+   * Empties the caches and marks every engine as needing to run the
+   * bootstrap script again, which idle engines do in the background.
    */
   public static void clear() {
-    sCache.clear();
+    synchronized( sMutex ) {
+      final var bootstrap = sBootstrap;
+      sBootstrap = new Bootstrap(
+        bootstrap.revision() + 1, bootstrap.script() );
+    }
+
+    warm();
   }
 
   /**
-   * Look up an R expression from the cache then return the resulting object.
-   * If the R expression hasn't been cached, it'll first be evaluated.
+   * Sets the R statements that every engine runs before evaluating other
+   * statements. Engines are created, if necessary, and run the new bootstrap
+   * script in the background. Setting the same script again has no effect,
+   * so that existing R functionality is not overwritten.
    *
-   * @param r R expression to evaluate.
-   * @return The object resulting from the evaluation.
+   * @param script The R statements to run on every engine.
    */
-  public static String eval( final String r ) {
-    return sCache.computeIfAbsent( r, __ -> evaluate( r ) );
+  public static void bootstrap( final String script ) {
+    assert script != null;
+
+    synchronized( sMutex ) {
+      final var bootstrap = sBootstrap;
+
+      if( script.equals( bootstrap.script() ) ) {
+        return;
+      }
+
+      sBootstrap = new Bootstrap( bootstrap.revision() + 1, script );
+    }
+
+    warm();
   }
 
   /**
-   * Returns the result of an R expression as an object converted to string.
+   * Returns the R statements that every engine runs before evaluating other
+   * statements.
+   *
+   * @return The bootstrap script, which may be blank.
+   */
+  public static String getBootstrap() {
+    return sBootstrap.script();
+  }
+
+  /**
+   * Look up an R expression from the cache then return the resulting object.
+   * If the R expression hasn't been cached by the engine that evaluates it,
+   * it'll first be evaluated.
    *
    * @param r R expression to evaluate.
    * @return The object resulting from the evaluation.
    */
-  private static String evaluate( final String r ) {
+  public static String eval( final String r ) {
+    final var session = acquire();
+
     try {
-      return sEngine.eval( r ).toString();
+      session.synchronize();
+
+      var result = session.mCache.get( r );
+
+      // Failed expressions are not cached, so that they are attempted again.
+      if( result == null ) {
+        result = session.mEngine.eval( r ).toString();
+        session.mCache.put( r, result );
+      }
+
+      return result;
     } catch( final Exception ex ) {
       final var expr = r.substring( 0, min( r.length(), 50 ) );
       clue( get( "Main.status.error.r", expr, ex.getMessage() ), ex );
       throw new IllegalArgumentException( r );
+    } finally {
+      release( session );
     }
   }
+
+  /**
+   * Borrows the engine used by the current thread, waiting for it if another
+   * thread has borrowed it, because switching engines would lose the R state
+   * of earlier statements. A thread without an engine takes an idle engine,
+   * creates one if the pool is not full, or waits for an engine to become
+   * idle.
+   *
+   * @return An engine that no other thread is using.
+   */
+  private static Session acquire() {
+    final var preferred = sAffinity.get();
+
+    synchronized( sMutex ) {
+      try {
+        while( true ) {
+          if( preferred != null ) {
+            if( sIdle.remove( preferred ) ) {
+              return preferred;
+            }
+          }
+          else if( !sIdle.isEmpty() ) {
+            return claim( sIdle.removeFirst() );
+          }
+          else if( sCreated < POOL_SIZE ) {
+            sCreated++;
+            break;
+          }
+
+          sMutex.wait();
+        }
+      } catch( final InterruptedException ex ) {
+        Thread.currentThread().interrupt();
+        throw new IllegalStateException( ex );
+      }
+    }
+
+    // Engines are slow to create, so other threads are not held up.
+    return claim( create() );
+  }
+
+  /**
+   * Makes the given engine the one used by the current thread.
+   *
+   * @param session The engine borrowed by the current thread.
+   * @return The given engine.
+   */
+  private static Session claim( final Session session ) {
+    sAffinity.set( session );
+    return session;
+  }
+
+  /**
+   * Returns a borrowed engine to the pool.
+   *
+   * @param session The engine to make available to other threads.
+   */
+  private static void release( final Session session ) {
+    synchronized( sMutex ) {
+      sIdle.addLast( session );
+      sMutex.notifyAll();
+    }
+  }
+
+  /**
+   * Creates an engine whose creation was already counted.
+   *
+   * @return A new engine.
+   */
+  private static Session create() {
+    try {
+      return new Session();
+    } catch( final RuntimeException | Error ex ) {
+      synchronized( sMutex ) {
+        sCreated--;
+        sMutex.notifyAll();
+      }
+
+      throw ex;
+    }
+  }
+
+  /**
+   * Creates the remaining engines and runs the bootstrap script on idle
+   * engines that have fallen behind, in the background.
+   */
+  private static void warm() {
+    sWarmer.execute( () -> {
+      while( true ) {
+        Session session = null;
+
+        synchronized( sMutex ) {
+          if( sCreated < POOL_SIZE ) {
+            sCreated++;
+          }
+          else {
+            for( final var idle : sIdle ) {
+              if( idle.isBehind() ) {
+                session = idle;
+                break;
+              }
+            }
+
+            if( session == null ) {
+              return;
+            }
+
+            sIdle.remove( session );
+          }
+        }
+
+        if( session == null ) {
+          session = create();
+        }
+
+        try {
+          session.synchronize();
+        } finally {
+          release( session );
+        }
+      }
+    } );
+  }
 }
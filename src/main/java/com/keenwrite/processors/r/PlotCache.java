@@ -0,0 +1,185 @@
+/* Copyright 2024 White Magic Software, Ltd. -- All rights reserved.
+ *
+ * SPDX-License-Identifier: MIT
+ */
+package com.keenwrite.processors.r;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+import static com.keenwrite.constants.Constants.TEMPORARY_DIRECTORY;
+import static com.keenwrite.events.StatusEvent.clue;
+import static com.keenwrite.util.DataTypeConverter.hash;
+import static com.keenwrite.util.DataTypeConverter.toHex;
+import static java.nio.file.StandardCopyOption.ATOMIC_MOVE;
+import static java.nio.file.StandardCopyOption.REPLACE_EXISTING;
+
+/**
+ * Responsible for keeping the plots produced by R chunks in a directory so
+ * that R need not plot them again after the application is restarted. Plots
+ * are named after a hash of everything that determines their content, such
+ * as the chunk's statements and the bootstrap script. The bootstrap script
+ * may affect any chunk, so changing it, including any definition that it
+ * references, causes every chunk to be plotted again. A cached plot is used
+ * without evaluating its R chunk, much like repeated R statements are not
+ * evaluated again by {@link Engine}. Plots that are not used for a long time
+ * are deleted, as are the least recently used plots when the total size of
+ * the plots exceeds a limit.
+ */
+public final class PlotCache {
+  private static final String SUBDIRECTORY = "plots";
+  private static final String EXTENSION = ".svg";
+  private static final String TEMPORARY = ".tmp";
+
+  /**
+   * Maximum number of bytes to keep on disk before evicting plots.
+   */
+  private static final long MAX_SIZE = 64L * 1024 * 1024;
+
+  /**
+   * Plots that have not been used for this long are evicted.
+   */
+  private static final Duration MAX_AGE = Duration.ofDays( 30 );
+
+  private final Supplier<Path> mCacheDir;
+
+  /**
+   * Creates a cache that stores plots beneath the given directory.
+   *
+   * @param cacheDir Provides the directory for cache files.
+   */
+  public PlotCache( final Supplier<Path> cacheDir ) {
+    assert cacheDir != null;
+
+    mCacheDir = cacheDir;
+  }
+
+  /**
+   * Returns the plot file for the given source, plotting it if not cached.
+   * The plotter is given a temporary file to write, which replaces the
+   * cached file only once complete.
+   *
+   * @param source  Every input that determines the plot's content.
+   * @param plotter Writes the plot to the given file.
+   * @return The plot file, which is missing if the plotter failed.
+   */
+  public Path get( final String source, final Consumer<Path> plotter ) {
+    final var dir = getDir();
+    final var name = toName( source );
+    final var path = dir.resolve( name + EXTENSION );
+
+    try {
+      if( Files.size( path ) > 0 ) {
+        // Persist the recent use so that eviction order survives restarts.
+        Files.setLastModifiedTime(
+          path, FileTime.fromMillis( System.currentTimeMillis() )
+        );
+
+        return path;
+      }
+    } catch( final IOException ignored ) {
+      // Not cached, so plot it.
+    }
+
+    try {
+      final var temp = Files.createTempFile( dir, name, TEMPORARY );
+
+      try {
+        plotter.accept( temp );
+
+        if( Files.size( temp ) > 0 ) {
+          Files.move( temp, path, ATOMIC_MOVE, REPLACE_EXISTING );
+          evict( dir );
+        }
+      } finally {
+        Files.deleteIfExists( temp );
+      }
+    } catch( final IOException ex ) {
+      clue( ex );
+    }
+
+    return path;
+  }
+
+  /**
+   * Deletes expired plots, then the least recently used plots until the
+   * cache fits.
+   *
+   * @param dir The directory containing cached plots.
+   */
+  private static void evict( final Path dir ) throws IOException {
+    final var expired = System.currentTimeMillis() - MAX_AGE.toMillis();
+    final var plots = new ArrayList<Path>();
+    long size = 0;
+
+    try( final var files = Files.list( dir ) ) {
+      for( final var it = files.iterator(); it.hasNext(); ) {
+        final var file = it.next();
+
+        if( file.toString().endsWith( EXTENSION ) ) {
+          if( lastModified( file ) < expired ) {
+            Files.deleteIfExists( file );
+          }
+          else {
+            plots.add( file );
+            size += file.toFile().length();
+          }
+        }
+      }
+    }
+
+    plots.sort( Comparator.comparingLong( PlotCache::lastModified ) );
+
+    for( final var it = plots.iterator(); size > MAX_SIZE && it.hasNext(); ) {
+      final var file = it.next();
+      size -= file.toFile().length();
+      Files.deleteIfExists( file );
+    }
+  }
+
+  /**
+   * Returns the directory for cached plots, falling back to the temporary
+   * directory if the cache directory cannot be created.
+   *
+   * @return The directory to contain plots.
+   */
+  private Path getDir() {
+    try {
+      final var cacheDir = mCacheDir.get();
+
+      if( cacheDir != null ) {
+        return Files.createDirectories( cacheDir.resolve( SUBDIRECTORY ) );
+      }
+    } catch( final Exception ex ) {
+      clue( ex );
+    }
+
+    return Path.of( TEMPORARY_DIRECTORY );
+  }
+
+  /**
+   * Hashes the given source to name its plot file. This avoids the
+   * collisions of {@link String#hashCode()}, which would show the wrong plot.
+   *
+   * @param source The text to hash.
+   * @return The hash of the given text as a hexadecimal string.
+   */
+  private static String toName( final String source ) {
+    try {
+      return toHex( hash( source ) );
+    } catch( final Exception ex ) {
+      return Integer.toHexString( source.hashCode() );
+    }
+  }
+
+  private static long lastModified( final Path path ) {
+    return path.toFile().lastModified();
+  }
+}
@@ -11,7 +11,6 @@ import java.util.HashMap;
 import java.util.Map;
 import java.util.function.Supplier;
 
-import static com.keenwrite.events.StatusEvent.clue;
 import static com.keenwrite.preferences.AppKeys.KEY_R_DIR;
 import static com.keenwrite.preferences.AppKeys.KEY_R_SCRIPT;
 import static com.keenwrite.processors.variable.RVariableProcessor.escape;
@@ -48,7 +47,7 @@ public final class RBootstrapController {
   /**
    * Updates the R code so that R can find imported libraries. Note that
    * any existing R functionality will not be overwritten if this method is
-   * called multiple times.
+   * called multiple times. The R engines run the code before their next use.
    */
   public void update() {
     final var bootstrap = getRScript();
@@ -84,11 +83,7 @@ public final class RBootstrapController {
         escape( workingDir )
       );
 
-      try {
-        Engine.eval( replace( bootstrap, map ) );
-      } catch( final Exception ex ) {
-        clue( ex );
-      }
+      Engine.bootstrap( replace( bootstrap, map ) );
     }
   }
 
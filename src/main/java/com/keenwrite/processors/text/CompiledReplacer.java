@@ -0,0 +1,118 @@
+/* Copyright 2024 White Magic Software, Ltd. -- All rights reserved.
+ *
+ * SPDX-License-Identifier: MIT
+ */
+package com.keenwrite.processors.text;
+
+import org.ahocorasick.trie.Trie;
+
+import java.util.Map;
+import java.util.function.Supplier;
+
+import static com.keenwrite.util.Strings.sanitize;
+import static org.ahocorasick.trie.Trie.builder;
+
+/**
+ * Responsible for replacing keys with values using an Aho-Corasick trie that
+ * is built once per version of a map, rather than once per replacement. The
+ * version is an arbitrary stamp supplied by the caller that must change
+ * whenever the map's contents change.
+ */
+public final class CompiledReplacer {
+  private final Object mMutex = new Object();
+
+  /**
+   * Reused between replacements to avoid reallocating large buffers.
+   */
+  private final StringBuilder mBuffer = new StringBuilder( 1024 );
+
+  private Map<String, String> mMap = Map.of();
+  private Trie mTrie = builder().build();
+  private long mVersion;
+  private boolean mCompiled;
+
+  /**
+   * Rebuilds the trie from the given map's keys if the version differs from
+   * the version of the most recently compiled map.
+   *
+   * @param version Changes whenever the map's contents change.
+   * @param map     Supplies the keys and values, called only when the
+   *                version differs from that of the previous compilation.
+   * @return The map of keys to values that was compiled.
+   */
+  public Map<String, String> compile(
+    final long version, final Supplier<Map<String, String>> map ) {
+    assert map != null;
+
+    synchronized( mMutex ) {
+      if( !mCompiled || version != mVersion ) {
+        final var compiled = map.get();
+        assert compiled != null;
+
+        // Definition names cannot overlap.
+        mTrie = builder()
+          .ignoreOverlaps()
+          .addKeywords( compiled.keySet() )
+          .build();
+        mMap = compiled;
+        mVersion = version;
+        mCompiled = true;
+      }
+
+      return mMap;
+    }
+  }
+
+  /**
+   * Replaces every key in the given text with its value from the most
+   * recently compiled map.
+   *
+   * @param text The text that contains zero or more keys.
+   * @return The given text with all keys replaced with corresponding values.
+   */
+  public String replace( final String text ) {
+    synchronized( mMutex ) {
+      mBuffer.setLength( 0 );
+      replace( text, mBuffer );
+
+      final var result = mBuffer.toString();
+
+      // Release memory held by unusually large documents.
+      if( mBuffer.capacity() > 1 << 20 ) {
+        mBuffer.setLength( 0 );
+        mBuffer.trimToSize();
+      }
+
+      return result;
+    }
+  }
+
+  /**
+   * Appends the given text to the buffer, replacing every key with its value
+   * from the most recently compiled map.
+   *
+   * @param text   The text that contains zero or more keys.
+   * @param buffer Receives the text having all keys replaced.
+   */
+  public void replace( final String text, final StringBuilder buffer ) {
+    final var haystack = sanitize( text );
+    final Trie trie;
+    final Map<String, String> map;
+
+    synchronized( mMutex ) {
+      trie = mTrie;
+      map = mMap;
+    }
+
+    int index = 0;
+
+    for( final var emit : trie.parseText( haystack ) ) {
+      buffer.append( haystack, index, emit.getStart() );
+      buffer.append( map.get( emit.getKeyword() ) );
+      index = emit.getEnd() + 1;
+    }
+
+    // Add the remainder of the string (contains no more matches).
+    buffer.append( haystack, index, haystack.length() );
+  }
+}
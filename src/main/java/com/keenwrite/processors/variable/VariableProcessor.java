@@ -4,13 +4,14 @@ package com.keenwrite.processors.variable;
 import com.keenwrite.processors.ExecutorProcessor;
 import com.keenwrite.processors.Processor;
 import com.keenwrite.processors.ProcessorContext;
+import com.keenwrite.processors.text.CompiledReplacer;
 import com.keenwrite.sigils.SigilKeyOperator;
 
 import java.util.HashMap;
 import java.util.Map;
 import java.util.function.Function;
 
-import static com.keenwrite.processors.text.TextReplacementFactory.replace;
+import static com.keenwrite.collections.VersionedMap.versionOf;
 
 /**
  * Processes interpolated string definitions in the document and inserts
@@ -23,6 +24,11 @@ public class VariableProcessor
   private final ProcessorContext mContext;
   private final SigilKeyOperator mSigilOperator;
 
+  /**
+   * Optimization: Rebuild the search trie only when the definitions change.
+   */
+  private final CompiledReplacer mReplacer = new CompiledReplacer();
+
   /**
    * Constructs a processor capable of interpolating string definitions.
    *
@@ -51,12 +57,19 @@ public class VariableProcessor
   }
 
   /**
-   * Returns the map to use for variable substitution.
+   * Returns the map to use for variable substitution. The definitions are
+   * interpolated and wrapped in sigils only after they have changed.
    *
    * @return A map of variable names to values, with keys wrapped in sigils.
    */
   public Map<String, String> getDefinitions() {
-    return entoken( mContext.getInterpolatedDefinitions() );
+    // The definition editor updates its map in place, so the map's version
+    // determines whether the definitions have changed.
+    final var version = versionOf( mContext.getDefinitions() );
+
+    return mReplacer.compile(
+      version, () -> entoken( mContext.getInterpolatedDefinitions() )
+    );
   }
 
   /**
@@ -103,7 +116,9 @@ public class VariableProcessor
   public String apply( final String text ) {
     assert text != null;
 
-    return replace( text, getDefinitions() );
+    getDefinitions();
+
+    return mReplacer.replace( text );
   }
 
   /**
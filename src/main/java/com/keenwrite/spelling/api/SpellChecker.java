@@ -32,11 +32,12 @@ public interface SpellChecker {
 
   /**
    * Iterates over the given text, emitting starting and ending offsets into
-   * the text for every word that is missing from the lexicon.
+   * the text for every word that is missing from the lexicon. Implementations
+   * must permit proofreading different texts on different threads at once.
    *
    * @param text     The text to check for words missing from the lexicon.
    * @param consumer Every missing word emits a message with the starting
    *                 and ending offset into the text where said word is found.
    */
-  void proofread( String text, SpellCheckListener consumer );
+  void proofread( CharSequence text, SpellCheckListener consumer );
 }
@@ -7,131 +7,201 @@ package com.keenwrite.spelling.impl;
 import com.keenwrite.events.spelling.LexiconLoadedEvent;
 import com.keenwrite.exceptions.MissingFileException;
 
-import java.io.BufferedReader;
-import java.io.InputStream;
-import java.io.InputStreamReader;
-import java.util.HashMap;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.URL;
+import java.nio.file.Path;
 import java.util.Locale;
+import java.util.concurrent.ExecutorService;
 
+import static com.keenwrite.Bootstrap.APP_TITLE_ABBR;
+import static com.keenwrite.Bootstrap.USER_CACHE_DIR;
 import static com.keenwrite.constants.Constants.LEXICONS_DIRECTORY;
 import static com.keenwrite.events.StatusEvent.clue;
+import static com.keenwrite.spelling.impl.LexiconCompiler.SOURCE_EXTENSION;
+import static com.keenwrite.spelling.impl.LexiconCompiler.TARGET_EXTENSION;
+import static com.keenwrite.util.DataTypeConverter.hash;
+import static com.keenwrite.util.DataTypeConverter.toHex;
 import static java.lang.String.format;
-import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.nio.file.Files.*;
+import static java.nio.file.StandardCopyOption.ATOMIC_MOVE;
+import static java.util.concurrent.Executors.newSingleThreadExecutor;
 
 /**
- * Responsible for loading a set of single words, asynchronously.
+ * Responsible for loading a lexicon, asynchronously. Lexicons are compiled
+ * into {@link LexiconIndex} files when the application is built. The first
+ * time a language is loaded, its lexicon is extracted into the cache
+ * directory and indexed for spelling suggestions; afterwards, the index is
+ * mapped into memory without being read. When no compiled lexicon is
+ * bundled, such as when running from the sources, the text lexicon is
+ * compiled instead.
  */
 public final class Lexicon {
   /**
-   * Most lexicons have 100,000 words.
+   * File name extension of lexicons that include the index of deletions.
    */
-  private static final int LEXICON_CAPACITY = 100_000;
+  private static final String INDEX_EXTENSION = ".idx";
 
   /**
-   * The word-frequency entries are tab-delimited.
+   * Loads lexicons one at a time, in the background, so that the UI can load
+   * faster and rapid locale changes do not compete for the disk.
    */
-  private static final char DELIMITER = '\t';
+  private static final ExecutorService sLoader =
+    newSingleThreadExecutor( runnable -> {
+      final var thread = new Thread( runnable, "lexicon-loader" );
+      thread.setDaemon( true );
+      return thread;
+    } );
 
   /**
-   * Load the lexicon into memory then fire an event indicating that the
-   * word-frequency pairs are available to use for spellchecking. This
-   * happens asynchronously so that the UI can load faster.
+   * Writes a file's contents.
+   */
+  @FunctionalInterface
+  private interface Writer {
+    void write( OutputStream out ) throws IOException;
+  }
+
+  /**
+   * Map the lexicon into memory then fire an event indicating that the
+   * word-frequency pairs are available to use for spellchecking.
    *
    * @param locale The locale having a corresponding lexicon to load.
    */
   public static void read( final Locale locale ) {
     assert locale != null;
 
-    new Thread( read( toResourcePath( locale ) ) ).start();
-  }
-
-  private static Runnable read( final String path ) {
-    return () -> {
-      try( final var resource = openResource( path ) ) {
-        read( resource );
+    sLoader.execute( () -> {
+      try {
+        load( locale.getLanguage() );
       } catch( final Exception ex ) {
         clue( ex );
       }
-    };
+    } );
   }
 
-  private static void read( final InputStream resource ) {
-    try( final var input = new InputStreamReader( resource, UTF_8 );
-         final var reader = new BufferedReader( input ) ) {
-      read( reader );
-    } catch( final Exception ex ) {
-      clue( ex );
+  /**
+   * Loads the cached index for the given language, creating the index if
+   * necessary. Cached file names are derived from the bundled resource, so
+   * updated lexicons are extracted anew. While the index is being created,
+   * the lexicon's words are published so that spell checking can begin.
+   *
+   * @param language The language of the lexicon to load.
+   */
+  private static void load( final String language ) throws Exception {
+    final var compiled = getResource( language, TARGET_EXTENSION );
+    final var resource = compiled == null
+      ? getResource( language, SOURCE_EXTENSION )
+      : compiled;
+
+    if( resource == null ) {
+      throw new MissingFileException(
+        toResourcePath( language, SOURCE_EXTENSION ) );
     }
-  }
 
-  private static void read( final BufferedReader reader ) {
-    try {
-      long count = 0;
-      final var lexicon = new HashMap<String, Long>( LEXICON_CAPACITY );
-      String line;
+    final var connection = resource.openConnection();
+    final var stamp = toHex( hash(
+      resource + "|" +
+        connection.getContentLengthLong() + "|" +
+        connection.getLastModified()
+    ) );
+    final var dir = createDirectories(
+      USER_CACHE_DIR.toPath().resolve( LEXICONS_DIRECTORY ) );
+    final var prefix = format( "%s-%s", language, stamp );
+    final var indexed = dir.resolve( prefix + INDEX_EXTENSION );
+
+    if( !exists( indexed ) ) {
+      if( compiled == null ) {
+        create( indexed, out -> {
+          try( final var in = connection.getInputStream() ) {
+            LexiconCompiler.compile( in, out, true );
+          }
+        } );
+      }
+      else {
+        final var bundled = dir.resolve( prefix + TARGET_EXTENSION );
 
-      while( (line = reader.readLine()) != null ) {
-        final var index = line.indexOf( DELIMITER );
-        final var word = line.substring( 0, index == -1 ? 0 : index );
-        final var frequency = parse( line.substring( index + 1 ) );
+        create( bundled, out -> {
+          try( final var in = connection.getInputStream() ) {
+            in.transferTo( out );
+          }
+        } );
 
-        lexicon.put( word, frequency );
+        final var lexicon = LexiconIndex.open( bundled );
 
-        // Slower machines may benefit users by showing a loading message.
-        if( ++count % 25_000 == 0 ) {
-          status( "loading", count );
-        }
+        publish( lexicon );
+        create( indexed, lexicon::write );
       }
 
-      // Indicate that loading the lexicon is finished.
-      status( "loaded", count );
-      LexiconLoadedEvent.fire( lexicon );
-    } catch( final Exception ex ) {
-      clue( ex );
+      purge( dir, language, indexed );
     }
+
+    publish( LexiconIndex.open( indexed ) );
+  }
+
+  private static void publish( final LexiconIndex lexicon ) {
+    // Indicate that loading the lexicon is finished.
+    clue( "Main.status.lexicon.loaded", lexicon.size() );
+    LexiconLoadedEvent.fire( lexicon );
   }
 
   /**
-   * Prevents autoboxing and uses cached values when possible. A return value
-   * of 0L means that the word will receive the lowest priority. If there's
-   * an error (i.e., data corruption) parsing the number, the spell checker
-   * will still work, but be suboptimal for all erroneous entries.
+   * Writes a file such that it is never seen partially written.
    *
-   * @param number The numeric value to parse into a long object.
-   * @return The parsed value, or 0L if the number couldn't be parsed.
+   * @param target The file to create.
+   * @param writer Writes the file's contents.
    */
-  private static Long parse( final String number ) {
+  private static void create( final Path target, final Writer writer )
+    throws IOException {
+    final var temp = createTempFile( target.getParent(), APP_TITLE_ABBR, null );
+
     try {
-      return Long.valueOf( number );
-    } catch( final NumberFormatException ex ) {
-      clue( ex );
-      return 0L;
+      try( final var out = newOutputStream( temp ) ) {
+        writer.write( out );
+      }
+
+      move( temp, target, ATOMIC_MOVE );
+    } finally {
+      deleteIfExists( temp );
     }
   }
 
-  private static InputStream openResource( final String path )
-    throws MissingFileException {
-    final var resource = Lexicon.class.getResourceAsStream( path );
-
-    if( resource == null ) {
-      throw new MissingFileException( path );
+  /**
+   * Deletes lexicons for the given language other than the given index,
+   * such as those extracted from lexicons bundled with previous versions.
+   */
+  private static void purge(
+    final Path dir, final String language, final Path keep ) {
+    try( final var files = list( dir ) ) {
+      files.filter( file -> !file.equals( keep ) )
+           .filter( file -> file.getFileName()
+                                .toString()
+                                .startsWith( language + "-" ) )
+           .forEach( file -> {
+             try {
+               deleteIfExists( file );
+             } catch( final IOException ignored ) {
+               // Mapped files cannot be deleted on some platforms; a
+               // subsequent load deletes them.
+             }
+           } );
+    } catch( final IOException ex ) {
+      clue( ex );
     }
+  }
 
-    return resource;
+  private static URL getResource( final String language, final String ext ) {
+    return Lexicon.class.getResource( toResourcePath( language, ext ) );
   }
 
   /**
-   * Convert a {@link Locale} into a path that can be loaded as a resource.
+   * Convert a language into a path that can be loaded as a resource.
    *
-   * @param locale The {@link Locale} to convert to a resource.
+   * @param language The language of the lexicon.
+   * @param ext      The file name extension of the lexicon.
    * @return The slash-separated path to a lexicon resource file.
    */
-  private static String toResourcePath( final Locale locale ) {
-    final var language = locale.getLanguage();
-    return format( "/%s/%s.txt", LEXICONS_DIRECTORY, language );
-  }
-
-  private static void status( final String s, final long count ) {
-    clue( "Main.status.lexicon." + s, count );
+  private static String toResourcePath(
+    final String language, final String ext ) {
+    return format( "/%s/%s%s", LEXICONS_DIRECTORY, language, ext );
   }
 }
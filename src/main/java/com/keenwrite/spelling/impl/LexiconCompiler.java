@@ -0,0 +1,131 @@
+/* Copyright 2024 White Magic Software, Ltd. -- All rights reserved.
+ *
+ * SPDX-License-Identifier: MIT
+ */
+package com.keenwrite.spelling.impl;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.nio.file.Files.*;
+
+/**
+ * Responsible for converting tab-separated word-frequency lexicons into
+ * {@link LexiconIndex} files. The build runs this for every lexicon so that
+ * the application need not parse the text files when it starts. Bundled
+ * lexicons omit the index of deletions, which is several times larger than
+ * the words; the application indexes them once, on first use.
+ */
+public final class LexiconCompiler {
+  /**
+   * Most lexicons have 100,000 words.
+   */
+  private static final int LEXICON_CAPACITY = 100_000;
+
+  /**
+   * The word-frequency entries are tab-delimited.
+   */
+  private static final char DELIMITER = '\t';
+
+  /**
+   * File name extension of text lexicons.
+   */
+  static final String SOURCE_EXTENSION = ".txt";
+
+  /**
+   * File name extension of compiled lexicons.
+   */
+  static final String TARGET_EXTENSION = ".lex";
+
+  private LexiconCompiler() { }
+
+  /**
+   * Compiles every text lexicon in a directory.
+   *
+   * @param args The directory of text lexicons followed by the directory to
+   *             write the compiled lexicons.
+   * @throws IOException A lexicon could not be read or written.
+   */
+  public static void main( final String[] args ) throws IOException {
+    if( args.length != 2 ) {
+      throw new IllegalArgumentException(
+        "Usage: LexiconCompiler source-dir target-dir" );
+    }
+
+    final var sourceDir = Path.of( args[ 0 ] );
+    final var targetDir = createDirectories( Path.of( args[ 1 ] ) );
+
+    try( final var sources = list( sourceDir ) ) {
+      for( final var source : sources.toList() ) {
+        final var name = source.getFileName().toString();
+
+        if( name.endsWith( SOURCE_EXTENSION ) ) {
+          final var target = targetDir.resolve(
+            name.replace( SOURCE_EXTENSION, TARGET_EXTENSION ) );
+
+          try( final var in = newInputStream( source );
+               final var out = newOutputStream( target ) ) {
+            compile( in, out, false );
+          }
+        }
+      }
+    }
+  }
+
+  /**
+   * Converts a text lexicon into an index.
+   *
+   * @param in      The tab-separated word-frequency pairs, closed by the
+   *                caller.
+   * @param out     Receives the index, closed by the caller.
+   * @param deletes Whether to include the index of deletions.
+   * @throws IOException The lexicon could not be read or written.
+   */
+  static void compile(
+    final InputStream in, final OutputStream out, final boolean deletes )
+    throws IOException {
+    LexiconIndex.write( read( in ), deletes, out );
+  }
+
+  private static Map<String, Long> read( final InputStream in )
+    throws IOException {
+    final var reader = new BufferedReader( new InputStreamReader( in, UTF_8 ) );
+    final var lexicon = new HashMap<String, Long>( LEXICON_CAPACITY );
+    String line;
+
+    while( (line = reader.readLine()) != null ) {
+      final var index = line.indexOf( DELIMITER );
+
+      if( index > 0 ) {
+        lexicon.put(
+          line.substring( 0, index ), parse( line.substring( index + 1 ) ) );
+      }
+    }
+
+    return lexicon;
+  }
+
+  /**
+   * A return value of 0L means that the word will receive the lowest
+   * priority. If there's an error (i.e., data corruption) parsing the number,
+   * the spell checker will still work, but be suboptimal for all erroneous
+   * entries.
+   *
+   * @param number The numeric value to parse into a long object.
+   * @return The parsed value, or 0L if the number couldn't be parsed.
+   */
+  private static Long parse( final String number ) {
+    try {
+      return Long.valueOf( number.trim() );
+    } catch( final NumberFormatException ex ) {
+      return 0L;
+    }
+  }
+}
@@ -0,0 +1,491 @@
+/* Copyright 2024 White Magic Software, Ltd. -- All rights reserved.
+ *
+ * SPDX-License-Identifier: MIT
+ */
+package com.keenwrite.spelling.impl;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.IntBuffer;
+import java.nio.LongBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.function.IntConsumer;
+
+import static java.lang.Character.toLowerCase;
+import static java.lang.Math.min;
+import static java.nio.channels.FileChannel.MapMode.READ_ONLY;
+import static java.nio.file.StandardOpenOption.READ;
+
+/**
+ * Responsible for a word-frequency lexicon, along with its SymSpell index of
+ * deletions, in a binary format that can be memory-mapped. Nothing is read
+ * into the heap when the index is opened; the operating system pages in the
+ * parts of the file that lookups touch.
+ * <p>
+ * The file contains the following sections, all big-endian:
+ * </p>
+ * <ol>
+ *   <li>header of eight integers: magic number, format version, maximum
+ *   edit distance, prefix length, word count, character count (padded to
+ *   even), deletion key count, and posting count;</li>
+ *   <li>each word's frequency, as longs, in word order;</li>
+ *   <li>each word's starting character offset, plus the ending offset;</li>
+ *   <li>the characters of all words, sorted by {@link String#compareTo};</li>
+ *   <li>the sorted, distinct hash codes of every deletion;</li>
+ *   <li>each hash code's starting posting offset, plus the ending offset;</li>
+ *   <li>the word identifiers having a deletion with each hash code.</li>
+ * </ol>
+ * <p>
+ * The last three sections are empty when the deletions are omitted.
+ * </p>
+ * <p>
+ * Instances may be shared between threads.
+ * </p>
+ */
+public final class LexiconIndex {
+  /**
+   * Identifies the file format ("KWLX").
+   */
+  private static final int MAGIC = 0x4B574C58;
+
+  /**
+   * Changes whenever the file format changes, which invalidates existing
+   * index files.
+   */
+  private static final int VERSION = 1;
+
+  private static final int HEADER_INTS = 8;
+
+  /**
+   * Largest number of edits between a misspelling and its suggestions.
+   */
+  public static final int MAX_EDIT_DISTANCE = 2;
+
+  /**
+   * Only deletions from the start of each word are indexed, which reduces
+   * the size of the index without affecting the suggestions.
+   */
+  public static final int PREFIX_LENGTH = 7;
+
+  private final int mMaxEditDistance;
+  private final int mPrefixLength;
+  private final LongBuffer mFrequencies;
+  private final IntBuffer mStarts;
+  private final CharBuffer mText;
+  private final IntBuffer mKeys;
+  private final IntBuffer mPostingStarts;
+  private final IntBuffer mPostings;
+
+  private LexiconIndex( final ByteBuffer buffer ) throws IOException {
+    final var header = buffer.slice( 0, HEADER_INTS * Integer.BYTES )
+                             .asIntBuffer();
+
+    if( header.get( 0 ) != MAGIC || header.get( 1 ) != VERSION ) {
+      throw new IOException( "Unsupported lexicon index" );
+    }
+
+    mMaxEditDistance = header.get( 2 );
+    mPrefixLength = header.get( 3 );
+
+    final var words = header.get( 4 );
+    final var chars = header.get( 5 );
+    final var keys = header.get( 6 );
+    final var postings = header.get( 7 );
+    final var offset = new int[]{HEADER_INTS * Integer.BYTES};
+
+    mFrequencies = slice( buffer, offset, words, Long.BYTES ).asLongBuffer();
+    mStarts = slice( buffer, offset, words + 1, Integer.BYTES ).asIntBuffer();
+    mText = slice( buffer, offset, chars, Character.BYTES ).asCharBuffer();
+    mKeys = slice( buffer, offset, keys, Integer.BYTES ).asIntBuffer();
+    mPostingStarts =
+      slice( buffer, offset, keys + 1, Integer.BYTES ).asIntBuffer();
+    mPostings = slice( buffer, offset, postings, Integer.BYTES ).asIntBuffer();
+  }
+
+  /**
+   * Maps the given index file into memory.
+   *
+   * @param path The file created using {@link #write(OutputStream)}.
+   * @return The lexicon contained in the file.
+   * @throws IOException The file could not be read or is not an index.
+   */
+  public static LexiconIndex open( final Path path ) throws IOException {
+    try( final var channel = FileChannel.open( path, READ ) ) {
+      return new LexiconIndex( channel.map( READ_ONLY, 0, channel.size() ) );
+    } catch( final IndexOutOfBoundsException ex ) {
+      throw new IOException( "Truncated lexicon index: " + path, ex );
+    }
+  }
+
+  /**
+   * Returns the number of words in the lexicon.
+   *
+   * @return The lexicon size.
+   */
+  public int size() {
+    return mFrequencies.limit();
+  }
+
+  public int getMaxEditDistance() {
+    return mMaxEditDistance;
+  }
+
+  public int getPrefixLength() {
+    return mPrefixLength;
+  }
+
+  /**
+   * Finds the given word, exactly, using a binary search that compares the
+   * mapped characters in place.
+   *
+   * @param word The word to find.
+   * @return The word's identifier, or a negative number if absent.
+   */
+  public int find( final String word ) {
+    return find( word, 0, word.length(), false );
+  }
+
+  /**
+   * Finds a word within the given text, in lowercase, without copying the
+   * word out of the text. Each character is folded to lowercase as it is
+   * compared; lexicon words are lowercase.
+   *
+   * @param text  The text containing the word to find.
+   * @param began Offset into the text where the word begins.
+   * @param ended Offset into the text where the word ends.
+   * @return The word's identifier, or a negative number if absent.
+   */
+  public int find(
+    final CharSequence text, final int began, final int ended ) {
+    return find( text, began, ended, true );
+  }
+
+  private int find(
+    final CharSequence text,
+    final int began,
+    final int ended,
+    final boolean fold ) {
+    int lo = 0;
+    int hi = size() - 1;
+
+    while( lo <= hi ) {
+      final int mid = (lo + hi) >>> 1;
+      final int cmp = compare( mid, text, began, ended, fold );
+
+      if( cmp < 0 ) {
+        lo = mid + 1;
+      }
+      else if( cmp > 0 ) {
+        hi = mid - 1;
+      }
+      else {
+        return mid;
+      }
+    }
+
+    return -1;
+  }
+
+  /**
+   * Returns the word having the given identifier.
+   *
+   * @param id A value from {@link #find(String)} or {@link #deletes}.
+   * @return The word for the identifier.
+   */
+  public String word( final int id ) {
+    final int began = mStarts.get( id );
+    return mText.subSequence( began, mStarts.get( id + 1 ) ).toString();
+  }
+
+  /**
+   * Returns the number of letters in the word having the given identifier,
+   * without creating a string.
+   *
+   * @param id The word identifier.
+   * @return The word's length.
+   */
+  public int length( final int id ) {
+    return mStarts.get( id + 1 ) - mStarts.get( id );
+  }
+
+  public long frequency( final int id ) {
+    return mFrequencies.get( id );
+  }
+
+  /**
+   * Passes the identifier of every word that may have the given deletion to
+   * the consumer. Deletions are indexed by hash code, so callers must check
+   * the candidates.
+   *
+   * @param delete   A word with up to {@link #getMaxEditDistance()} letters
+   *                 deleted.
+   * @param consumer Receives word identifiers.
+   */
+  public void deletes( final String delete, final IntConsumer consumer ) {
+    final var hash = delete.hashCode();
+    int lo = 0;
+    int hi = mKeys.limit() - 1;
+
+    while( lo <= hi ) {
+      final int mid = (lo + hi) >>> 1;
+      final int key = mKeys.get( mid );
+
+      if( key < hash ) {
+        lo = mid + 1;
+      }
+      else if( key > hash ) {
+        hi = mid - 1;
+      }
+      else {
+        final int end = mPostingStarts.get( mid + 1 );
+
+        for( int i = mPostingStarts.get( mid ); i < end; i++ ) {
+          consumer.accept( mPostings.get( i ) );
+        }
+
+        return;
+      }
+    }
+  }
+
+  /**
+   * Answers whether the SymSpell index of deletions is present. Lexicons
+   * bundled with the application omit the deletions to keep the
+   * application small; see {@link #write(OutputStream)}.
+   *
+   * @return {@code true} if {@link #deletes} can find candidate words.
+   */
+  public boolean hasDeletes() {
+    return mPostings.limit() > 0;
+  }
+
+  /**
+   * Writes this lexicon, including the index of deletions, in the index
+   * file format.
+   *
+   * @param out Receives the index, left open.
+   * @throws IOException The index could not be written.
+   */
+  public void write( final OutputStream out ) throws IOException {
+    final var size = size();
+    final var words = new String[ size ];
+    final var frequencies = new long[ size ];
+
+    for( int id = 0; id < size; id++ ) {
+      words[ id ] = word( id );
+      frequencies[ id ] = frequency( id );
+    }
+
+    write( words, frequencies, true, out );
+  }
+
+  /**
+   * Writes a lexicon in the index file format.
+   *
+   * @param lexicon Word-frequency pairs to index.
+   * @param deletes Whether to include the index of deletions.
+   * @param out     Receives the index, left open.
+   * @throws IOException The index could not be written.
+   */
+  public static void write(
+    final Map<String, Long> lexicon,
+    final boolean deletes,
+    final OutputStream out ) throws IOException {
+    final var words = lexicon
+      .keySet()
+      .stream()
+      .filter( word -> !word.isEmpty() )
+      .sorted()
+      .toArray( String[]::new );
+    final var frequencies = new long[ words.length ];
+
+    for( int id = 0; id < words.length; id++ ) {
+      frequencies[ id ] = lexicon.get( words[ id ] );
+    }
+
+    write( words, frequencies, deletes, out );
+  }
+
+  private static void write(
+    final String[] words,
+    final long[] frequencies,
+    final boolean deletes,
+    final OutputStream out ) throws IOException {
+    final var pairs = deletes ? deletions( words ) : new long[ 0 ];
+    final var keys = new ArrayList<Integer>();
+    final var postingStarts = new ArrayList<Integer>();
+    var chars = 0;
+
+    for( final var word : words ) {
+      chars += word.length();
+    }
+
+    final var padding = chars & 1;
+
+    for( int i = 0; i < pairs.length; i++ ) {
+      final var key = (int) (pairs[ i ] >> 32);
+
+      if( i == 0 || key != (int) (pairs[ i - 1 ] >> 32) ) {
+        keys.add( key );
+        postingStarts.add( i );
+      }
+    }
+
+    postingStarts.add( pairs.length );
+
+    final var data = new DataOutputStream( new BufferedOutputStream( out ) );
+
+    data.writeInt( MAGIC );
+    data.writeInt( VERSION );
+    data.writeInt( MAX_EDIT_DISTANCE );
+    data.writeInt( PREFIX_LENGTH );
+    data.writeInt( words.length );
+    data.writeInt( chars + padding );
+    data.writeInt( keys.size() );
+    data.writeInt( pairs.length );
+
+    for( final var frequency : frequencies ) {
+      data.writeLong( frequency );
+    }
+
+    var start = 0;
+
+    for( final var word : words ) {
+      data.writeInt( start );
+      start += word.length();
+    }
+
+    data.writeInt( start );
+
+    for( final var word : words ) {
+      data.writeChars( word );
+    }
+
+    if( padding > 0 ) {
+      data.writeChar( 0 );
+    }
+
+    for( final var key : keys ) {
+      data.writeInt( key );
+    }
+
+    for( final var postingStart : postingStarts ) {
+      data.writeInt( postingStart );
+    }
+
+    for( final var pair : pairs ) {
+      data.writeInt( (int) pair );
+    }
+
+    data.flush();
+  }
+
+  /**
+   * Computes the deletions of every word's prefix, following SymSpell.
+   *
+   * @param words The sorted words to index.
+   * @return Each deletion's hash code (upper 32 bits) paired with the word
+   * identifier (lower 32 bits), sorted and without duplicates.
+   */
+  private static long[] deletions( final String[] words ) {
+    var pairs = new long[ words.length * 16 ];
+    var size = 0;
+    final var edits = new HashSet<String>();
+
+    for( int id = 0; id < words.length; id++ ) {
+      edits.clear();
+      edits( words[ id ], edits );
+
+      if( size + edits.size() > pairs.length ) {
+        pairs = Arrays.copyOf( pairs, (size + edits.size()) << 1 );
+      }
+
+      for( final var edit : edits ) {
+        pairs[ size++ ] = ((long) edit.hashCode() << 32) | id;
+      }
+    }
+
+    pairs = Arrays.copyOf( pairs, size );
+    Arrays.sort( pairs );
+
+    return Arrays.stream( pairs ).distinct().toArray();
+  }
+
+  /**
+   * Adds the word's prefix and every deletion of up to
+   * {@link #MAX_EDIT_DISTANCE} letters from the prefix to the given set.
+   *
+   * @param word  The word to delete letters from.
+   * @param edits Receives the deletions.
+   */
+  static void edits( final String word, final Set<String> edits ) {
+    if( word.length() <= MAX_EDIT_DISTANCE ) {
+      edits.add( "" );
+    }
+
+    final var prefix = word.substring( 0, min( word.length(), PREFIX_LENGTH ) );
+
+    edits.add( prefix );
+    edits( prefix, 0, edits );
+  }
+
+  private static void edits(
+    final String word, final int distance, final Set<String> edits ) {
+    final var next = distance + 1;
+
+    if( word.length() > 1 ) {
+      for( int i = 0; i < word.length(); i++ ) {
+        final var delete = word.substring( 0, i ) + word.substring( i + 1 );
+
+        if( edits.add( delete ) && next < MAX_EDIT_DISTANCE ) {
+          edits( delete, next, edits );
+        }
+      }
+    }
+  }
+
+  private int compare(
+    final int id,
+    final CharSequence text,
+    final int began,
+    final int ended,
+    final boolean fold ) {
+    int i = mStarts.get( id );
+    final int end = mStarts.get( id + 1 );
+
+    for( int j = began; i < end && j < ended; i++, j++ ) {
+      final char c = text.charAt( j );
+      final int cmp = mText.get( i ) - (fold ? toLowerCase( c ) : c);
+
+      if( cmp != 0 ) {
+        return cmp;
+      }
+    }
+
+    return (end - mStarts.get( id )) - (ended - began);
+  }
+
+  /**
+   * Returns the next section of the buffer, advancing the offset past it.
+   * The characters are padded to an even count when written, which keeps
+   * every section aligned to its element size.
+   */
+  private static ByteBuffer slice(
+    final ByteBuffer buffer,
+    final int[] offset,
+    final int count,
+    final int bytes ) {
+    final var length = count * bytes;
+    final var slice = buffer.slice( offset[ 0 ], length );
+
+    offset[ 0 ] += length;
+
+    return slice;
+  }
+}
@@ -43,6 +43,6 @@ public final class PermissiveSpeller implements SpellChecker {
    */
   @Override
   public void proofread(
-      final String text, final SpellCheckListener ignored ) {
+      final CharSequence text, final SpellCheckListener ignored ) {
   }
 }
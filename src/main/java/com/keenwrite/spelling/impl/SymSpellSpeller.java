@@ -3,63 +3,72 @@ package com.keenwrite.spelling.impl;
 
 import com.keenwrite.spelling.api.SpellCheckListener;
 import com.keenwrite.spelling.api.SpellChecker;
-import io.gitlab.rxp90.jsymspell.SymSpell;
-import io.gitlab.rxp90.jsymspell.SymSpellBuilder;
-import io.gitlab.rxp90.jsymspell.Verbosity;
+import io.gitlab.rxp90.jsymspell.api.DamerauLevenshteinOSA;
+import io.gitlab.rxp90.jsymspell.api.StringDistance;
 import io.gitlab.rxp90.jsymspell.api.SuggestItem;
-import io.gitlab.rxp90.jsymspell.exceptions.NotInitializedException;
 
-import java.text.BreakIterator;
 import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashSet;
 import java.util.List;
-import java.util.Map;
+import java.util.concurrent.atomic.AtomicLongArray;
 
-import static io.gitlab.rxp90.jsymspell.Verbosity.ALL;
-import static io.gitlab.rxp90.jsymspell.Verbosity.CLOSEST;
-import static java.lang.Character.isLetter;
+import static java.lang.Character.*;
+import static java.lang.Math.abs;
+import static java.lang.Math.max;
+import static java.lang.Math.min;
 
 /**
- * Responsible for spell checking using {@link SymSpell}.
+ * Responsible for spell checking using the SymSpell algorithm over a
+ * memory-mapped {@link LexiconIndex}. Instances are safe to share between
+ * threads, so documents may be proofread concurrently.
  */
 public class SymSpellSpeller implements SpellChecker {
-  private final BreakIterator mBreakIterator = BreakIterator.getWordInstance();
-  private final SymSpell mSymSpell;
+  /**
+   * Number of words having cached lexicon lookups, a power of two.
+   */
+  private static final int CACHE_SIZE = 1 << 14;
+  private static final int CACHE_MASK = CACHE_SIZE - 1;
+
+  private static final long FNV_OFFSET = 0xCBF29CE484222325L;
+  private static final long FNV_PRIME = 0x100000001B3L;
+
+  private final StringDistance mDistance = new DamerauLevenshteinOSA();
+  private final LexiconIndex mLexicon;
+
+  /**
+   * Direct-mapped cache of recently checked words, both known and misspelled,
+   * so that its size is fixed no matter how many distinct words are checked.
+   */
+  private final AtomicLongArray mCache = new AtomicLongArray( CACHE_SIZE );
 
   /**
    * Creates a new spellchecker for a lexicon of words in the specified file.
    *
-   * @param lexicon The word-frequency map.
+   * @param lexicon The word-frequency index.
    * @return An instance of {@link SpellChecker} that can check if a word
-   * is correct and suggest alternatives, or {@link PermissiveSpeller} if the
-   * lexicon cannot be loaded.
+   * is correct and suggest alternatives.
    */
-  public static SpellChecker forLexicon( final Map<String, Long> lexicon )
-    throws NotInitializedException {
+  public static SpellChecker forLexicon( final LexiconIndex lexicon ) {
     assert lexicon != null;
-    assert !lexicon.isEmpty();
-
-    final var symSpell = new SymSpellBuilder()
-      .setUnigramLexicon( lexicon )
-      .build();
+    assert lexicon.size() > 0;
 
-    return new SymSpellSpeller( symSpell );
+    return new SymSpellSpeller( lexicon );
   }
 
   /**
    * Prevent direct instantiation so that only the {@link SpellChecker}
    * interface is available.
    *
-   * @param symSpell The implementation-specific spell checker.
+   * @param lexicon The word-frequency index.
    */
-  private SymSpellSpeller( final SymSpell symSpell ) {
-    assert symSpell != null;
-
-    mSymSpell = symSpell;
+  private SymSpellSpeller( final LexiconIndex lexicon ) {
+    mLexicon = lexicon;
   }
 
   /**
-   * This expensive operation is only called for viable words, not for
-   * single punctuation characters or whitespace.
+   * This operation is only called for viable words, not for single
+   * punctuation characters or whitespace.
    *
    * @param lexeme The word to check for correctness.
    * @return {@code false} if the word is not in the lexicon.
@@ -69,8 +78,7 @@ public class SymSpellSpeller implements SpellChecker {
     assert lexeme != null;
     assert !lexeme.isEmpty();
 
-    final var words = lookup( lexeme, CLOSEST );
-    return !words.isEmpty() && lexeme.equals( words.get( 0 ).getSuggestion() );
+    return mLexicon.find( lexeme ) >= 0;
   }
 
   @Override
@@ -80,7 +88,7 @@ public class SymSpellSpeller implements SpellChecker {
 
     final List<String> result = new ArrayList<>( count );
 
-    for( final var item : lookup( lexeme, ALL ) ) {
+    for( final var item : lookup( lexeme ) ) {
       if( count-- > 0 ) {
         result.add( item.getSuggestion() );
       }
@@ -92,60 +100,281 @@ public class SymSpellSpeller implements SpellChecker {
     return result;
   }
 
+  /**
+   * Emits the words in the given text that are missing from the lexicon.
+   * Words are runs of letters, digits, and combining marks, which may
+   * contain apostrophes (e.g., contractions), periods (e.g., domain names),
+   * and underscores between letters; words that begin with a digit
+   * are not checked, and possessives are checked without the trailing
+   * {@code 's}. Hyphens separate words, so the parts of compound words are
+   * checked individually. Words are checked in place, so no strings are
+   * created except for misspelled words.
+   *
+   * @param text     The text to check for words missing from the lexicon.
+   * @param consumer Receives the lowercase misspelled word and its offsets.
+   */
   @Override
   public void proofread(
-    final String text,
+    final CharSequence text,
     final SpellCheckListener consumer ) {
     assert text != null;
     assert consumer != null;
 
-    mBreakIterator.setText( text );
+    final int length = text.length();
+    int began = 0;
+
+    while( began < length ) {
+      if( !isWordPart( text.charAt( began ) ) ) {
+        began++;
+        continue;
+      }
+
+      int ended = began + 1;
 
-    int boundaryIndex = mBreakIterator.first();
-    int previousIndex = 0;
+      while( ended < length ) {
+        final char c = text.charAt( ended );
+        final char prev = text.charAt( ended - 1 );
 
-    while( boundaryIndex != BreakIterator.DONE ) {
-      final var lex =
-        text.substring( previousIndex, boundaryIndex ).toLowerCase();
+        if( isWordPart( c ) ) {
+          // Ideographs are not separated by spaces from other scripts.
+          if( isIdeographic( c ) != isIdeographic( prev ) ) {
+            break;
+          }
 
-      // Get the lexeme for the possessive.
-      final var pos = lex.endsWith( "'s" ) || lex.endsWith( "’s" );
-      final var lexeme = pos ? lex.substring( 0, lex.length() - 2 ) : lex;
+          ended++;
+        }
+        else if( isJoiner( c ) &&
+          ended + 1 < length && joins( prev, text.charAt( ended + 1 ) ) ) {
+          ended += 2;
+        }
+        else {
+          break;
+        }
+      }
 
-      if( isWord( lexeme ) && !inLexicon( lexeme ) ) {
-        consumer.accept( lex, previousIndex, boundaryIndex );
+      if( isLetter( text.charAt( began ) ) &&
+        !isKnown( text, began, stem( text, began, ended ) ) ) {
+        consumer.accept(
+          text.subSequence( began, ended ).toString().toLowerCase(),
+          began,
+          ended
+        );
       }
 
-      previousIndex = boundaryIndex;
-      boundaryIndex = mBreakIterator.next();
+      began = ended;
     }
   }
 
   /**
-   * Answers whether the given string is likely a word by checking the first
-   * character.
-   *
-   * @param word The word to check.
-   * @return {@code true} if the word begins with a letter.
+   * Answers whether the word at the given offsets is in the lexicon,
+   * consulting the cache of recently checked words first. The cache is
+   * keyed by a 64-bit fingerprint of the lowercase word, so that common
+   * words are found without searching the lexicon. The lowest bit of each
+   * cache entry records whether the word was found.
    */
-  private boolean isWord( final String word ) {
-    assert word != null;
+  private boolean isKnown(
+    final CharSequence text, final int began, final int ended ) {
+    long fingerprint = FNV_OFFSET;
+
+    for( int i = began; i < ended; i++ ) {
+      fingerprint = (fingerprint ^ toLowerCase( text.charAt( i ) )) * FNV_PRIME;
+    }
+
+    final var slot = (int) (fingerprint ^ (fingerprint >>> 32)) & CACHE_MASK;
+    final var key = fingerprint & ~1L;
+    final var entry = mCache.getOpaque( slot );
+
+    if( entry != 0 && (entry & ~1L) == key ) {
+      return (entry & 1L) != 0;
+    }
+
+    final var known = mLexicon.find( text, began, ended ) >= 0;
+
+    // Racing threads may overwrite each other's entries, which only costs
+    // another search of the lexicon.
+    mCache.setOpaque( slot, known ? key | 1L : key );
+
+    return known;
+  }
+
+  /**
+   * Returns the offset where the word ends, excluding the possessive.
+   */
+  private static int stem(
+    final CharSequence text, final int began, final int ended ) {
+    final var s = ended - 1;
+
+    return s - 1 > began &&
+      toLowerCase( text.charAt( s ) ) == 's' &&
+      isApostrophe( text.charAt( s - 1 ) ) ? s - 1 : ended;
+  }
+
+  private static boolean isWordPart( final char c ) {
+    return switch( getType( c ) ) {
+      case UPPERCASE_LETTER, LOWERCASE_LETTER, TITLECASE_LETTER,
+           MODIFIER_LETTER, OTHER_LETTER, DECIMAL_DIGIT_NUMBER,
+           NON_SPACING_MARK, COMBINING_SPACING_MARK, ENCLOSING_MARK,
+           SURROGATE -> true;
+      default -> false;
+    };
+  }
+
+  private static boolean isJoiner( final char c ) {
+    return isApostrophe( c ) || c == '.' || c == '_';
+  }
+
+  /**
+   * Answers whether a joiner between the given characters is within a word,
+   * such as the period in {@code example.com} or {@code 1.5}. Digits and
+   * letters are not joined, so {@code key_1} is two words.
+   */
+  private static boolean joins( final char prev, final char next ) {
+    return isLetter( prev ) && isLetter( next ) ||
+      isDigit( prev ) && isDigit( next );
+  }
 
-    return !word.isBlank() && isLetter( word.charAt( 0 ) );
+  private static boolean isApostrophe( final char c ) {
+    return c == '\'' || c == '’';
   }
 
   /**
    * Returns a list of {@link SuggestItem} instances that provide alternative
-   * spellings for the given lexeme.
+   * spellings for the given lexeme, closest and most frequent first. The
+   * candidates are the words sharing a deletion with the lexeme, which are
+   * verified by computing the edit distance.
    *
    * @param lexeme A word to look up in the lexicon.
-   * @param v      Influences the number of results returned.
    * @return Alternative lexemes.
    */
-  private List<SuggestItem> lookup( final String lexeme, final Verbosity v ) {
+  private List<SuggestItem> lookup( final String lexeme ) {
     assert lexeme != null;
-    assert v != null;
 
-    return mSymSpell.lookup( lexeme, v );
+    final var lexicon = mLexicon;
+    final var maxDistance = lexicon.getMaxEditDistance();
+    final var prefixLength = lexicon.getPrefixLength();
+    final var inputLength = lexeme.length();
+    final var suggestions = new ArrayList<SuggestItem>();
+
+    if( !lexicon.hasDeletes() ) {
+      return scan( lexeme );
+    }
+
+    final var exact = lexicon.find( lexeme );
+
+    if( exact >= 0 ) {
+      suggestions.add(
+        new SuggestItem( lexeme, 0, lexicon.frequency( exact ) ) );
+    }
+
+    final var inputPrefixLength = min( inputLength, prefixLength );
+    final var candidates = new ArrayList<String>();
+    final var consideredDeletes = new HashSet<String>();
+    final var consideredWords = new BitSet( lexicon.size() );
+
+    candidates.add( lexeme.substring( 0, inputPrefixLength ) );
+
+    for( int c = 0; c < candidates.size(); c++ ) {
+      final var candidate = candidates.get( c );
+      final var candidateLength = candidate.length();
+      final var lengthDiff = inputPrefixLength - candidateLength;
+
+      if( lengthDiff > maxDistance ) {
+        continue;
+      }
+
+      lexicon.deletes( candidate, id -> {
+        final var length = lexicon.length( id );
+
+        if( id == exact ||
+          abs( length - inputLength ) > maxDistance ||
+          length < candidateLength ||
+          consideredWords.get( id ) ) {
+          return;
+        }
+
+        final var suggestion = lexicon.word( id );
+
+        if( length == candidateLength && !suggestion.equals( candidate ) ) {
+          return;
+        }
+
+        final var suggestionPrefixLength = min( length, prefixLength );
+
+        if( suggestionPrefixLength > inputPrefixLength &&
+          suggestionPrefixLength - candidateLength > maxDistance ) {
+          return;
+        }
+
+        // Mark the word only once it is verified, because a word rejected
+        // for this candidate (e.g., a hash collision) may match another.
+        consideredWords.set( id );
+
+        final int distance;
+
+        if( candidateLength == 0 ) {
+          distance = max( inputLength, length );
+        }
+        else if( length == 1 ) {
+          distance = lexeme.indexOf( suggestion.charAt( 0 ) ) < 0
+            ? inputLength
+            : inputLength - 1;
+        }
+        else {
+          distance = mDistance.distanceWithEarlyStop(
+            lexeme, suggestion, maxDistance );
+        }
+
+        if( distance >= 0 && distance <= maxDistance ) {
+          suggestions.add(
+            new SuggestItem( suggestion, distance, lexicon.frequency( id ) ) );
+        }
+      } );
+
+      if( lengthDiff < maxDistance && candidateLength <= prefixLength ) {
+        for( int i = 0; i < candidateLength; i++ ) {
+          final var delete =
+            candidate.substring( 0, i ) + candidate.substring( i + 1 );
+
+          if( consideredDeletes.add( delete ) ) {
+            candidates.add( delete );
+          }
+        }
+      }
+    }
+
+    suggestions.sort( null );
+
+    return suggestions;
+  }
+
+  /**
+   * Returns suggestions by comparing the lexeme with every word of similar
+   * length. This is used until the lexicon's deletions have been indexed.
+   *
+   * @param lexeme A word to look up in the lexicon.
+   * @return Alternative lexemes.
+   */
+  private List<SuggestItem> scan( final String lexeme ) {
+    final var lexicon = mLexicon;
+    final var maxDistance = lexicon.getMaxEditDistance();
+    final var inputLength = lexeme.length();
+    final var suggestions = new ArrayList<SuggestItem>();
+
+    for( int id = 0, size = lexicon.size(); id < size; id++ ) {
+      if( abs( lexicon.length( id ) - inputLength ) <= maxDistance ) {
+        final var suggestion = lexicon.word( id );
+        final var distance = mDistance.distanceWithEarlyStop(
+          lexeme, suggestion, maxDistance );
+
+        if( distance >= 0 ) {
+          suggestions.add(
+            new SuggestItem( suggestion, distance, lexicon.frequency( id ) ) );
+        }
+      }
+    }
+
+    suggestions.sort( null );
+
+    return suggestions;
   }
 }
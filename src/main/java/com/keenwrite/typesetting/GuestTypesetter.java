@@ -34,10 +34,26 @@ public final class GuestTypesetter extends Typesetter
   private static final String TYPESETTER_VERSION =
     STR."\{TYPESETTER_EXE} --version > /dev/null";
 
+  /**
+   * Probing runs the typesetter inside a new container, which is slow, so the
+   * result is kept until the container manager or the executables in the
+   * {@code PATH} change.
+   */
+  private static final Probe PROBE = new Probe(
+    () -> Probe.environment() + Podman.lastModified(),
+    GuestTypesetter::probe
+  );
+
   public GuestTypesetter( final Mutator mutator ) {
     super( mutator );
   }
 
+  /**
+   * Runs the typesetter inside the container.
+   *
+   * @return {@code true} if the typesetter exited successfully.
+   * @throws Exception Could not run the container manager.
+   */
   @Override
   public Boolean call() throws Exception {
     final var sourcePath = getSourcePath();
@@ -77,9 +93,10 @@ public final class GuestTypesetter extends Typesetter
     final var listener = new PaginationListener();
     final var command = String.join( " ", args );
 
-    manager.run( in -> StreamGobbler.gobble( in, listener ), command );
+    final var exitCode =
+      manager.exec( in -> StreamGobbler.gobble( in, listener ), command );
 
-    return true;
+    return exitCode == 0;
   }
 
   static String removeExtension( final Path path ) {
@@ -91,6 +108,17 @@ public final class GuestTypesetter extends Typesetter
    * installed, properly configured, and ready to typeset documents.
    */
   static boolean isReady() {
+    return PROBE.isReady();
+  }
+
+  /**
+   * Forces the next call to {@link #isReady()} to run the typesetter.
+   */
+  static void resetProbe() {
+    PROBE.reset();
+  }
+
+  private static boolean probe() {
     if( Podman.canRun() ) {
       final var exitCode = new StringBuilder();
       final var manager = new Podman();
@@ -36,6 +36,13 @@ public final class HostTypesetter extends Typesetter
   implements Callable<Boolean> {
   private static final SysFile TYPESETTER = new SysFile( TYPESETTER_EXE );
 
+  /**
+   * Scanning the {@code PATH} for the typesetter is slow, so the result is
+   * kept until the executables in the {@code PATH} change.
+   */
+  private static final Probe PROBE =
+    new Probe( Probe::environment, TYPESETTER::canRun );
+
   HostTypesetter( final Mutator mutator ) {
     super( mutator );
   }
@@ -46,7 +53,14 @@ public final class HostTypesetter extends Typesetter
    * @return {@code true} if the typesetting software is installed on the host.
    */
   public static boolean isReady() {
-    return TYPESETTER.canRun();
+    return PROBE.isReady();
+  }
+
+  /**
+   * Forces the next call to {@link #isReady()} to search for the typesetter.
+   */
+  static void resetProbe() {
+    PROBE.reset();
   }
 
   /**
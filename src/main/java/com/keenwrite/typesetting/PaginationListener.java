@@ -6,6 +6,7 @@ import java.util.function.Consumer;
 import java.util.regex.Pattern;
 
 import static com.keenwrite.events.StatusEvent.clue;
+import static com.keenwrite.events.StatusEvent.progress;
 
 /**
  * Responsible for parsing the output from the typesetting engine and
@@ -52,8 +53,8 @@ class PaginationListener implements Consumer<String> {
       mPageCount = page;
 
       // Inform the user of pages being typeset.
-      clue( "Main.status.typeset.page",
-            mPageCount, mPageTotal < 1 ? "?" : mPageTotal, mPassCount
+      progress( "Main.status.typeset.page",
+                mPageCount, mPageTotal < 1 ? "?" : mPageTotal, mPassCount
       );
     }
   }
@@ -0,0 +1,93 @@
+/* Copyright 2024 White Magic Software, Ltd. -- All rights reserved.
+ *
+ * SPDX-License-Identifier: MIT
+ */
+package com.keenwrite.typesetting;
+
+import java.io.File;
+import java.util.Objects;
+import java.util.function.BooleanSupplier;
+import java.util.function.Supplier;
+
+import static java.io.File.pathSeparator;
+import static java.lang.System.getenv;
+import static java.util.regex.Pattern.quote;
+
+/**
+ * Responsible for remembering whether a typesetter is available. Finding a
+ * typesetter can scan every directory in the {@code PATH}, run external
+ * commands, or start a container, so the answer is reused until the
+ * environment that determined it changes.
+ */
+final class Probe {
+  private final Supplier<Object> mFingerprint;
+  private final BooleanSupplier mProbe;
+
+  private Object mLast;
+  private boolean mReady;
+  private boolean mProbed;
+
+  /**
+   * @param fingerprint Returns a value that differs whenever the answer may
+   *                    have changed, which must be much cheaper to compute
+   *                    than running the probe.
+   * @param probe       Answers whether the typesetter is available.
+   */
+  Probe( final Supplier<Object> fingerprint, final BooleanSupplier probe ) {
+    assert fingerprint != null;
+    assert probe != null;
+
+    mFingerprint = fingerprint;
+    mProbe = probe;
+  }
+
+  /**
+   * Answers whether the typesetter is available, running the probe only if
+   * the environment changed since the previous probe.
+   *
+   * @return {@code true} if the typesetter is available.
+   */
+  synchronized boolean isReady() {
+    final var fingerprint = mFingerprint.get();
+
+    if( !mProbed || !Objects.equals( fingerprint, mLast ) ) {
+      mReady = mProbe.getAsBoolean();
+      mLast = fingerprint;
+      mProbed = true;
+    }
+
+    return mReady;
+  }
+
+  /**
+   * Forces the next call to {@link #isReady()} to run the probe, such as
+   * after software was installed without changing the environment.
+   */
+  synchronized void reset() {
+    mProbed = false;
+  }
+
+  /**
+   * Returns the directories in the {@code PATH} along with their times of
+   * modification. Installing or removing an executable in any of these
+   * directories changes the directory's time of modification, so this
+   * changes whenever the executables that can be found change.
+   *
+   * @return A value representing the executables that can be found.
+   */
+  static String environment() {
+    final var paths = getenv( "PATH" );
+    final var sb = new StringBuilder( 1024 );
+
+    if( paths != null ) {
+      for( final var dir : paths.split( quote( pathSeparator ) ) ) {
+        sb.append( dir )
+          .append( '@' )
+          .append( new File( dir ).lastModified() )
+          .append( pathSeparator );
+      }
+    }
+
+    return sb.toString();
+  }
+}
@@ -47,6 +47,7 @@ public class Typesetter {
     private Path mFontDir = getFontDirectory().toPath();
     private String mModesEnabled = "";
     private boolean mAutoRemove;
+    private boolean mIncremental;
 
     /**
      * @param inputPath The input document to typeset.
@@ -103,6 +104,14 @@ public class Typesetter {
       mAutoRemove = remove;
     }
 
+    /**
+     * @param incremental {@code true} to keep the typesetter's auxiliary
+     *                    files (e.g., the multi-pass state) between runs.
+     */
+    public void setIncremental( final boolean incremental ) {
+      mIncremental = incremental;
+    }
+
     public Path getSourcePath() {
       return mSourcePath;
     }
@@ -134,6 +143,10 @@ public class Typesetter {
     public boolean isAutoRemove() {
       return mAutoRemove;
     }
+
+    public boolean isIncremental() {
+      return mIncremental;
+    }
   }
 
   private final Mutator mMutator;
@@ -148,7 +161,13 @@ public class Typesetter {
     mMutator = mutator;
   }
 
-  public void typeset() throws Exception {
+  /**
+   * Typesets the source document into the target document.
+   *
+   * @return {@code true} if the document was typeset successfully.
+   * @throws Exception Could not find or run the typesetter.
+   */
+  public boolean typeset() throws Exception {
     final Callable<Boolean> typesetter;
 
     if( HostTypesetter.isReady() ) {
@@ -171,6 +190,8 @@ public class Typesetter {
     final var suffix = success ? "success" : "failure";
 
     clue( STR."\{prefix}ended.\{suffix}", outputPath, since( time ) );
+
+    return success;
   }
 
   /**
@@ -211,7 +232,12 @@ public class Typesetter {
     args.add( "mtx-context" );
     args.add( "--batchmode" );
     args.add( "--nonstopmode" );
-    args.add( "--purgeall" );
+
+    // Purging deletes the state that lets the next run need fewer passes.
+    if( !mMutator.isIncremental() ) {
+      args.add( "--purgeall" );
+    }
+
     args.add( "--environment='main'" );
 
     return args;
@@ -259,6 +285,15 @@ public class Typesetter {
     return hostCanRun() || guestCanRun();
   }
 
+  /**
+   * Forces the next check for a typesetter to search anew, such as after
+   * installing the typesetter.
+   */
+  public static void reset() {
+    HostTypesetter.resetProbe();
+    GuestTypesetter.resetProbe();
+  }
+
   private static boolean hostCanRun() {
     return HostTypesetter.isReady();
   }
@@ -49,6 +49,18 @@ public interface ContainerManager {
   int run( StreamProcessor processor, String... args )
     throws CommandNotFoundException;
 
+  /**
+   * Runs a command in a container that remains running afterwards, which
+   * avoids the cost of starting a container for each command.
+   *
+   * @param processor Processes the command output (in a separate thread).
+   * @param args      The command and arguments to run.
+   * @return The exit code returned by the command.
+   * @throws CommandNotFoundException The container executable was not found.
+   */
+  int exec( StreamProcessor processor, String... args )
+    throws CommandNotFoundException;
+
   /**
    * Convenience method to run a command using the container manager.
    *
@@ -9,14 +9,19 @@ import com.keenwrite.io.CommandNotFoundException;
 import com.keenwrite.io.SysFile;
 
 import java.io.File;
+import java.io.InputStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.LinkedList;
 import java.util.List;
 
+import static com.keenwrite.Bootstrap.APP_TITLE_ABBR;
 import static com.keenwrite.events.StatusEvent.clue;
+import static com.keenwrite.io.StreamGobbler.gobble;
 import static com.keenwrite.io.SysFile.toFile;
 import static com.keenwrite.util.SystemUtils.IS_OS_WINDOWS;
+import static java.lang.ProcessBuilder.Redirect.DISCARD;
+import static java.lang.Runtime.getRuntime;
 import static java.lang.String.format;
 import static java.lang.String.join;
 import static java.lang.System.arraycopy;
@@ -37,6 +42,36 @@ public final class Podman implements ContainerManager {
     );
   private static final SysFile MANAGER = new SysFile( BINARY );
 
+  /**
+   * Prefix for names of containers that keep running between typesetting
+   * jobs, which is unique to this application instance.
+   */
+  private static final String CONTAINER =
+    STR."\{APP_TITLE_ABBR}-typesetter-\{ProcessHandle.current().pid()}-";
+
+  /**
+   * Exit code from {@code podman exec} when the container cannot be used.
+   */
+  private static final int CONTAINER_ERROR = 125;
+
+  /**
+   * A container that keeps running between commands.
+   *
+   * @param name        Uniquely identifies the container.
+   * @param mountPoints Mount points given when the container was started.
+   */
+  private record Container( String name, List<String> mountPoints ) { }
+
+  /**
+   * The running container, or {@code null} if no container is running.
+   */
+  private static volatile Container sContainer;
+  private static int sLaunches;
+
+  static {
+    getRuntime().addShutdownHook( new Thread( Podman::remove ) );
+  }
+
   private final List<String> mMountPoints = new LinkedList<>();
 
   public Podman() { }
@@ -57,6 +92,16 @@ public final class Podman implements ContainerManager {
     }
   }
 
+  /**
+   * Returns the time that the container manager was last installed at its
+   * default location, which changes when it is installed or upgraded.
+   *
+   * @return The executable's time of modification, or 0 if not installed.
+   */
+  public static long lastModified() {
+    return toFile( BINARY_PATH ).lastModified();
+  }
+
   private static Path getExecutable() {
     final var executable = Files.isExecutable( BINARY_PATH );
 
@@ -141,6 +186,109 @@ public final class Podman implements ContainerManager {
     return podman( processor, command );
   }
 
+  /**
+   * Runs the given arguments in a container that keeps running after the
+   * command completes, so that successive commands needn't wait for a new
+   * container to start. The container is started when first needed and
+   * restarted when the mount points differ from those of the previous
+   * command, because mount points cannot be changed on a running container.
+   * The container is removed when the application exits.
+   *
+   * @param args The command and arguments to run against the container.
+   * @return The exit code from running the command.
+   * @throws CommandNotFoundException Container manager couldn't be found.
+   * @see #run(StreamProcessor, String...)
+   */
+  @Override
+  public int exec(
+    final StreamProcessor processor,
+    final String... args ) throws CommandNotFoundException {
+    synchronized( Podman.class ) {
+      if( sContainer == null ||
+        !mMountPoints.equals( sContainer.mountPoints() ) ) {
+        launch();
+      }
+
+      if( sContainer != null ) {
+        final var exitCode = podman( processor, execute( args ) );
+
+        // The container may have been stopped outside the application.
+        if( exitCode != CONTAINER_ERROR ) {
+          return exitCode;
+        }
+
+        launch();
+      }
+
+      // Fall back to a short-lived container if none will keep running.
+      return sContainer == null
+        ? run( processor, args )
+        : podman( processor, execute( args ) );
+    }
+  }
+
+  private static String[] execute( final String... args ) {
+    final var name = sContainer.name();
+
+    return toArray( new String[]{"exec", "-t", name, "/bin/sh", "-lc"}, args );
+  }
+
+  /**
+   * Starts a container, using this instance's mount points, that idles until
+   * removed. Any previously started container is removed.
+   *
+   * @throws CommandNotFoundException Container manager couldn't be found.
+   */
+  private void launch() throws CommandNotFoundException {
+    final var tag = Messages.get( "Wizard.typesetter.container.image.tag" );
+    final var name = CONTAINER + ++sLaunches;
+
+    remove();
+
+    final var options = new LinkedList<String>();
+    options.add( "run" );
+    options.add( "--detach" );
+    options.add( "--rm" );
+    options.add( "--network=host" );
+    options.add( "--stop-timeout=0" );
+    options.add( STR."--name=\{name}" );
+    options.addAll( mMountPoints );
+    options.add( tag );
+    options.add( "/bin/sh" );
+    options.add( "-c" );
+    options.add( "while :; do sleep 3600; done" );
+
+    final var exitCode = podman( Podman::discard, toArray( options ) );
+
+    if( exitCode == 0 ) {
+      sContainer = new Container( name, List.copyOf( mMountPoints ) );
+    }
+  }
+
+  /**
+   * Removes the long-running container, if started, without waiting for
+   * the container to stop.
+   */
+  private static void remove() {
+    final var container = sContainer;
+
+    if( container != null ) {
+      sContainer = null;
+
+      try {
+        processBuilder( getExecutable(), "rm", "--force", container.name() )
+          .redirectOutput( DISCARD )
+          .start();
+      } catch( final Exception ex ) {
+        clue( ex );
+      }
+    }
+  }
+
+  private static void discard( final InputStream in ) {
+    gobble( in, _ -> { } );
+  }
+
   /**
    * Generates a command-line argument representing a mount point between
    * the host and guest systems.
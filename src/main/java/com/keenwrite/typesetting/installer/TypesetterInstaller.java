@@ -7,6 +7,7 @@ package com.keenwrite.typesetting.installer;
 import com.keenwrite.events.ExportFailedEvent;
 import com.keenwrite.preferences.AppKeys;
 import com.keenwrite.preferences.Workspace;
+import com.keenwrite.typesetting.Typesetter;
 import com.keenwrite.typesetting.installer.panes.*;
 import org.controlsfx.dialog.Wizard;
 import org.greenrobot.eventbus.Subscribe;
@@ -44,6 +45,10 @@ public final class TypesetterInstaller {
     final var wizard = wizard();
 
     wizard.showAndWait();
+
+    // Installing may not change the environment that the typesetter probes
+    // depend upon, so the probes must run again.
+    Typesetter.reset();
   }
 
   private Wizard wizard() {
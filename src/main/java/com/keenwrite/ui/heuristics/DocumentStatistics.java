@@ -17,12 +17,17 @@ import javafx.scene.control.TableColumn;
 import javafx.scene.control.TableView;
 import org.greenrobot.eventbus.Subscribe;
 
+import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.atomic.AtomicReference;
+
 import static com.keenwrite.events.Bus.register;
 import static com.keenwrite.events.StatusEvent.clue;
 import static com.keenwrite.preferences.AppKeys.KEY_LANGUAGE_LOCALE;
 import static com.keenwrite.preferences.AppKeys.KEY_UI_FONT_EDITOR_NAME;
 import static com.keenwrite.ui.heuristics.DocumentStatistics.StatEntry;
 import static java.lang.String.format;
+import static java.util.concurrent.Executors.newSingleThreadExecutor;
 import static javafx.application.Platform.runLater;
 import static javafx.collections.FXCollections.observableArrayList;
 import static javafx.scene.control.SelectionMode.MULTIPLE;
@@ -32,10 +37,37 @@ import static javafx.scene.control.SelectionMode.MULTIPLE;
  * word frequency.
  */
 public final class DocumentStatistics extends TableView<StatEntry> {
+  /**
+   * Counts words in the background so that large documents do not stall
+   * the user interface.
+   */
+  private static final ExecutorService sCounter =
+    newSingleThreadExecutor( runnable -> {
+      final var thread = new Thread( runnable, "word-counter" );
+      thread.setDaemon( true );
+      return thread;
+    } );
 
-  private WordCounter mWordCounter;
+  private volatile WordFrequencies mFrequencies;
   private final ObservableList<StatEntry> mItems = observableArrayList();
 
+  /**
+   * Maps each word in the table to its row, so that changed tallies can be
+   * updated in place. Accessed from the JavaFX thread only.
+   */
+  private final Map<String, StatEntry> mEntries = new HashMap<>();
+
+  /**
+   * The most recent document that has not yet been counted. Documents that
+   * arrive faster than they can be counted replace each other.
+   */
+  private final AtomicReference<String> mPending = new AtomicReference<>();
+
+  /**
+   * The most recent document, recounted when the locale changes.
+   */
+  private volatile String mDocument;
+
   /**
    * Creates a new observer of document change events that will gather and
    * display document statistics (e.g., word counts).
@@ -43,7 +75,7 @@ public final class DocumentStatistics extends TableView<StatEntry> {
    * @param workspace Settings used to configure the statistics engine.
    */
   public DocumentStatistics( final Workspace workspace ) {
-    mWordCounter = WordCounter.create( workspace.getLocale() );
+    mFrequencies = createFrequencies( workspace.getLocale() );
 
     final var sortedItems = new SortedList<>( mItems );
     sortedItems.comparatorProperty().bind( comparatorProperty() );
@@ -60,26 +92,93 @@ public final class DocumentStatistics extends TableView<StatEntry> {
    * document is sent for rendering, the parsed document is converted to text.
    * If that text differs in its hash code, then this method is called. The
    * implication is that all variables and executable statements have been
-   * replaced. An event bus subscriber is used so that text processing occurs
-   * outside the UI processing threads.
+   * replaced. Only the paragraphs that changed are counted, on a background
+   * thread, and only the words whose tallies changed are updated in the
+   * table.
    *
    * @param event Container for the document text that has changed.
    */
   @Subscribe
   public void handle( final DocumentChangedEvent event ) {
-    try {
-      runLater( () -> {
-        mItems.clear();
-        final var document = event.getDocument();
-        final var wordCount = mWordCounter.count(
-          document, ( k, count ) ->
-            mItems.add( new StatEntry( k, count ) )
+    count( event.getDocument() );
+  }
+
+  /**
+   * Requests that the given document be counted, replacing any document
+   * that has not yet been counted.
+   *
+   * @param document The document to count.
+   */
+  private void count( final String document ) {
+    mDocument = document;
+
+    if( mPending.getAndSet( document ) == null ) {
+      sCounter.execute( this::drain );
+    }
+  }
+
+  /**
+   * Counts the most recent document, if any, then updates the table with
+   * the words whose tallies changed.
+   */
+  private void drain() {
+    final var document = mPending.getAndSet( null );
+
+    if( document != null ) {
+      try {
+        final var frequencies = mFrequencies;
+        final var changes = frequencies.update(
+          WordFrequencies.split( document )
         );
 
-        WordCountEvent.fire( wordCount );
-      } );
-    } catch( final TokenizerException ex ) {
-      clue( ex );
+        runLater( () -> {
+          // Discard tallies from before the locale changed.
+          if( frequencies == mFrequencies ) {
+            apply( changes.changes() );
+          }
+        } );
+
+        WordCountEvent.fire( changes.total() );
+      } catch( final TokenizerException ex ) {
+        clue( ex );
+      }
+    }
+  }
+
+  /**
+   * Applies the changed tallies to the table. Rows are added and removed in
+   * bulk so that the sorted view is recomputed once.
+   *
+   * @param changes Words mapped to their new tallies, zero for removal.
+   */
+  private void apply( final Map<String, Integer> changes ) {
+    final var added = new ArrayList<StatEntry>();
+    final var removed = new HashSet<StatEntry>();
+
+    changes.forEach( ( word, tally ) -> {
+      final var entry = mEntries.get( word );
+
+      if( tally == 0 ) {
+        if( entry != null ) {
+          removed.add( mEntries.remove( word ) );
+        }
+      }
+      else if( entry == null ) {
+        final var created = new StatEntry( word, tally );
+        mEntries.put( word, created );
+        added.add( created );
+      }
+      else {
+        entry.tallyProperty().set( tally );
+      }
+    } );
+
+    if( !removed.isEmpty() ) {
+      mItems.removeAll( removed );
+    }
+
+    if( !added.isEmpty() ) {
+      mItems.addAll( added );
     }
   }
 
@@ -112,9 +211,20 @@ public final class DocumentStatistics extends TableView<StatEntry> {
 
   private void initLocaleListener( final Workspace workspace ) {
     final var property = workspace.localeProperty( KEY_LANGUAGE_LOCALE );
-    property.addListener(
-      ( c, o, n ) -> mWordCounter = WordCounter.create( property.toLocale() )
-    );
+    property.addListener( ( c, o, n ) -> {
+      mFrequencies = createFrequencies( property.toLocale() );
+
+      runLater( () -> {
+        mEntries.clear();
+        mItems.clear();
+
+        final var document = mDocument;
+
+        if( document != null ) {
+          count( document );
+        }
+      } );
+    } );
   }
 
   private void initFontListener( final Workspace workspace ) {
@@ -140,6 +250,10 @@ public final class DocumentStatistics extends TableView<StatEntry> {
     } );
   }
 
+  private static WordFrequencies createFrequencies( final Locale locale ) {
+    return new WordFrequencies( WordCounter.create( locale ) );
+  }
+
   private <E, T> TableColumn<E, T> createColumn( final String key ) {
     return new TableColumn<>( key );
   }
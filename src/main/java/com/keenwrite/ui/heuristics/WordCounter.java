@@ -5,6 +5,7 @@ import com.whitemagicsoftware.keencount.Tokenizer;
 import com.whitemagicsoftware.keencount.TokenizerFactory;
 
 import java.util.Locale;
+import java.util.Map;
 import java.util.function.BiConsumer;
 
 /**
@@ -45,7 +46,7 @@ public class WordCounter {
    */
   public int count(
     final String document, final BiConsumer<String, Integer> consumer ) {
-    final var tokens = mTokenizer.tokenize( document );
+    final var tokens = tokenize( document );
     final var sum = new int[]{0};
 
     tokens.forEach( ( k, v ) -> {
@@ -57,6 +58,17 @@ public class WordCounter {
     return sum[ 0 ];
   }
 
+  /**
+   * Splits the document into words.
+   *
+   * @param document The document to tokenize.
+   * @return Each unique word mapped to a single-element array holding the
+   * number of times the word appears in the document.
+   */
+  Map<String, int[]> tokenize( final String document ) {
+    return mTokenizer.tokenize( document );
+  }
+
   /**
    * Constructs a new {@link WordCounter} capable of tokenizing a document
    * into words using the given {@link Locale}.
@@ -0,0 +1,210 @@
+/* Copyright 2024 White Magic Software, Ltd. -- All rights reserved.
+ *
+ * SPDX-License-Identifier: MIT
+ */
+package com.keenwrite.ui.heuristics;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Responsible for tallying how often each word appears in a document that
+ * changes a little at a time. The document is given as a list of paragraphs;
+ * only paragraphs that were not in the previous document are tokenized, and
+ * the tallies of paragraphs that are no longer in the document are
+ * subtracted. Each update answers which words had their tallies changed.
+ * <p>
+ * Instances may be shared between threads.
+ * </p>
+ */
+public final class WordFrequencies {
+  /**
+   * The words of a paragraph along with how often each word appears.
+   *
+   * @param words       The distinct words of the paragraph.
+   * @param counts      The number of times each word appears in the
+   *                    paragraph, parallel to {@code words}.
+   * @param occurrences The number of times the paragraph appears in the
+   *                    document.
+   */
+  private record Paragraph( String[] words, int[] counts, int occurrences ) {
+    private Paragraph with( final int occurrences ) {
+      return new Paragraph( words, counts, occurrences );
+    }
+  }
+
+  /**
+   * The result of an update.
+   *
+   * @param total   The number of words in the document.
+   * @param changes Each word whose tally changed, mapped to its new tally,
+   *                which is zero for words no longer in the document.
+   */
+  public record Changes( int total, Map<String, Integer> changes ) { }
+
+  private final WordCounter mCounter;
+
+  /**
+   * Maps the text of each paragraph in the previous document to its words.
+   */
+  private Map<String, Paragraph> mParagraphs = new HashMap<>();
+
+  /**
+   * Maps each word to a single-element array that holds its tally, so that
+   * tallies are changed without boxing.
+   */
+  private final Map<String, int[]> mTally = new HashMap<>();
+
+  private int mTotal;
+
+  /**
+   * Creates a word tally that uses the given counter to tokenize paragraphs.
+   *
+   * @param counter Splits paragraphs into words.
+   */
+  public WordFrequencies( final WordCounter counter ) {
+    assert counter != null;
+
+    mCounter = counter;
+  }
+
+  /**
+   * Changes the tally to reflect the given document.
+   *
+   * @param paragraphs The document, split into paragraphs such that no word
+   *                   spans two paragraphs.
+   * @return The total number of words and the words whose tallies changed
+   * since the previous update.
+   */
+  public synchronized Changes update( final List<String> paragraphs ) {
+    final var size = paragraphs.size() << 1;
+    final var occurrences = new HashMap<String, int[]>( size );
+
+    for( final var paragraph : paragraphs ) {
+      occurrences.computeIfAbsent( paragraph, _ -> new int[1] )[ 0 ]++;
+    }
+
+    final var previous = mParagraphs;
+    final var current = new HashMap<String, Paragraph>( size );
+    final var original = new HashMap<String, Integer>();
+
+    occurrences.forEach( ( text, count ) -> {
+      final var existing = previous.remove( text );
+      final var prior = existing == null ? 0 : existing.occurrences();
+      final var paragraph = existing == null
+        ? tokenize( text, count[ 0 ] )
+        : existing.with( count[ 0 ] );
+
+      tally( paragraph, count[ 0 ] - prior, original );
+      current.put( text, paragraph );
+    } );
+
+    // Paragraphs remaining in the previous document were removed.
+    for( final var paragraph : previous.values() ) {
+      tally( paragraph, -paragraph.occurrences(), original );
+    }
+
+    mParagraphs = current;
+
+    final var changes = new HashMap<String, Integer>( original.size() << 1 );
+
+    original.forEach( ( word, before ) -> {
+      final var tally = mTally.get( word );
+      final var after = tally == null ? 0 : tally[ 0 ];
+
+      if( after != before ) {
+        changes.put( word, after );
+      }
+    } );
+
+    return new Changes( mTotal, changes );
+  }
+
+  /**
+   * Changes the tally to reflect the given document, without determining
+   * which words changed.
+   *
+   * @param paragraphs The document, split into paragraphs.
+   * @return The total number of words in the document.
+   */
+  public int count( final List<String> paragraphs ) {
+    return update( paragraphs ).total();
+  }
+
+  /**
+   * Splits rendered HTML into paragraphs at each line that begins with a
+   * tag. The renderer starts every block on a new line, and words never
+   * span lines, so no word is split.
+   *
+   * @param html The document to split.
+   * @return The document's paragraphs, in order.
+   */
+  public static List<String> split( final String html ) {
+    final var paragraphs = new ArrayList<String>();
+    final var length = html.length();
+    int began = 0;
+    int index = html.indexOf( "\n<" );
+
+    while( index >= 0 ) {
+      paragraphs.add( html.substring( began, index + 1 ) );
+      began = index + 1;
+      index = html.indexOf( "\n<", began );
+    }
+
+    if( began < length ) {
+      paragraphs.add( html.substring( began ) );
+    }
+
+    return paragraphs;
+  }
+
+  /**
+   * Adds the words of the given paragraph to the tally the given number of
+   * times, which is negative to remove the words.
+   *
+   * @param paragraph The paragraph to add or remove.
+   * @param times     The number of times to add the paragraph.
+   * @param original  Records the tally of every word before it changed.
+   */
+  private void tally(
+    final Paragraph paragraph,
+    final int times,
+    final Map<String, Integer> original ) {
+    if( times == 0 ) {
+      return;
+    }
+
+    final var words = paragraph.words();
+    final var counts = paragraph.counts();
+
+    for( int i = 0; i < words.length; i++ ) {
+      final var word = words[ i ];
+      final var tally = mTally.computeIfAbsent( word, _ -> new int[1] );
+      final var delta = counts[ i ] * times;
+
+      original.putIfAbsent( word, tally[ 0 ] );
+      tally[ 0 ] += delta;
+      mTotal += delta;
+
+      if( tally[ 0 ] <= 0 ) {
+        mTally.remove( word );
+      }
+    }
+  }
+
+  private Paragraph tokenize( final String text, final int occurrences ) {
+    final var tokens = mCounter.tokenize( text );
+    final var words = new String[ tokens.size() ];
+    final var counts = new int[ tokens.size() ];
+    int i = 0;
+
+    for( final var token : tokens.entrySet() ) {
+      words[ i ] = token.getKey();
+      counts[ i++ ] = token.getValue()[ 0 ];
+    }
+
+    return new Paragraph( words, counts, occurrences );
+  }
+}
@@ -2,8 +2,10 @@
 package com.keenwrite.ui.logging;
 
 import com.keenwrite.events.StatusEvent;
+import com.keenwrite.events.StatusSink;
 import com.keenwrite.ui.actions.Keyboard;
 import com.keenwrite.ui.clipboard.SystemClipboard;
+import javafx.application.Platform;
 import javafx.beans.property.SimpleStringProperty;
 import javafx.beans.property.StringProperty;
 import javafx.collections.ObservableList;
@@ -12,7 +14,11 @@ import javafx.stage.Stage;
 import org.greenrobot.eventbus.Subscribe;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
 import java.util.Objects;
+import java.util.Set;
 
 import static com.keenwrite.Messages.get;
 import static com.keenwrite.constants.Constants.ACTION_PREFIX;
@@ -21,7 +27,6 @@ import static com.keenwrite.events.Bus.register;
 import static com.keenwrite.events.StatusEvent.clue;
 import static java.time.LocalDateTime.now;
 import static java.time.format.DateTimeFormatter.ofPattern;
-import static javafx.application.Platform.runLater;
 import static javafx.collections.FXCollections.observableArrayList;
 import static javafx.event.ActionEvent.ACTION;
 import static javafx.scene.control.Alert.AlertType.INFORMATION;
@@ -43,6 +48,17 @@ public final class LogView extends Alert {
   private final ObservableList<LogEntry> mItems = observableArrayList();
   private final TableView<LogEntry> mTable = new TableView<>( mItems );
 
+  /**
+   * Messages of the entries in {@link #mItems}, to skip duplicates quickly.
+   */
+  private final Set<String> mMessages = new HashSet<>();
+
+  /**
+   * Collects events from any thread, adding them to the table in batches.
+   */
+  private final StatusSink mSink =
+    new StatusSink( CACHE_SIZE, Platform::runLater, this::log );
+
   public LogView() {
     super( INFORMATION );
     setTitle( get( ACTION_PREFIX + "view.log.text" ) );
@@ -57,19 +73,39 @@ public final class LogView extends Alert {
 
   @Subscribe
   public void log( final StatusEvent event ) {
-    runLater( () -> {
-      final var logEntry = new LogEntry( event );
+    mSink.accept( event );
+  }
 
-      if( !mItems.contains( logEntry ) ) {
-        mItems.add( logEntry );
+  /**
+   * Called on the JavaFX thread to add a batch of events to the table.
+   *
+   * @param events The events to add, oldest first.
+   */
+  private void log( final List<StatusEvent> events ) {
+    final var entries = new ArrayList<LogEntry>( events.size() );
 
-        while( mItems.size() > CACHE_SIZE ) {
-          mItems.remove( 0 );
-        }
+    for( final var event : events ) {
+      final var entry = new LogEntry( event );
 
-        mTable.scrollTo( logEntry );
+      if( mMessages.add( entry.messageProperty().get() ) ) {
+        entries.add( entry );
       }
-    } );
+    }
+
+    if( !entries.isEmpty() ) {
+      mItems.addAll( entries );
+
+      final var excess = mItems.size() - CACHE_SIZE;
+
+      if( excess > 0 ) {
+        mItems.subList( 0, excess ).forEach(
+          entry -> mMessages.remove( entry.messageProperty().get() )
+        );
+        mItems.remove( 0, excess );
+      }
+
+      mTable.scrollTo( mItems.size() - 1 );
+    }
   }
 
   /**
@@ -85,6 +121,7 @@ public final class LogView extends Alert {
    */
   public void clear() {
     mItems.clear();
+    mMessages.clear();
     clue();
   }
 
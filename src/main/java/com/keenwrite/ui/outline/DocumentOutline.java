@@ -2,7 +2,8 @@ package com.keenwrite.ui.outline;
 
 import com.keenwrite.events.Bus;
 import com.keenwrite.events.CaretNavigationEvent;
-import com.keenwrite.events.ParseHeadingEvent;
+import com.keenwrite.events.ParseOutlineEvent;
+import com.keenwrite.processors.markdown.extensions.outline.DocumentOutlineExtension.Item;
 import javafx.scene.Node;
 import javafx.scene.control.TreeCell;
 import javafx.scene.control.TreeItem;
@@ -10,14 +11,39 @@ import javafx.scene.control.TreeView;
 import javafx.util.Callback;
 import org.greenrobot.eventbus.Subscribe;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+
 import static com.keenwrite.events.Bus.register;
 import static com.keenwrite.ui.fonts.IconFactory.createGraphic;
+import static java.lang.Math.max;
+import static java.lang.Math.min;
 import static javafx.application.Platform.runLater;
 import static javafx.scene.input.MouseButton.PRIMARY;
 import static javafx.scene.input.MouseEvent.MOUSE_PRESSED;
 
-public class DocumentOutline extends TreeView<ParseHeadingEvent> {
-  private TreeItem<ParseHeadingEvent> mCurrent;
+public class DocumentOutline extends TreeView<Item> {
+  private static final Item ROOT = new Item( 0, "Document", 0 );
+
+  /**
+   * A heading along with the headings nested beneath it.
+   *
+   * @param item     The heading.
+   * @param children The headings nested beneath the heading.
+   */
+  private record Heading( Item item, List<Heading> children ) {
+    private Heading( final Item item ) {
+      this( item, new ArrayList<>() );
+    }
+  }
+
+  /**
+   * The most recent outline that has not yet been displayed. Outlines that
+   * arrive faster than they can be displayed replace each other, so that
+   * only the latest outline is displayed.
+   */
+  private final AtomicReference<List<Item>> mPending = new AtomicReference<>();
 
   /**
    * Registers with the {@link Bus}.
@@ -26,18 +52,17 @@ public class DocumentOutline extends TreeView<ParseHeadingEvent> {
     // Override double-click to issue a caret navigation event.
     setCellFactory( new Callback<>() {
       @Override
-      public TreeCell<ParseHeadingEvent> call(
-        TreeView<ParseHeadingEvent> treeView ) {
-        TreeCell<ParseHeadingEvent> cell = new TreeCell<>() {
+      public TreeCell<Item> call( TreeView<Item> treeView ) {
+        TreeCell<Item> cell = new TreeCell<>() {
           @Override
-          protected void updateItem( ParseHeadingEvent item, boolean empty ) {
+          protected void updateItem( Item item, boolean empty ) {
             super.updateItem( item, empty );
             if( empty || item == null ) {
               setText( null );
               setGraphic( null );
             }
             else {
-              setText( item.toString() );
+              setText( item.text() );
               setGraphic( createIcon() );
             }
           }
@@ -45,7 +70,7 @@ public class DocumentOutline extends TreeView<ParseHeadingEvent> {
 
         cell.addEventFilter( MOUSE_PRESSED, event -> {
           if( event.getButton() == PRIMARY && event.getClickCount() % 2 == 0 ) {
-            CaretNavigationEvent.fire( cell.getItem().getOffset() );
+            CaretNavigationEvent.fire( cell.getItem().offset() );
             event.consume();
           }
         } );
@@ -54,65 +79,135 @@ public class DocumentOutline extends TreeView<ParseHeadingEvent> {
       }
     } );
 
+    setRoot( createTreeItem( ROOT ) );
+    setShowRoot( false );
+
     register( this );
   }
 
   /**
-   * Updates the {@link TreeView} with the given event data. This method will
-   * track the most recently added {@link TreeItem} so that the nesting
-   * hierarchy reflects the document hierarchy.
+   * Updates the {@link TreeView} to reflect the given outline. At most one
+   * update waits to run on the application thread at any time.
    *
-   * @param event Represents a document heading to add to the tree.
+   * @param event Contains all the headings in the document.
    */
   @Subscribe
-  public void handle( final ParseHeadingEvent event ) {
-    runLater(
-      () -> mCurrent = event.isNewOutline() ? clear( event ) : addItem( event )
-    );
+  public void handle( final ParseOutlineEvent event ) {
+    if( mPending.getAndSet( event.getHeadings() ) == null ) {
+      runLater( () -> update( mPending.getAndSet( null ) ) );
+    }
   }
 
-  private TreeItem<ParseHeadingEvent> clear( final ParseHeadingEvent event ) {
-    final var root = createTreeItem( event );
-    setRoot( root );
-    setShowRoot( false );
+  /**
+   * Changes the tree to match the given outline, reusing the tree items for
+   * headings that haven't changed so that their subtrees aren't rebuilt.
+   *
+   * @param headings The headings in document order.
+   */
+  private void update( final List<Item> headings ) {
+    reconcile( getRoot(), nest( headings ).children() );
+  }
+
+  /**
+   * Nests the headings into a hierarchy. Each heading's level is relative to
+   * the previous heading: a deeper heading is nested beneath the previous
+   * heading, whereas a shallower heading ascends one level for each level
+   * of difference.
+   *
+   * @param headings The headings in document order.
+   * @return The root of the hierarchy.
+   */
+  private static Heading nest( final List<Item> headings ) {
+    final var root = new Heading( ROOT );
+    final var path = new ArrayList<Heading>();
+    path.add( root );
+
+    for( final var item : headings ) {
+      final var curr = path.getLast();
+      final var delta = curr.item().level() - item.level() + 1;
+      final var index = max( 0, path.size() - 1 - max( 0, delta ) );
+      final var heading = new Heading( item );
+
+      path.subList( index + 1, path.size() ).clear();
+      path.getLast().children().add( heading );
+      path.add( heading );
+    }
+
     return root;
   }
 
   /**
-   * This method is called once for every heading in the document. The event
-   * data directly corresponds to the sequence of headings in the document.
-   * The given event data contains a level that is relative to the last
-   * item in the tree.
+   * Changes the given tree item's children to match the given headings.
+   * Children that match a heading's level and text, in the same position
+   * from either the start or the end, are kept.
    *
-   * @param next Contains a level value to indicate heading depth.
+   * @param parent   The tree item to update.
+   * @param headings The headings that the tree item's children must match.
    */
-  private TreeItem<ParseHeadingEvent> addItem( final ParseHeadingEvent next ) {
-    var parent = mCurrent;
-    final var item = createTreeItem( next );
-    final var curr = parent.getValue();
-    final var currLevel = curr.getLevel();
-    final var nextLevel = next.getLevel();
-    var deltaLevel = currLevel - nextLevel + 1;
-
-    while( deltaLevel > 0 && parent != null ) {
-      parent = parent.getParent();
-      deltaLevel--;
+  private void reconcile(
+    final TreeItem<Item> parent, final List<Heading> headings ) {
+    final var children = parent.getChildren();
+    final var existing = new ArrayList<>( children );
+    final var newSize = headings.size();
+    final var oldSize = existing.size();
+    final var minSize = min( newSize, oldSize );
+    final var result = new ArrayList<TreeItem<Item>>( newSize );
+
+    int prefix = 0;
+
+    while( prefix < minSize &&
+      isSame( existing.get( prefix ), headings.get( prefix ) ) ) {
+      prefix++;
+    }
+
+    int suffix = 0;
+
+    while( suffix < minSize - prefix &&
+      isSame( existing.get( oldSize - 1 - suffix ),
+              headings.get( newSize - 1 - suffix ) ) ) {
+      suffix++;
+    }
+
+    for( int i = 0; i < newSize; i++ ) {
+      final var heading = headings.get( i );
+      final TreeItem<Item> child;
+
+      if( i < prefix ) {
+        child = existing.get( i );
+      }
+      else if( i >= newSize - suffix ) {
+        child = existing.get( oldSize - newSize + i );
+      }
+      else {
+        child = createTreeItem( heading.item() );
+      }
+
+      // Offsets change whenever text is edited above the heading.
+      if( !child.getValue().equals( heading.item() ) ) {
+        child.setValue( heading.item() );
+      }
+
+      reconcile( child, heading.children() );
+      result.add( child );
     }
 
-    if( parent == null ) {
-      parent = getRoot();
+    if( !result.equals( existing ) ) {
+      children.setAll( result );
     }
+  }
 
-    parent.getChildren().add( item );
+  private static boolean isSame(
+    final TreeItem<Item> treeItem, final Heading heading ) {
+    final var value = treeItem.getValue();
+    final var item = heading.item();
 
-    return item;
+    return value.level() == item.level() && value.text().equals( item.text() );
   }
 
-  private TreeItem<ParseHeadingEvent> createTreeItem(
-    final ParseHeadingEvent event ) {
-    final var item = new TreeItem<>( event, createIcon() );
-    item.setExpanded( true );
-    return item;
+  private TreeItem<Item> createTreeItem( final Item item ) {
+    final var treeItem = new TreeItem<>( item, createIcon() );
+    treeItem.setExpanded( true );
+    return treeItem;
   }
 
   private Node createIcon() {
@@ -0,0 +1,515 @@
+/* Copyright 2024 White Magic Software, Ltd. -- All rights reserved.
+ *
+ * SPDX-License-Identifier: MIT
+ */
+package com.keenwrite.ui.spelling;
+
+import com.keenwrite.spelling.api.SpellChecker;
+import com.vladsch.flexmark.ast.Text;
+import com.vladsch.flexmark.parser.Parser;
+import com.vladsch.flexmark.util.ast.Node;
+import org.fxmisc.richtext.StyleClassedTextArea;
+import org.fxmisc.richtext.model.StyleSpans;
+import org.fxmisc.richtext.model.StyleSpansBuilder;
+
+import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.function.Supplier;
+
+import static com.keenwrite.events.StatusEvent.clue;
+import static java.lang.Math.max;
+import static java.lang.Math.min;
+import static java.util.Collections.emptyList;
+import static java.util.Collections.singleton;
+import static java.util.concurrent.Executors.newSingleThreadExecutor;
+import static javafx.application.Platform.runLater;
+
+/**
+ * Responsible for spell checking documents on a background thread. Whole
+ * documents are checked in batches of paragraphs, starting with the visible
+ * paragraphs, so that misspellings on screen are marked first. Each batch's
+ * style spans are applied to the editor as soon as the batch is checked.
+ * Paragraphs edited while a document is being checked are checked between
+ * batches, while the document check continues; its results for paragraphs
+ * whose text has since changed are discarded.
+ * <p>
+ * Misspellings are cached by the text in which they were found, so checking
+ * a document again (e.g., after changing languages) only proofreads text
+ * that has not yet been seen.
+ * </p>
+ */
+final class SpellCheckWorker {
+  /**
+   * Number of paragraphs (lines) checked and styled at a time.
+   */
+  private static final int BATCH_PARAGRAPHS = 256;
+
+  /**
+   * Maximum number of text fragments having cached proofreading results.
+   */
+  private static final int CACHE_SIZE = 16_384;
+
+  /**
+   * Identifies the document check in progress for an editor.
+   */
+  private static final String PROP_SCAN = "spelling.scan";
+
+  /**
+   * Marks misspelled words.
+   */
+  private static final Collection<String> STYLE_SPELLING =
+    singleton( "spelling" );
+
+  private static final Collection<String> STYLE_NONE = emptyList();
+
+  private static final int[] NO_MISSPELLINGS = new int[ 0 ];
+
+  private final ExecutorService mExecutor =
+    newSingleThreadExecutor( runnable -> {
+      final var thread = new Thread( runnable, "spell-checker" );
+      thread.setDaemon( true );
+      return thread;
+    } );
+
+  private final Supplier<SpellChecker> mSpellChecker;
+
+  /**
+   * Maps text fragments to the offsets of misspelled words within them, as
+   * pairs of starting and ending offsets. Accessed by the worker only.
+   */
+  private final Map<String, int[]> mCache =
+    new LinkedHashMap<>( CACHE_SIZE, 0.75f, true ) {
+      @Override
+      protected boolean removeEldestEntry(
+        final Map.Entry<String, int[]> eldest ) {
+        return size() > CACHE_SIZE;
+      }
+    };
+
+  /**
+   * The spell checker that produced the cached results.
+   */
+  private SpellChecker mCacheOwner;
+
+  private final Parser mParser = Parser.builder().build();
+
+  /**
+   * @param checker Provides the current spell checker, which changes when
+   *                the user changes languages.
+   */
+  SpellCheckWorker( final Supplier<SpellChecker> checker ) {
+    assert checker != null;
+
+    mSpellChecker = checker;
+  }
+
+  /**
+   * Starts checking the entire document, replacing any check of the same
+   * document that is in progress. Must be called on the JavaFX thread.
+   *
+   * @param editor The document to check.
+   */
+  void checkDocument( final StyleClassedTextArea editor ) {
+    final var scan = new Scan( editor, editor.getText(), visible( editor ) );
+
+    if( editor.getProperties().put( PROP_SCAN, scan ) instanceof Scan old ) {
+      old.cancel();
+    }
+
+    mExecutor.execute( scan );
+  }
+
+  /**
+   * Checks the given paragraph after it changed. If the document is still
+   * being checked, the paragraph is checked before the next batch and the
+   * document check continues. Must be called on the JavaFX thread.
+   *
+   * @param editor The document containing the paragraph.
+   * @param paraId Index of the paragraph to check.
+   */
+  void checkParagraph( final StyleClassedTextArea editor, final int paraId ) {
+    final var text = editor.getParagraph( paraId ).getText();
+
+    if( text.isEmpty() ) {
+      return;
+    }
+
+    mExecutor.execute( () -> {
+      final var spans = style( parse( text ), text, 0, text.length() );
+
+      runLater( () -> {
+        // Discard results for text that has since changed.
+        if( paraId < editor.getParagraphs().size() &&
+          editor.getParagraph( paraId ).getText().equals( text ) ) {
+          editor.setStyleSpans( paraId, 0, spans );
+        }
+      } );
+    } );
+  }
+
+  /**
+   * Checks a document in batches of paragraphs.
+   */
+  private final class Scan implements Runnable {
+    private final StyleClassedTextArea mEditor;
+    private final String mText;
+    private final int[] mVisible;
+
+    /**
+     * Paragraph ranges to check, in order, as pairs of first and last
+     * paragraph indexes.
+     */
+    private final Deque<int[]> mBatches = new ArrayDeque<>();
+
+    /**
+     * Offset of the first character of each paragraph, plus the length of
+     * the text.
+     */
+    private int[] mStarts;
+    private List<Text> mNodes;
+
+    /**
+     * Number of paragraphs in the text being checked.
+     */
+    private int mCount;
+
+    /**
+     * Set when the document changes or another check of the document starts.
+     */
+    private volatile boolean mCancelled;
+
+    private Scan(
+      final StyleClassedTextArea editor,
+      final String text,
+      final int[] visible ) {
+      mEditor = editor;
+      mText = text;
+      mVisible = visible;
+    }
+
+    /**
+     * Checks the next batch, then schedules the subsequent batch so that
+     * paragraph checks can run in between.
+     */
+    @Override
+    public void run() {
+      if( mCancelled ) {
+        return;
+      }
+
+      try {
+        if( mStarts == null ) {
+          prepare();
+        }
+
+        final var batch = mBatches.poll();
+
+        if( batch != null ) {
+          final var first = batch[ 0 ];
+          final var spans =
+            new ArrayList<StyleSpans<Collection<String>>>(
+              batch[ 1 ] - first + 1 );
+
+          for( int i = first; i <= batch[ 1 ]; i++ ) {
+            final var began = mStarts[ i ];
+            final var ended = end( i );
+
+            spans.add( ended > began
+                         ? style( mNodes, mText, began, ended )
+                         : null );
+          }
+
+          final var last = mBatches.isEmpty();
+
+          runLater( () -> {
+            if( isCurrent() ) {
+              apply( first, spans );
+
+              if( last ) {
+                finish();
+              }
+            }
+          } );
+
+          if( !last ) {
+            mExecutor.execute( this );
+          }
+        }
+      } catch( final Exception ex ) {
+        clue( ex );
+        runLater( () -> {
+          if( isCurrent() ) {
+            finish();
+          }
+        } );
+      }
+    }
+
+    /**
+     * Parses the document and orders the batches: the visible paragraphs,
+     * the paragraphs after them, then the paragraphs before them.
+     */
+    private void prepare() {
+      mNodes = parse( mText );
+      mStarts = starts( mText );
+      mCount = mStarts.length - 1;
+
+      final var count = mCount;
+      final var first = min( mVisible[ 0 ], count - 1 );
+      final var last = min( max( mVisible[ 1 ], first ), count - 1 );
+
+      mBatches.add( new int[]{first, last} );
+
+      for( int i = last + 1; i < count; i += BATCH_PARAGRAPHS ) {
+        mBatches.add( new int[]{i, min( i + BATCH_PARAGRAPHS, count ) - 1} );
+      }
+
+      for( int i = first; i > 0; i -= BATCH_PARAGRAPHS ) {
+        mBatches.add( new int[]{max( i - BATCH_PARAGRAPHS, 0 ), i - 1} );
+      }
+    }
+
+    /**
+     * Styles the paragraphs of a batch whose text has not changed since the
+     * check started. Paragraphs that moved because lines were added or
+     * removed before them are found by the change in the paragraph count.
+     * Must be called on the JavaFX thread.
+     *
+     * @param first Index of the batch's first paragraph in the checked text.
+     * @param spans Styles for each paragraph, {@code null} if it is empty.
+     */
+    private void apply(
+      final int first, final List<StyleSpans<Collection<String>>> spans ) {
+      final var shift = mEditor.getParagraphs().size() - mCount;
+
+      for( int i = 0; i < spans.size(); i++ ) {
+        final var styles = spans.get( i );
+
+        if( styles != null ) {
+          final var paraId = first + i;
+
+          if( matches( paraId, paraId ) ) {
+            mEditor.setStyleSpans( paraId, 0, styles );
+          }
+          else if( shift != 0 && matches( paraId, paraId + shift ) ) {
+            mEditor.setStyleSpans( paraId + shift, 0, styles );
+          }
+        }
+      }
+    }
+
+    /**
+     * Answers whether a paragraph in the editor has the same text as a
+     * paragraph in the checked text.
+     *
+     * @param checked Index of the paragraph in the checked text.
+     * @param current Index of the paragraph in the editor.
+     * @return {@code true} if the paragraph's text is unchanged.
+     */
+    private boolean matches( final int checked, final int current ) {
+      if( current < 0 || current >= mEditor.getParagraphs().size() ) {
+        return false;
+      }
+
+      final var text = mEditor.getParagraph( current ).getText();
+      final var began = mStarts[ checked ];
+      final var length = end( checked ) - began;
+
+      return text.length() == length &&
+        text.regionMatches( 0, mText, began, length );
+    }
+
+    /**
+     * Returns the offset just past the given paragraph's last character,
+     * excluding its newline.
+     */
+    private int end( final int paraId ) {
+      final var next = mStarts[ paraId + 1 ];
+      return paraId + 1 < mCount ? next - 1 : next;
+    }
+
+    private void cancel() {
+      mCancelled = true;
+    }
+
+    /**
+     * Answers whether this is the editor's most recent check. Must be called
+     * on the JavaFX thread.
+     */
+    private boolean isCurrent() {
+      return mEditor.getProperties().get( PROP_SCAN ) == this;
+    }
+
+    private void finish() {
+      mEditor.getProperties().remove( PROP_SCAN );
+    }
+  }
+
+  /**
+   * Creates style spans that mark the misspelled words within a range of
+   * the text, covering the entire range so that previous marks are removed.
+   *
+   * @param nodes The text nodes of the document, in order.
+   * @param text  The document text.
+   * @param began Offset into the text where the range begins.
+   * @param ended Offset into the text where the range ends.
+   * @return The styles for the range.
+   */
+  private StyleSpans<Collection<String>> style(
+    final List<Text> nodes,
+    final String text,
+    final int began,
+    final int ended ) {
+    final var builder = new StyleSpansBuilder<Collection<String>>();
+    var index = began;
+
+    for( int i = first( nodes, began ); i < nodes.size(); i++ ) {
+      final var node = nodes.get( i );
+      final var offset = node.getStartOffset();
+
+      if( offset >= ended ) {
+        break;
+      }
+
+      final var misspellings = proofread( node.getChars().toString() );
+
+      for( int j = 0; j < misspellings.length; j += 2 ) {
+        final var wordBegan = offset + misspellings[ j ];
+        final var wordEnded = offset + misspellings[ j + 1 ];
+
+        if( wordBegan >= index && wordEnded <= ended ) {
+          builder.add( STYLE_NONE, wordBegan - index );
+          builder.add( STYLE_SPELLING, wordEnded - wordBegan );
+          index = wordEnded;
+        }
+      }
+    }
+
+    builder.add( STYLE_NONE, max( ended - index, 0 ) );
+
+    return builder.create();
+  }
+
+  /**
+   * Returns the offsets of misspelled words in the given text fragment.
+   *
+   * @param text The text to proofread.
+   * @return Pairs of starting and ending offsets into the text.
+   */
+  private int[] proofread( final String text ) {
+    final var checker = mSpellChecker.get();
+
+    if( checker != mCacheOwner ) {
+      mCache.clear();
+      mCacheOwner = checker;
+    }
+
+    var misspellings = mCache.get( text );
+
+    if( misspellings == null ) {
+      final var offsets = new ArrayList<Integer>();
+
+      checker.proofread( text, ( _, began, ended ) -> {
+        offsets.add( began );
+        offsets.add( ended );
+      } );
+
+      misspellings = offsets.isEmpty()
+        ? NO_MISSPELLINGS
+        : offsets.stream().mapToInt( Integer::intValue ).toArray();
+      mCache.put( text, misspellings );
+    }
+
+    return misspellings;
+  }
+
+  /**
+   * Returns the text nodes of the given Markdown document, which excludes
+   * code, URLs, and other text that is not prose.
+   *
+   * @param text The document to parse.
+   * @return The text nodes, in document order.
+   */
+  private List<Text> parse( final String text ) {
+    final var nodes = new ArrayList<Text>();
+    collect( mParser.parse( text ), nodes );
+
+    return nodes;
+  }
+
+  private static void collect( final Node node, final List<Text> nodes ) {
+    if( node instanceof Text text ) {
+      nodes.add( text );
+    }
+
+    for( var child = node.getFirstChild(); child != null;
+         child = child.getNext() ) {
+      collect( child, nodes );
+    }
+  }
+
+  /**
+   * Finds the first text node that ends after the given offset.
+   */
+  private static int first( final List<Text> nodes, final int offset ) {
+    int lo = 0;
+    int hi = nodes.size();
+
+    while( lo < hi ) {
+      final int mid = (lo + hi) >>> 1;
+
+      if( nodes.get( mid ).getEndOffset() <= offset ) {
+        lo = mid + 1;
+      }
+      else {
+        hi = mid;
+      }
+    }
+
+    return lo;
+  }
+
+  /**
+   * Returns the offset of the first character of each paragraph, followed by
+   * the length of the text. Paragraphs are separated by newlines, as in the
+   * editor.
+   */
+  private static int[] starts( final String text ) {
+    var starts = new int[ 1024 ];
+    var count = 1;
+
+    for( int i = text.indexOf( '\n' ); i >= 0;
+         i = text.indexOf( '\n', i + 1 ) ) {
+      if( count + 1 >= starts.length ) {
+        starts = Arrays.copyOf( starts, starts.length << 1 );
+      }
+
+      starts[ count++ ] = i + 1;
+    }
+
+    starts[ count++ ] = text.length();
+
+    return Arrays.copyOf( starts, count );
+  }
+
+  /**
+   * Returns the indexes of the first and last visible paragraphs, or the
+   * first paragraph if the editor has not been displayed.
+   */
+  private static int[] visible( final StyleClassedTextArea editor ) {
+    try {
+      final var paragraphs = editor.getVisibleParagraphs();
+
+      if( !paragraphs.isEmpty() ) {
+        return new int[]{
+          editor.visibleParToAllParIndex( 0 ),
+          editor.visibleParToAllParIndex( paragraphs.size() - 1 )
+        };
+      }
+    } catch( final RuntimeException ignored ) {
+      // The editor has not been laid out.
+    }
+
+    return new int[]{0, 0};
+  }
+}
@@ -2,26 +2,17 @@
 package com.keenwrite.ui.spelling;
 
 import com.keenwrite.editors.TextEditor;
-import com.keenwrite.spelling.api.SpellCheckListener;
 import com.keenwrite.spelling.api.SpellChecker;
-import com.vladsch.flexmark.parser.Parser;
-import com.vladsch.flexmark.util.ast.NodeVisitor;
-import com.vladsch.flexmark.util.ast.VisitHandler;
 import javafx.beans.property.ObjectProperty;
 import javafx.scene.control.ContextMenu;
 import javafx.scene.control.IndexRange;
 import javafx.scene.control.MenuItem;
 import org.fxmisc.richtext.StyleClassedTextArea;
 import org.fxmisc.richtext.model.PlainTextChange;
-import org.fxmisc.richtext.model.StyleSpansBuilder;
 
-import java.util.Collection;
 import java.util.List;
-import java.util.concurrent.atomic.AtomicInteger;
 
 import static com.keenwrite.events.StatusEvent.clue;
-import static java.util.Collections.emptyList;
-import static java.util.Collections.singleton;
 import static org.fxmisc.richtext.model.TwoDimensional.Bias.Forward;
 
 /**
@@ -29,7 +20,7 @@ import static org.fxmisc.richtext.model.TwoDimensional.Bias.Forward;
  */
 public final class TextEditorSpellChecker {
   private final ObjectProperty<SpellChecker> mSpellChecker;
-  private final Parser mParser = Parser.builder().build();
+  private final SpellCheckWorker mWorker;
 
   /**
    * Create a new spellchecker that can highlight spelling mistakes within a
@@ -43,13 +34,15 @@ public final class TextEditorSpellChecker {
     assert checker != null;
 
     mSpellChecker = checker;
+    mWorker = new SpellCheckWorker( checker::get );
   }
 
   /**
-   * Call to spellcheck the entire document.
+   * Call to spellcheck the entire document. The document is checked in the
+   * background, starting with the visible paragraphs.
    */
   public void checkDocument( final TextEditor editor ) {
-    spellcheck( editor.getTextArea(), editor.getText(), -1 );
+    mWorker.checkDocument( editor.getTextArea() );
   }
 
   /**
@@ -62,6 +55,11 @@ public final class TextEditorSpellChecker {
    * Use {@link PlainTextChange} so that notifications of style changes
    * are suppressed. Checking against the identity ensures that only
    * new text additions or deletions trigger proofreading.
+   * </p>
+   * <p>
+   * The paragraph is proofread in the background. If the document is still
+   * being checked, the paragraph is checked between batches.
+   * </p>
    */
   public void checkParagraph(
     final StyleClassedTextArea editor,
@@ -70,8 +68,7 @@ public final class TextEditorSpellChecker {
     final var offset = change.getPosition();
     final var position = editor.offsetToPosition( offset, Forward );
     var paraId = position.getMajor();
-    var paragraph = editor.getParagraph( paraId );
-    var text = paragraph.getText();
+    final var text = editor.getParagraph( paraId ).getText();
 
     // If the current paragraph is blank, it may mean the caret is at the
     // start of a new paragraph (i.e., a blank line). Spellcheck the "next"
@@ -81,65 +78,9 @@ public final class TextEditorSpellChecker {
       final var count = paragraphs == null ? 0 : paragraphs.size();
 
       paraId = Math.min( paraId + 1, count - 1 );
-      paragraph = editor.getParagraph( paraId );
-      text = paragraph.getText();
     }
 
-    // Prevent doubling-up styles.
-    editor.clearStyle( paraId );
-
-    spellcheck( editor, text, paraId );
-  }
-
-  /**
-   * Spellchecks a subset of the entire document.
-   *
-   * @param editor The document (or portions thereof) to spellcheck.
-   * @param text   Look up words for this text in the lexicon.
-   * @param paraId Set to -1 to apply resulting style spans to the entire text.
-   */
-  private void spellcheck(
-    final StyleClassedTextArea editor, final String text, final int paraId ) {
-    final var builder = new StyleSpansBuilder<Collection<String>>();
-    final var runningIndex = new AtomicInteger( 0 );
-
-    // The text nodes must be relayed through a contextual "visitor" that
-    // can return text in chunks with correlative offsets into the string.
-    // This allows Markdown and R Markdown documents to return sets of
-    // words to check.
-    final var node = mParser.parse( text );
-    final var visitor = new TextVisitor( ( visited, bIndex, eIndex ) -> {
-      // Treat hyphenated compound words as individual words.
-      final var check = visited.replace( '-', ' ' );
-      final var checker = getSpellChecker();
-
-      checker.proofread( check, ( misspelled, prevIndex, currIndex ) -> {
-        prevIndex += bIndex;
-        currIndex += bIndex;
-
-        // Clear styling between lexiconically absent words.
-        builder.add( emptyList(), prevIndex - runningIndex.get() );
-        builder.add( singleton( "spelling" ), currIndex - prevIndex );
-        runningIndex.set( currIndex );
-      } );
-    } );
-
-    visitor.visit( node );
-
-    // If the running index was set, at least one word triggered the listener.
-    if( runningIndex.get() > 0 ) {
-      // Clear styling after the last lexiconically absent word.
-      builder.add( emptyList(), text.length() - runningIndex.get() );
-
-      final var spans = builder.create();
-
-      if( paraId >= 0 ) {
-        editor.setStyleSpans( paraId, 0, spans );
-      }
-      else {
-        editor.setStyleSpans( 0, spans );
-      }
-    }
+    mWorker.checkParagraph( editor, paraId );
   }
 
   /**
@@ -222,26 +163,4 @@ public final class TextEditorSpellChecker {
   private SpellChecker getSpellChecker() {
     return mSpellChecker.get();
   }
-
-  private static final class TextVisitor {
-    private final NodeVisitor mVisitor = new NodeVisitor( new VisitHandler<>(
-      com.vladsch.flexmark.ast.Text.class, this::visit )
-    );
-
-    private final SpellCheckListener mConsumer;
-
-    public TextVisitor( final SpellCheckListener consumer ) {
-      mConsumer = consumer;
-    }
-
-    private void visit( final com.vladsch.flexmark.util.ast.Node node ) {
-      if( node instanceof com.vladsch.flexmark.ast.Text ) {
-        mConsumer.accept( node.getChars().toString(),
-                          node.getStartOffset(),
-                          node.getEndOffset() );
-      }
-
-      mVisitor.visitChildren( node );
-    }
-  }
 }
@@ -42,7 +42,19 @@ public final class DataTypeConverter {
    * @throws NoSuchAlgorithmException Could not find the SHA-1 algorithm.
    */
   public static byte[] hash( final String s ) throws NoSuchAlgorithmException {
+    return hash( s.getBytes( UTF_8 ) );
+  }
+
+  /**
+   * Hashes an array of bytes using the SHA-1 algorithm.
+   *
+   * @param bytes The bytes to hash.
+   * @return The hashed bytes.
+   * @throws NoSuchAlgorithmException Could not find the SHA-1 algorithm.
+   */
+  public static byte[] hash( final byte[] bytes )
+    throws NoSuchAlgorithmException {
     final var digest = MessageDigest.getInstance( "SHA-1" );
-    return digest.digest( s.getBytes( UTF_8 ) );
+    return digest.digest( bytes );
   }
 }
@@ -0,0 +1,76 @@
+/* Copyright 2024 White Magic Software, Ltd. -- All rights reserved.
+ *
+ * SPDX-License-Identifier: MIT
+ */
+package com.keenwrite.collections;
+
+import com.keenwrite.sigils.SigilKeyOperator;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests the {@link IncrementalInterpolator} and {@link VersionedMap} classes.
+ */
+public class IncrementalInterpolatorTest {
+  private static final SigilKeyOperator OPERATOR =
+    new SigilKeyOperator( "{{", "}}" );
+
+  @Test
+  void test_Interpolate_ChangedKey_DependentsUpdated() {
+    final var definitions = new VersionedMap<String, String>();
+    final var interpolator = new IncrementalInterpolator( OPERATOR );
+
+    definitions.put( "name", "Alice" );
+    definitions.put( "greeting", "Hello, {{name}}!" );
+    definitions.put( "letter", "{{greeting}} Bye." );
+    definitions.put( "other", "{{missing}}" );
+
+    var map = interpolator.interpolate( definitions );
+    assertEquals( "Hello, Alice! Bye.", map.get( "letter" ) );
+    assertEquals( "{{missing}}", map.get( "other" ) );
+
+    final var version = definitions.getVersion();
+    definitions.put( "name", "Bob" );
+    definitions.put( "missing", "found" );
+
+    assertEquals( Set.of( "name", "missing" ),
+                  definitions.getChanges( version ) );
+
+    map = interpolator.interpolate( definitions );
+    assertEquals( "Hello, Bob! Bye.", map.get( "letter" ) );
+    assertEquals( "found", map.get( "other" ) );
+
+    definitions.remove( "name" );
+    map = interpolator.interpolate( definitions );
+    assertEquals( "Hello, {{name}}! Bye.", map.get( "letter" ) );
+    assertNull( map.get( "name" ) );
+  }
+
+  @Test
+  void test_Interpolate_Cycle_ReferenceRetained() {
+    final var definitions = new VersionedMap<String, String>();
+    final var interpolator = new IncrementalInterpolator( OPERATOR );
+
+    definitions.put( "a", "{{b}}" );
+    definitions.put( "b", "{{a}}" );
+
+    final var map = interpolator.interpolate( definitions );
+    assertTrue( map.get( "a" ).contains( "{{" ) );
+  }
+
+  @Test
+  void test_Update_SameContents_VersionUnchanged() {
+    final var definitions = new VersionedMap<String, String>();
+    definitions.put( "a", "1" );
+
+    final var version = definitions.getVersion();
+    definitions.update( Map.of( "a", "1" ) );
+
+    assertEquals( version, definitions.getVersion() );
+    assertEquals( Set.of(), definitions.getChanges( version ) );
+  }
+}
@@ -0,0 +1,95 @@
+/* Copyright 2024 White Magic Software, Ltd. -- All rights reserved.
+ *
+ * SPDX-License-Identifier: MIT
+ */
+package com.keenwrite.events;
+
+import org.greenrobot.eventbus.Subscribe;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static com.keenwrite.events.StatusEvent.clue;
+import static com.keenwrite.events.StatusEvent.progress;
+import static java.lang.Thread.sleep;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Tests that {@link StatusEvent} throttles only progress messages, and never
+ * lets a held progress message replace a newer status.
+ */
+public class StatusEventTest {
+  private final List<StatusEvent> mEvents = new CopyOnWriteArrayList<>();
+
+  /**
+   * Formatting is deferred until the assertions, so that loading the message
+   * bundle does not delay the messages being published.
+   */
+  @Subscribe
+  public void handle( final StatusEvent event ) {
+    mEvents.add( event );
+  }
+
+  @Test
+  void test_Clue_RepeatedKeys_NeverDropped() {
+    Bus.register( this );
+
+    try {
+      for( int i = 0; i < 3; i++ ) {
+        clue( "Main.status.error.file.delete", STR."file\{i}" );
+        clue( "Main.status.typeset.setting", "target", STR."file\{i}" );
+      }
+    } finally {
+      Bus.unregister( this );
+    }
+
+    assertEquals( 3, count( "Failed to delete" ) );
+    assertEquals( 3, count( "Set target" ) );
+  }
+
+  @Test
+  void test_Progress_RepeatedKeys_Coalesced() throws InterruptedException {
+    Bus.register( this );
+
+    try {
+      for( int i = 0; i < 3; i++ ) {
+        progress( "Main.status.export.concat", STR."chapter\{i}" );
+      }
+
+      sleep( 250 );
+    } finally {
+      Bus.unregister( this );
+    }
+
+    // The first is published immediately, the last once the interval ends.
+    assertEquals( 2, count( "Concatenating" ) );
+    assertEquals( "Concatenating 'chapter2'", mEvents.getLast().getMessage() );
+  }
+
+  @Test
+  void test_Progress_NewerEvent_HeldDropped() throws InterruptedException {
+    Bus.register( this );
+
+    try {
+      progress( "Main.status.typeset.page", 1, 2, 1 );
+      progress( "Main.status.typeset.page", 2, 2, 1 );
+      clue( "Main.status.typeset.ended.success", "file", "1s" );
+
+      sleep( 250 );
+    } finally {
+      Bus.unregister( this );
+    }
+
+    assertEquals( 1, count( "Typesetting page" ) );
+    assertEquals( "Finished typesetting 'file' (1s elapsed)",
+                  mEvents.getLast().getMessage() );
+  }
+
+  private long count( final String prefix ) {
+    return mEvents
+      .stream()
+      .filter( e -> e.getMessage().startsWith( prefix ) )
+      .count();
+  }
+}
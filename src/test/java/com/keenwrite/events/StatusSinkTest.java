@@ -0,0 +1,60 @@
+/* Copyright 2024 White Magic Software, Ltd. -- All rights reserved.
+ *
+ * SPDX-License-Identifier: MIT
+ */
+package com.keenwrite.events;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Tests that the {@link StatusSink} delivers events in batches.
+ */
+class StatusSinkTest {
+  @Test
+  void test_Accept_ManyEvents_OneBatchScheduled() {
+    final var tasks = new ArrayList<Runnable>();
+    final var batches = new ArrayList<List<StatusEvent>>();
+    final var sink = new StatusSink( 10, tasks::add, batches::add );
+
+    for( int i = 0; i < 5; i++ ) {
+      sink.accept( new StatusEvent( "Message " + i ) );
+    }
+
+    assertEquals( 1, tasks.size() );
+
+    tasks.getFirst().run();
+
+    assertEquals( 1, batches.size() );
+    assertEquals( 5, batches.getFirst().size() );
+    assertEquals( "Message 0", batches.getFirst().getFirst().getMessage() );
+  }
+
+  @Test
+  void test_Accept_ExceedCapacity_OldestDiscarded() {
+    final var tasks = new ArrayList<Runnable>();
+    final var batches = new ArrayList<List<StatusEvent>>();
+    final var sink = new StatusSink( 3, tasks::add, batches::add );
+
+    for( int i = 0; i < 7; i++ ) {
+      sink.accept( new StatusEvent( "Message " + i ) );
+    }
+
+    tasks.getFirst().run();
+
+    final var messages = batches.getFirst()
+                                .stream()
+                                .map( StatusEvent::getMessage )
+                                .toList();
+
+    assertEquals( List.of( "Message 4", "Message 5", "Message 6" ), messages );
+
+    // Events accepted after draining schedule a new batch.
+    sink.accept( new StatusEvent( "Message 7" ) );
+    assertEquals( 2, tasks.size() );
+  }
+}
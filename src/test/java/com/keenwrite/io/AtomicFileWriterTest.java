@@ -0,0 +1,57 @@
+/* Copyright 2024 White Magic Software, Ltd. -- All rights reserved.
+ *
+ * SPDX-License-Identifier: MIT
+ */
+package com.keenwrite.io;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.concurrent.CompletableFuture;
+
+import static com.keenwrite.io.AtomicFileWriter.write;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests that the {@link AtomicFileWriter} replaces files with the most
+ * recently requested text.
+ */
+class AtomicFileWriterTest {
+  @Test
+  void test_Write_ManyRequests_LastTextWritten( @TempDir final Path dir )
+    throws Exception {
+    final var file = dir.resolve( "document.md" );
+    final var writes = new ArrayList<CompletableFuture<Void>>();
+
+    for( int i = 0; i < 100; i++ ) {
+      writes.add( write( file, STR."Revision \{i}", UTF_8 ) );
+    }
+
+    CompletableFuture.allOf( writes.toArray( new CompletableFuture[ 0 ] ) )
+                     .get();
+
+    assertEquals( "Revision 99", Files.readString( file ) );
+
+    // Only the document remains; no temporary files are left behind.
+    try( final var files = Files.list( dir ) ) {
+      assertEquals( 1, files.count() );
+    }
+  }
+
+  @Test
+  void test_Write_SymbolicLink_TargetReplaced( @TempDir final Path dir )
+    throws Exception {
+    final var target = Files.writeString( dir.resolve( "target.md" ), "old" );
+    final var link = dir.resolve( "link.md" );
+    Files.createSymbolicLink( link, target );
+
+    write( link, "new", UTF_8 ).get();
+
+    assertTrue( Files.isSymbolicLink( link ) );
+    assertEquals( "new", Files.readString( target ) );
+  }
+}
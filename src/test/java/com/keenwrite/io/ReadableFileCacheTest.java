@@ -0,0 +1,85 @@
+/* Copyright 2024 White Magic Software, Ltd. -- All rights reserved.
+ *
+ * SPDX-License-Identifier: MIT
+ */
+package com.keenwrite.io;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+
+import static com.keenwrite.io.ReadableFileCache.isReadable;
+import static com.keenwrite.io.ReadableFileCache.watched;
+import static java.nio.file.Files.createDirectory;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests that the {@link ReadableFileCache} stays current as files change.
+ */
+class ReadableFileCacheTest {
+  /**
+   * Longest time to wait for the file system to report a change. Platforms
+   * without a native watch service are probed directly, so they need not
+   * wait.
+   */
+  private static final long TIMEOUT_MS = 10_000;
+
+  @Test
+  void test_IsReadable_FileCreatedThenDeleted_AnswerChanges(
+    @TempDir final Path dir ) throws Exception {
+    final var file = dir.resolve( "image.png" );
+
+    assertFalse( isReadable( file ) );
+    assertFalse( isReadable( dir ) );
+
+    Files.writeString( file, "png" );
+    assertTrue( await( file, true ) );
+
+    Files.delete( file );
+    assertFalse( await( file, false ) );
+  }
+
+  @Test
+  void test_IsReadable_ManyDirectories_WatchesBounded(
+    @TempDir final Path dir ) throws Exception {
+    final var files = new ArrayList<Path>();
+
+    for( int i = 0; i < 300; i++ ) {
+      final var file = createDirectory( dir.resolve( "d" + i ) )
+        .resolve( "image.png" );
+
+      assertFalse( isReadable( file ) );
+      files.add( file );
+    }
+
+    assertTrue( watched() <= 256 );
+
+    // The first directory is no longer watched, yet its answer is current.
+    final var file = files.getFirst();
+    Files.writeString( file, "png" );
+    assertTrue( await( file, true ) );
+  }
+
+  @Test
+  void test_IsReadable_MissingDirectory_NotReadable() {
+    assertFalse( isReadable( Path.of( "missing", "directory", "file" ) ) );
+  }
+
+  /**
+   * Events are delivered asynchronously, so wait for the expected answer.
+   */
+  private static boolean await( final Path file, final boolean expected )
+    throws InterruptedException {
+    final var deadline = System.currentTimeMillis() + TIMEOUT_MS;
+
+    while( isReadable( file ) != expected &&
+      System.currentTimeMillis() < deadline ) {
+      Thread.sleep( 10 );
+    }
+
+    return isReadable( file );
+  }
+}
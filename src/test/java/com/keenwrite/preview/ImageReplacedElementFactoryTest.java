@@ -0,0 +1,128 @@
+/* Copyright 2024 White Magic Software, Ltd. -- All rights reserved.
+ *
+ * SPDX-License-Identifier: MIT
+ */
+package com.keenwrite.preview;
+
+import com.keenwrite.preview.ImageReplacedElementFactory.PlaceholderElement;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.xhtmlrenderer.render.BlockBox;
+import org.xhtmlrenderer.swing.NaiveUserAgent;
+
+import javax.imageio.ImageIO;
+import javax.xml.parsers.DocumentBuilderFactory;
+import java.awt.image.BufferedImage;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static com.keenwrite.preview.ImageReplacedElementFactory.HTML_IMAGE;
+import static com.keenwrite.preview.ImageReplacedElementFactory.HTML_IMAGE_SRC;
+import static java.awt.image.BufferedImage.TYPE_INT_ARGB;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests the {@link ImageReplacedElementFactory} class.
+ */
+public class ImageReplacedElementFactoryTest {
+  /**
+   * More images than the preview's former bounded caches could hold.
+   */
+  private static final int IMAGES = 400;
+
+  private static final long TIMEOUT_MS = 10_000;
+
+  @Test
+  void test_Layout_ManyImages_LayoutSettles( @TempDir final Path dir )
+    throws Exception {
+    final var layouts = new AtomicInteger();
+    final var images = new ImageReplacedElementFactory(
+      new RasterCache( () -> dir.resolve( "cache" ) ),
+      layouts::incrementAndGet
+    );
+    final var factory = new ChainedReplacedElementFactory( images );
+    final var uac = new NaiveUserAgent();
+    final var boxes = createBoxes( dir );
+
+    uac.setBaseURL( dir.toUri().toString() );
+
+    var placeholders = layout( factory, boxes, uac );
+    assertEquals( IMAGES, placeholders );
+
+    // Lay out again whenever the factory asks, as the preview would.
+    for( int pass = 0; placeholders > 0 && pass < 100; pass++ ) {
+      await( layouts, layouts.get() );
+      placeholders = layout( factory, boxes, uac );
+    }
+
+    assertEquals( 0, placeholders );
+
+    // Re-rendering the same document reuses every image.
+    factory.advance();
+    images.advance();
+    assertEquals( 0, layout( factory, boxes, uac ) );
+
+    // Once settled, no more layouts are requested.
+    final var settled = layouts.get();
+    Thread.sleep( 500 );
+    assertEquals( settled, layouts.get() );
+  }
+
+  private static int layout(
+    final ChainedReplacedElementFactory factory,
+    final List<BlockBox> boxes,
+    final NaiveUserAgent uac ) {
+    int placeholders = 0;
+
+    for( final var box : boxes ) {
+      final var element = factory.createReplacedElement( null, box, uac, 0, 0 );
+
+      assertNotNull( element );
+
+      if( element instanceof PlaceholderElement ) {
+        placeholders++;
+      }
+    }
+
+    return placeholders;
+  }
+
+  private static List<BlockBox> createBoxes( final Path dir )
+    throws Exception {
+    final var doc = DocumentBuilderFactory
+      .newInstance()
+      .newDocumentBuilder()
+      .newDocument();
+    final var boxes = new ArrayList<BlockBox>( IMAGES );
+    final var image = new BufferedImage( 4, 3, TYPE_INT_ARGB );
+
+    for( int i = 0; i < IMAGES; i++ ) {
+      final var name = STR."image-\{i}.png";
+      ImageIO.write( image, "png", dir.resolve( name ).toFile() );
+
+      final var element = doc.createElement( HTML_IMAGE );
+      element.setAttribute( HTML_IMAGE_SRC, name );
+
+      final var box = new BlockBox();
+      box.setElement( element );
+      boxes.add( box );
+    }
+
+    return boxes;
+  }
+
+  /**
+   * Waits for a layout to be requested after the given number of layouts.
+   */
+  private static void await( final AtomicInteger layouts, final int count )
+    throws InterruptedException {
+    final var expiry = System.currentTimeMillis() + TIMEOUT_MS;
+
+    while( layouts.get() == count ) {
+      assertTrue( System.currentTimeMillis() < expiry, "Layout not requested" );
+      Thread.sleep( 10 );
+    }
+  }
+}
@@ -0,0 +1,62 @@
+/* Copyright 2024 White Magic Software, Ltd. -- All rights reserved.
+ *
+ * SPDX-License-Identifier: MIT
+ */
+package com.keenwrite.preview;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.awt.image.BufferedImage;
+import java.nio.file.Path;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static java.awt.image.BufferedImage.TYPE_INT_ARGB;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Tests the {@link RasterCache} class.
+ */
+public class RasterCacheTest {
+  @TempDir
+  private Path mDir;
+
+  @Test
+  void test_Get_SameKey_RasterizedOnce() throws Exception {
+    final var calls = new AtomicInteger();
+    final var source = "x^2".getBytes( UTF_8 );
+    final var cache = new RasterCache( () -> mDir );
+    final var expected = createImage();
+
+    final var first = cache.get( source, 0, 2, () -> {
+      calls.incrementAndGet();
+      return expected;
+    } );
+
+    // A new cache reads images written by a previous session.
+    final var second = new RasterCache( () -> mDir ).get( source, 0, 2, () -> {
+      calls.incrementAndGet();
+      return expected;
+    } );
+
+    assertEquals( 1, calls.get() );
+    assertEquals( expected, first );
+    assertEquals( 3, second.getWidth() );
+    assertEquals( 2, second.getHeight() );
+    assertEquals( expected.getRGB( 2, 1 ), second.getRGB( 2, 1 ) );
+
+    cache.get( source, 10, 2, () -> {
+      calls.incrementAndGet();
+      return expected;
+    } );
+
+    assertEquals( 2, calls.get() );
+  }
+
+  private static BufferedImage createImage() {
+    final var image = new BufferedImage( 3, 2, TYPE_INT_ARGB );
+    image.setRGB( 2, 1, 0x80FF4020 );
+    return image;
+  }
+}
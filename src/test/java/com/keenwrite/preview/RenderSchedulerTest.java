@@ -0,0 +1,97 @@
+/* Copyright 2024 White Magic Software, Ltd. -- All rights reserved.
+ *
+ * SPDX-License-Identifier: MIT
+ */
+package com.keenwrite.preview;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests the {@link RenderScheduler} class.
+ */
+public class RenderSchedulerTest {
+  private static final String KEY_1 = "editor-1";
+  private static final String KEY_2 = "editor-2";
+
+  @Test
+  void test_Schedule_WhileRunning_LatestWins() throws InterruptedException {
+    final var scheduler = new RenderScheduler();
+    final var started = new CountDownLatch( 1 );
+    final var release = new CountDownLatch( 1 );
+    final var finished = new CountDownLatch( 1 );
+    final List<Integer> rendered = new CopyOnWriteArrayList<>();
+
+    scheduler.schedule( KEY_1, () -> {
+      started.countDown();
+
+      try {
+        release.await();
+      } catch( final InterruptedException ignored ) { }
+
+      rendered.add( 0 );
+    } );
+
+    assertTrue( started.await( 5, SECONDS ) );
+
+    for( int i = 1; i <= 5; i++ ) {
+      final var request = i;
+
+      scheduler.schedule( KEY_1, () -> {
+        rendered.add( request );
+        finished.countDown();
+      } );
+    }
+
+    assertEquals( 1, scheduler.getQueueDepth() );
+    release.countDown();
+
+    assertTrue( finished.await( 5, SECONDS ) );
+    assertEquals( List.of( 0, 5 ), rendered );
+    assertEquals( 0, scheduler.getQueueDepth() );
+    assertEquals( 4, scheduler.getDropped() );
+  }
+
+  @Test
+  void test_Schedule_DifferentKeys_EachRendered()
+    throws InterruptedException {
+    final var scheduler = new RenderScheduler();
+    final var started = new CountDownLatch( 1 );
+    final var release = new CountDownLatch( 1 );
+    final var finished = new CountDownLatch( 2 );
+    final List<String> rendered = new CopyOnWriteArrayList<>();
+
+    scheduler.schedule( KEY_1, () -> {
+      started.countDown();
+
+      try {
+        release.await();
+      } catch( final InterruptedException ignored ) { }
+    } );
+
+    assertTrue( started.await( 5, SECONDS ) );
+
+    scheduler.schedule( KEY_1, () -> rendered.add( "dropped" ) );
+    scheduler.schedule( KEY_2, () -> {
+      rendered.add( KEY_2 );
+      finished.countDown();
+    } );
+    scheduler.schedule( KEY_1, () -> {
+      rendered.add( KEY_1 );
+      finished.countDown();
+    } );
+
+    assertEquals( 2, scheduler.getQueueDepth() );
+    release.countDown();
+
+    assertTrue( finished.await( 5, SECONDS ) );
+    assertEquals( List.of( KEY_1, KEY_2 ), rendered );
+    assertEquals( 1, scheduler.getDropped() );
+  }
+}
@@ -0,0 +1,53 @@
+/* Copyright 2024 White Magic Software, Ltd. -- All rights reserved.
+ *
+ * SPDX-License-Identifier: MIT
+ */
+package com.keenwrite.preview;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests the {@link SourceMap} class.
+ */
+public class SourceMapTest {
+  @Test
+  void test_IndexOf_OffsetsInAndBetweenElements_NearestElement() {
+    final var builder = new SourceMap.Builder();
+    builder.add( 0, 7 );
+    builder.add( 9, 21 );
+    builder.add( 23, 40 );
+
+    final var map = builder.build();
+
+    assertEquals( 3, map.size() );
+    assertEquals( 0, map.indexOf( 0 ) );
+    assertEquals( 0, map.indexOf( 7 ) );
+    assertEquals( 1, map.indexOf( 8 ) );
+    assertEquals( 1, map.indexOf( 15 ) );
+    assertEquals( 2, map.indexOf( 22 ) );
+    assertEquals( 2, map.indexOf( 500 ) );
+    assertEquals( -1, SourceMap.EMPTY.indexOf( 0 ) );
+  }
+
+  @Test
+  void test_Add_ShiftedBlocks_OffsetsMoved() {
+    final var block = new SourceMap.Builder();
+    block.add( 0, 5 );
+    block.add( 7, 12 );
+
+    final var relative = block.build();
+    final var builder = new SourceMap.Builder();
+
+    for( int i = 0; i < 100; i++ ) {
+      builder.add( relative, i * 20 );
+    }
+
+    final var map = builder.build();
+
+    assertEquals( 200, map.size() );
+    assertEquals( 3, map.indexOf( 27 ) );
+    assertEquals( 199, map.indexOf( 1999 ) );
+  }
+}
@@ -3,11 +3,15 @@ package com.keenwrite.processors.html;
 import com.keenwrite.ExportFormat;
 import com.keenwrite.editors.common.Caret;
 import com.keenwrite.processors.ProcessorContext;
+import com.keenwrite.util.GenericBuilder;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.Arguments;
 import org.junit.jupiter.params.provider.MethodSource;
 
 import java.io.File;
+import java.io.IOException;
 import java.nio.file.Path;
 import java.util.HashMap;
 import java.util.stream.Stream;
@@ -16,8 +20,10 @@ import static com.keenwrite.ExportFormat.HTML_TEX_DELIMITED;
 import static com.keenwrite.ExportFormat.XHTML_TEX;
 import static com.keenwrite.processors.ProcessorContext.builder;
 import static com.keenwrite.processors.ProcessorFactory.createProcessors;
+import static java.nio.file.Files.createFile;
 import static java.util.Locale.ENGLISH;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 public class XhtmlProcessorTest {
 
@@ -37,8 +43,36 @@ public class XhtmlProcessorTest {
     assertEquals( expected, actual );
   }
 
+  @Test
+  void test_Conversion_ImageWithoutExtension_ResolvedImage(
+    @TempDir final Path images ) throws IOException {
+    createFile( images.resolve( "logo.png" ) );
+
+    final var context = createImageContext( images );
+    final var processor = createProcessors( context );
+    final var actual = processor.apply( "![](logo)" );
+
+    assertTrue( actual.contains( "src=\"logo.png\"" ), actual );
+  }
+
   private static ProcessorContext createProcessorContext(
     final ExportFormat format ) {
+    return createContextBuilder( format ).build();
+  }
+
+  /**
+   * Creates a context that resolves images without extensions against the
+   * given directory, preferring SVG over PNG.
+   */
+  private static ProcessorContext createImageContext( final Path images ) {
+    return createContextBuilder( XHTML_TEX )
+      .with( ProcessorContext.Mutator::setImageDir, images::toFile )
+      .with( ProcessorContext.Mutator::setImageOrder, () -> "svg png" )
+      .build();
+  }
+
+  private static GenericBuilder<ProcessorContext.Mutator, ProcessorContext>
+  createContextBuilder( final ExportFormat format ) {
     final var caret = Caret.builder().build();
     return builder()
       .with( ProcessorContext.Mutator::setExportFormat, format )
@@ -56,8 +90,7 @@ public class XhtmlProcessorTest {
       .with( ProcessorContext.Mutator::setRScript, () -> "" )
       .with( ProcessorContext.Mutator::setRWorkingDir, () -> Path.of( "r" ) )
       .with( ProcessorContext.Mutator::setCurlQuotes, () -> true )
-      .with( ProcessorContext.Mutator::setAutoRemove, () -> true )
-      .build();
+      .with( ProcessorContext.Mutator::setAutoRemove, () -> true );
   }
 
   private static Stream<Arguments> formatParameters() {
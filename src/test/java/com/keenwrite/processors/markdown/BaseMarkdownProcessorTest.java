@@ -0,0 +1,91 @@
+/* Copyright 2024 White Magic Software, Ltd. -- All rights reserved.
+ *
+ * SPDX-License-Identifier: MIT
+ */
+package com.keenwrite.processors.markdown;
+
+import com.keenwrite.ExportFormat;
+import com.keenwrite.editors.common.Caret;
+import com.keenwrite.processors.ProcessorContext;
+import org.junit.jupiter.api.Test;
+
+import java.nio.file.Path;
+import java.util.HashMap;
+
+import static com.keenwrite.ExportFormat.NONE;
+import static com.keenwrite.ExportFormat.XHTML_TEX;
+import static com.keenwrite.processors.ProcessorContext.builder;
+import static java.util.Locale.ENGLISH;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests the {@link BaseMarkdownProcessor} class.
+ */
+public class BaseMarkdownProcessorTest {
+  private static final String MARKDOWN = """
+    # Intro
+
+    Text.
+
+    # Intro
+
+    ## Intro
+
+    See [second](#intro-1).
+    """;
+
+  @Test
+  void test_Preview_RepeatedHeadings_UniqueIds() {
+    final var preview = createProcessor( NONE );
+    final var html = preview.apply( MARKDOWN );
+
+    assertTrue( html.contains( "<h1 id=\"intro\">" ), html );
+    assertTrue( html.contains( "<h1 id=\"intro-1\">" ), html );
+    assertTrue( html.contains( "<h2 id=\"intro-2\">" ), html );
+  }
+
+  @Test
+  void test_Preview_EditedBlocks_IdsMatchCompleteRender() {
+    final var preview = createProcessor( NONE );
+    final var export = createProcessor( XHTML_TEX );
+
+    // Cache the blocks, then insert a repeated heading before them.
+    preview.apply( MARKDOWN );
+
+    final var edited = "# Intro\n\n" + MARKDOWN;
+    final var expected = export.apply( edited );
+    final var actual = preview.apply( edited );
+
+    for( final var id : new String[]{"intro-1", "intro-2", "intro-3"} ) {
+      final var attribute = "id=\"" + id + "\"";
+      assertTrue( expected.contains( attribute ), expected );
+      assertTrue( actual.contains( attribute ), actual );
+    }
+  }
+
+  private static BaseMarkdownProcessor createProcessor(
+    final ExportFormat format ) {
+    final var caret = Caret.builder().build();
+    final var images = Path.of( "i" ).toFile();
+    final var context = builder()
+      .with( ProcessorContext.Mutator::setExportFormat, format )
+      .with( ProcessorContext.Mutator::setSourcePath, Path.of( "f.md" ) )
+      .with( ProcessorContext.Mutator::setDefinitions, HashMap::new )
+      .with( ProcessorContext.Mutator::setLocale, () -> ENGLISH )
+      .with( ProcessorContext.Mutator::setMetadata, HashMap::new )
+      .with( ProcessorContext.Mutator::setThemeDir, () -> Path.of( "b" ) )
+      .with( ProcessorContext.Mutator::setCaret, () -> caret )
+      .with( ProcessorContext.Mutator::setImageDir, () -> images )
+      .with( ProcessorContext.Mutator::setImageOrder, () -> "" )
+      .with( ProcessorContext.Mutator::setImageServer, () -> "" )
+      .with( ProcessorContext.Mutator::setSigilBegan, () -> "" )
+      .with( ProcessorContext.Mutator::setSigilEnded, () -> "" )
+      .with( ProcessorContext.Mutator::setRScript, () -> "" )
+      .with( ProcessorContext.Mutator::setRWorkingDir, () -> Path.of( "r" ) )
+      .with( ProcessorContext.Mutator::setCurlQuotes, () -> true )
+      .with( ProcessorContext.Mutator::setAutoRemove, () -> true )
+      .build();
+
+    return new BaseMarkdownProcessor( null, context );
+  }
+}
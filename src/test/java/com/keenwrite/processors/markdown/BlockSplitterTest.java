@@ -0,0 +1,47 @@
+/* Copyright 2024 White Magic Software, Ltd. -- All rights reserved.
+ *
+ * SPDX-License-Identifier: MIT
+ */
+package com.keenwrite.processors.markdown;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests the {@link BlockSplitter} class.
+ */
+public class BlockSplitterTest {
+  @ParameterizedTest
+  @MethodSource( "markdownParameters" )
+  void test_Split_Markdown_BlockOffsets(
+    final String md, final List<Integer> expected ) {
+    assertEquals( expected, BlockSplitter.split( md ) );
+  }
+
+  @Test
+  void test_Splittable_ReferenceDefinition_False() {
+    assertTrue( BlockSplitter.isSplittable( "# Heading\n\n[link][ref]\n" ) );
+    assertFalse( BlockSplitter.isSplittable( "[link][ref]\n\n[ref]: /url\n" ) );
+  }
+
+  private static Stream<Arguments> markdownParameters() {
+    return Stream.of(
+      Arguments.of( "", List.of( 0 ) ),
+      Arguments.of( "# Heading\n\nParagraph\n", List.of( 0, 11 ) ),
+      Arguments.of( "one\ntwo\n\n\nthree\n", List.of( 0, 10 ) ),
+      Arguments.of( "* a\n\n* b\n\n  c\n\nd\n", List.of( 0, 15 ) ),
+      Arguments.of( "```\na\n\nb\n```\n\nc\n", List.of( 0, 14 ) ),
+      Arguments.of( "a\n\n<!-- x\n\ny -->\n\nb\n", List.of( 0, 3, 18 ) ),
+      Arguments.of( "::: poem\na\n\nb\n:::\n\n:: Caption\n", List.of( 0 ) ),
+      Arguments.of( "::: poem\na\n:::\n\nb\n", List.of( 0, 16 ) ),
+      Arguments.of( "term\n\n: definition\n", List.of( 0 ) )
+    );
+  }
+}
@@ -0,0 +1,41 @@
+/* Copyright 2024 White Magic Software, Ltd. -- All rights reserved.
+ *
+ * SPDX-License-Identifier: MIT
+ */
+package com.keenwrite.processors.markdown;
+
+import com.keenwrite.processors.markdown.HeadingIds.HeadingId;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Tests the {@link HeadingIds} class.
+ */
+public class HeadingIdsTest {
+  @Test
+  void test_Identify_RepeatedChapterHeadings_UniqueIdsAndLinks() {
+    final var headings = new HeadingIds();
+    final var chapter = """
+      <h1 id="introduction">Introduction</h1>
+      <p><a href="#introduction">Top</a> <a href="#other">Other</a></p>
+      <h2 id="introduction-1">Introduction</h2>
+      """;
+    final var ids = List.of(
+      new HeadingId( "introduction", "introduction" ),
+      new HeadingId( "introduction", "introduction-1" )
+    );
+
+    assertEquals( chapter, headings.identify( chapter, ids, true ) );
+    assertEquals(
+      """
+        <h1 id="introduction-2">Introduction</h1>
+        <p><a href="#introduction-2">Top</a> <a href="#other">Other</a></p>
+        <h2 id="introduction-3">Introduction</h2>
+        """,
+      headings.identify( chapter, ids, true )
+    );
+  }
+}
@@ -0,0 +1,70 @@
+/* Copyright 2024 White Magic Software, Ltd. -- All rights reserved.
+ *
+ * SPDX-License-Identifier: MIT
+ */
+package com.keenwrite.processors.r;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests the {@link PlotCache} class.
+ */
+public class PlotCacheTest {
+  private static final String SVG = "<svg/>";
+
+  @TempDir
+  private Path mDir;
+
+  @Test
+  void test_Get_SameSource_PlottedOnce() throws IOException {
+    final var calls = new AtomicInteger();
+    final var cache = new PlotCache( () -> mDir );
+
+    final var first = cache.get( "plot(1)", path -> plot( path, calls ) );
+
+    // A new cache finds plots written by a previous session.
+    final var second = new PlotCache( () -> mDir )
+      .get( "plot(1)", path -> plot( path, calls ) );
+
+    assertEquals( 1, calls.get() );
+    assertEquals( first, second );
+    assertEquals( SVG, Files.readString( second, UTF_8 ) );
+
+    final var third = cache.get( "plot(2)", path -> plot( path, calls ) );
+
+    assertEquals( 2, calls.get() );
+    assertNotEquals( first, third );
+  }
+
+  @Test
+  void test_Get_FailedPlot_NotCached() {
+    final var calls = new AtomicInteger();
+    final var cache = new PlotCache( () -> mDir );
+
+    final var path = cache.get( "stop()", _ -> calls.incrementAndGet() );
+    cache.get( "stop()", _ -> calls.incrementAndGet() );
+
+    assertEquals( 2, calls.get() );
+    assertFalse( Files.exists( path ) );
+  }
+
+  private static void plot( final Path path, final AtomicInteger calls ) {
+    calls.incrementAndGet();
+
+    try {
+      Files.writeString( path, SVG, UTF_8 );
+    } catch( final IOException ex ) {
+      throw new UncheckedIOException( ex );
+    }
+  }
+}
@@ -0,0 +1,57 @@
+/* Copyright 2024 White Magic Software, Ltd. -- All rights reserved.
+ *
+ * SPDX-License-Identifier: MIT
+ */
+package com.keenwrite.processors.text;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Tests the {@link CompiledReplacer} class.
+ */
+public class CompiledReplacerTest {
+  @Test
+  void test_Replace_Definitions_ValuesSubstituted() {
+    final var replacer = new CompiledReplacer();
+    replacer.compile( 1, () -> Map.of( "{{a}}", "x", "{{bb}}", "yy" ) );
+
+    assertEquals( "x, yy, {{c}}", replacer.replace( "{{a}}, {{bb}}, {{c}}" ) );
+    assertEquals( "", replacer.replace( null ) );
+  }
+
+  @Test
+  void test_Compile_SameVersion_MapReused() {
+    final var replacer = new CompiledReplacer();
+    final var calls = new AtomicInteger();
+
+    replacer.compile( 1, () -> {
+      calls.incrementAndGet();
+      return Map.of( "{{a}}", "x" );
+    } );
+    replacer.compile( 1, () -> {
+      calls.incrementAndGet();
+      return Map.of( "{{a}}", "y" );
+    } );
+
+    assertEquals( 1, calls.get() );
+    assertEquals( "x", replacer.replace( "{{a}}" ) );
+
+    replacer.compile( 2, () -> Map.of( "{{a}}", "z" ) );
+    assertEquals( "z", replacer.replace( "{{a}}" ) );
+  }
+
+  @Test
+  void test_Replace_Buffer_TextAppended() {
+    final var replacer = new CompiledReplacer();
+    final var buffer = new StringBuilder( "> " );
+    replacer.compile( 1, () -> Map.of( "{{a}}", "x" ) );
+    replacer.replace( "a {{a}} b", buffer );
+
+    assertEquals( "> a x b", buffer.toString() );
+  }
+}
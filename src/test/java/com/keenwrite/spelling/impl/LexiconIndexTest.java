@@ -0,0 +1,123 @@
+/* Copyright 2024 White Magic Software, Ltd. -- All rights reserved.
+ *
+ * SPDX-License-Identifier: MIT
+ */
+package com.keenwrite.spelling.impl;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static java.nio.file.Files.newOutputStream;
+import static org.junit.jupiter.api.Assertions.*;
+
+class LexiconIndexTest {
+  private static final Map<String, Long> LEXICON = Map.of(
+    "the", 100L,
+    "then", 50L,
+    "ten", 40L,
+    "tea", 30L,
+    "spelling", 20L,
+    "über", 10L
+  );
+
+  @Test
+  void test_Find_MappedLexicon_ExactWordsFound( @TempDir final Path dir )
+    throws IOException {
+    final var lexicon = write( dir.resolve( "words.lex" ) );
+
+    assertEquals( LEXICON.size(), lexicon.size() );
+    assertFalse( lexicon.hasDeletes() );
+
+    for( final var entry : LEXICON.entrySet() ) {
+      final var id = lexicon.find( entry.getKey() );
+
+      assertTrue( id >= 0 );
+      assertEquals( entry.getKey(), lexicon.word( id ) );
+      assertEquals( entry.getValue(), lexicon.frequency( id ) );
+    }
+
+    assertTrue( lexicon.find( "th" ) < 0 );
+    assertTrue( lexicon.find( "thens" ) < 0 );
+  }
+
+  @Test
+  void test_Suggestions_IndexedAndScanned_SameSuggestions(
+    @TempDir final Path dir ) throws IOException {
+    final var words = write( dir.resolve( "words.lex" ) );
+    final var indexed = dir.resolve( "words.idx" );
+
+    try( final var out = newOutputStream( indexed ) ) {
+      words.write( out );
+    }
+
+    final var index = LexiconIndex.open( indexed );
+    final var scanner = SymSpellSpeller.forLexicon( words );
+    final var speller = SymSpellSpeller.forLexicon( index );
+
+    assertTrue( index.hasDeletes() );
+    assertTrue( speller.inLexicon( "ten" ) );
+    assertFalse( speller.inLexicon( "teh" ) );
+
+    for( final var lexeme : new String[]{"teh", "speling", "uber", "tne"} ) {
+      assertEquals(
+        scanner.suggestions( lexeme, 3 ), speller.suggestions( lexeme, 3 ) );
+    }
+
+    assertEquals( "the", speller.suggestions( "teh", 1 ).get( 0 ) );
+    assertEquals( "spelling", speller.suggestions( "speling", 1 ).get( 0 ) );
+  }
+
+  @Test
+  void test_Suggestions_HashCollision_WordSuggested( @TempDir final Path dir )
+    throws IOException {
+    final var indexed = dir.resolve( "words.idx" );
+
+    // "Aac" and "BBc" have the same hash code, so the deletions of "BBc"
+    // include the lexeme itself, which must not hide the real match.
+    try( final var out = newOutputStream( indexed ) ) {
+      LexiconIndex.write( Map.of( "BBc", 10L ), true, out );
+    }
+
+    final var speller =
+      SymSpellSpeller.forLexicon( LexiconIndex.open( indexed ) );
+
+    assertEquals( "Aac".hashCode(), "BBc".hashCode() );
+    assertEquals( List.of( "BBc" ), speller.suggestions( "Aac", 3 ) );
+  }
+
+  @Test
+  void test_Proofread_MixedCaseText_MisspellingsOffsets(
+    @TempDir final Path dir ) throws IOException {
+    final var speller = SymSpellSpeller.forLexicon(
+      write( dir.resolve( "words.lex" ) ) );
+    final var text = "The tea's Über-spelling, then teh 3rd Tne.";
+    final var expected = List.of( "teh", "30", "33", "tne", "38", "41" );
+
+    // Check twice so that the second check finds cached words.
+    for( int i = 0; i < 2; i++ ) {
+      final var actual = new ArrayList<String>();
+
+      speller.proofread( text, ( lexeme, began, ended ) -> {
+        actual.add( lexeme );
+        actual.add( Integer.toString( began ) );
+        actual.add( Integer.toString( ended ) );
+      } );
+
+      assertEquals( expected, actual );
+    }
+  }
+
+  private static LexiconIndex write( final Path path ) throws IOException {
+    try( final var out = newOutputStream( path ) ) {
+      LexiconIndex.write( LEXICON, false, out );
+    }
+
+    return LexiconIndex.open( path );
+  }
+}
@@ -0,0 +1,42 @@
+/* Copyright 2024 White Magic Software, Ltd. -- All rights reserved.
+ *
+ * SPDX-License-Identifier: MIT
+ */
+package com.keenwrite.typesetting;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ProbeTest {
+  @Test
+  void test_Ready_UnchangedFingerprint_ProbedOnce() {
+    final var probes = new AtomicInteger();
+    final var probe = new Probe( () -> "PATH", () -> {
+      probes.incrementAndGet();
+      return true;
+    } );
+
+    assertTrue( probe.isReady() );
+    assertTrue( probe.isReady() );
+    assertEquals( 1, probes.get() );
+  }
+
+  @Test
+  void test_Ready_ChangedFingerprintOrReset_ProbedAgain() {
+    final var fingerprint = new AtomicInteger();
+    final var probes = new AtomicInteger();
+    final var probe = new Probe(
+      fingerprint::get, () -> probes.incrementAndGet() > 1
+    );
+
+    assertFalse( probe.isReady() );
+    fingerprint.incrementAndGet();
+    assertTrue( probe.isReady() );
+    probe.reset();
+    assertTrue( probe.isReady() );
+    assertEquals( 3, probes.get() );
+  }
+}
@@ -0,0 +1,59 @@
+/* Copyright 2024 White Magic Software, Ltd. -- All rights reserved.
+ *
+ * SPDX-License-Identifier: MIT
+ */
+package com.keenwrite.ui.heuristics;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static java.util.Locale.ENGLISH;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class WordFrequenciesTest {
+  @Test
+  void test_Update_ChangedParagraph_ChangedWordsOnly() {
+    final var frequencies = createFrequencies();
+    final var first = frequencies.update(
+      List.of( "alpha beta\n", "beta gamma\n" )
+    );
+
+    assertEquals( 4, first.total() );
+    assertEquals( 2, first.changes().get( "beta" ) );
+
+    final var second = frequencies.update(
+      List.of( "alpha beta\n", "beta delta\n" )
+    );
+
+    assertEquals( 4, second.total() );
+    assertEquals( Map.of( "gamma", 0, "delta", 1 ), second.changes() );
+  }
+
+  @Test
+  void test_Update_RepeatedParagraph_CountedEachTime() {
+    final var frequencies = createFrequencies();
+    final var paragraph = "alpha\n";
+
+    frequencies.update( List.of( paragraph, paragraph ) );
+    final var changes = frequencies.update( List.of( paragraph ) );
+
+    assertEquals( 1, changes.changes().get( "alpha" ) );
+    assertEquals( 1, changes.total() );
+  }
+
+  @Test
+  void test_Split_Html_ParagraphsAtBlockTags() {
+    final var html = "<p>alpha\nbeta</p>\n<p>gamma</p>\n";
+
+    assertEquals(
+      List.of( "<p>alpha\nbeta</p>\n", "<p>gamma</p>\n" ),
+      WordFrequencies.split( html )
+    );
+  }
+
+  private static WordFrequencies createFrequencies() {
+    return new WordFrequencies( WordCounter.create( ENGLISH ) );
+  }
+}